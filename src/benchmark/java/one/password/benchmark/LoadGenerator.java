@@ -0,0 +1,223 @@
+package one.password.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import one.password.Group;
+import one.password.OnePassword;
+import one.password.OnePasswordBase;
+import one.password.Session;
+import one.password.User;
+import one.password.cli.Op;
+import one.password.cli.ReplayOp;
+import one.password.util.FunctionWithException;
+import one.password.util.Threads;
+
+/**
+ * Scenario-driven load generator on top of the public {@link OnePasswordBase} API. Runs a weighted
+ * mix of operations with a target concurrency, a linear ramp-up and a fixed duration against a
+ * local stand-in CLI (or a replayed transcript) and reports throughput and latency percentiles of
+ * the steady state after ramp-up.
+ *
+ * <p>
+ * Arguments (all optional): {@code --mix=get:40,list:5,create:10,grantAccessTo:25,suspend:20
+ * --concurrency=16 --ramp-up=PT5S --duration=PT30S --latency=PT0.05S --users=1000 --groups=50
+ * --transcript=path --speed=1 --output=build/reports/load}
+ */
+public class LoadGenerator {
+	private final Map<String, Operation> operations = new LinkedHashMap<>();
+	private final Map<String, Integer> mix;
+	private final int totalWeight;
+	private final int concurrency;
+	private final Duration rampUp;
+	private final Duration duration;
+	private final AtomicInteger createdUsers = new AtomicInteger();
+
+	private List<User> users;
+	private List<Group> groups;
+
+	/** An operation of the scenario. */
+	@FunctionalInterface
+	public interface Operation extends FunctionWithException<OnePasswordBase, Object, IOException> {
+	}
+
+	public LoadGenerator(Map<String, Integer> mix, int concurrency, Duration rampUp,
+			Duration duration) {
+		operations.put("get", api -> api.users().get(randomUser().getId()));
+		operations.put("list", api -> api.users().list());
+		operations.put("create", api -> api.users()
+				.create("load" + createdUsers.incrementAndGet() + "@example.com", "Load Test"));
+		operations.put("grantAccessTo", api -> {
+			api.users().grantAccessTo(randomUser(), random(groups));
+			return null;
+		});
+		operations.put("listGrantedAccessTo",
+				api -> api.users().listGrantedAccessTo(random(groups)));
+		operations.put("suspend", api -> {
+			api.users().suspend(randomUser());
+			return null;
+		});
+
+		mix.keySet().stream().filter(name -> !operations.containsKey(name)).findAny()
+				.ifPresent(name -> {
+					throw new IllegalArgumentException(
+							"Unknown operation " + name + ", known: " + operations.keySet());
+				});
+		this.mix = mix;
+		this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+		this.concurrency = concurrency;
+		this.rampUp = rampUp;
+		this.duration = duration;
+	}
+
+	private User randomUser() {
+		return random(users);
+	}
+
+	private static <T> T random(List<T> list) {
+		return list.get(ThreadLocalRandom.current().nextInt(list.size()));
+	}
+
+	private String randomOperation() {
+		int value = ThreadLocalRandom.current().nextInt(totalWeight);
+		for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+			value -= entry.getValue();
+			if (value < 0) {
+				return entry.getKey();
+			}
+		}
+		throw new AssertionError("Weights exhausted");
+	}
+
+	/** Runs the scenario against the API and returns the report. */
+	public LoadReport run(OnePasswordBase api) throws IOException {
+		users = Arrays.asList(api.users().list());
+		groups = Arrays.asList(api.groups().list());
+
+		long start = System.nanoTime();
+		long steadyStart = start + rampUp.toNanos();
+		long end = steadyStart + duration.toNanos();
+		List<CompletableFuture<Worker>> workers = new ArrayList<>();
+		for (int i = 0; i < concurrency; i++) {
+			long workerStart = start + rampUp.toNanos() * i / concurrency;
+			Worker worker = new Worker(api, steadyStart, end);
+			workers.add(Threads.async(() -> worker.run(workerStart)));
+		}
+
+		Map<String, List<long[]>> samples = new HashMap<>();
+		Map<String, Long> errors = new HashMap<>();
+		for (CompletableFuture<Worker> future : workers) {
+			Worker worker = future.join();
+			worker.samples.forEach((operation, recorded) -> samples
+					.computeIfAbsent(operation, key -> new ArrayList<>()).add(recorded.toArray()));
+			worker.errors.forEach((operation, count) -> errors.merge(operation, count, Long::sum));
+		}
+
+		Map<String, long[]> merged = new HashMap<>();
+		samples.forEach((operation, arrays) -> merged.put(operation,
+				arrays.stream().flatMapToLong(Arrays::stream).toArray()));
+		return new LoadReport(merged, errors, end - steadyStart);
+	}
+
+	/** Executes operations in a loop, recording samples after ramp-up. */
+	private class Worker {
+		private final OnePasswordBase api;
+		private final long steadyStart;
+		private final long end;
+		private final Map<String, Samples> samples = new HashMap<>();
+		private final Map<String, Long> errors = new HashMap<>();
+
+		private Worker(OnePasswordBase api, long steadyStart, long end) {
+			this.api = api;
+			this.steadyStart = steadyStart;
+			this.end = end;
+		}
+
+		private Worker run(long workerStart) throws InterruptedException {
+			TimeUnit.NANOSECONDS.sleep(Math.max(0, workerStart - System.nanoTime()));
+			for (long now = System.nanoTime(); now < end; now = System.nanoTime()) {
+				String name = randomOperation();
+				boolean failed = false;
+				try {
+					operations.get(name).apply(api);
+				} catch (IOException e) {
+					failed = true;
+				}
+
+				long finished = System.nanoTime();
+				if (now >= steadyStart && finished <= end) {
+					samples.computeIfAbsent(name, key -> new Samples()).add(finished - now);
+					if (failed) {
+						errors.merge(name, 1L, Long::sum);
+					}
+				}
+			}
+			return this;
+		}
+	}
+
+	/** Growable array of latency samples. */
+	private static class Samples {
+		private long[] values = new long[1024];
+		private int size = 0;
+
+		private void add(long value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		private long[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			String[] option = arg.replaceFirst("^--", "").split("=", 2);
+			options.put(option[0], option.length > 1 ? option[1] : "true");
+		}
+
+		Map<String, Integer> mix = new LinkedHashMap<>();
+		for (String entry : options
+				.getOrDefault("mix", "get:40,list:5,create:10,grantAccessTo:25,suspend:20")
+				.split(",")) {
+			String[] weight = entry.split(":");
+			mix.put(weight[0], Integer.valueOf(weight[1]));
+		}
+
+		Op op;
+		if (options.containsKey("transcript")) {
+			op = new ReplayOp(Paths.get(options.get("transcript")),
+					Double.parseDouble(options.getOrDefault("speed", "1")));
+		} else {
+			op = new StandInOp(Integer.parseInt(options.getOrDefault("users", "1000")),
+					Integer.parseInt(options.getOrDefault("groups", "50")),
+					Duration.parse(options.getOrDefault("latency", "PT0.05S")));
+		}
+
+		LoadGenerator generator = new LoadGenerator(mix,
+				Integer.parseInt(options.getOrDefault("concurrency", "16")),
+				Duration.parse(options.getOrDefault("ramp-up", "PT5S")),
+				Duration.parse(options.getOrDefault("duration", "PT30S")));
+		LoadReport report =
+				generator.run(new OnePassword.PreAuthenticated(op, new Session("load", "load")));
+		Path output = Paths.get(options.getOrDefault("output", "build/reports/load"));
+		report.write(output);
+		System.out.print(report);
+		System.out.println("Report written to " + output.toAbsolutePath());
+	}
+}
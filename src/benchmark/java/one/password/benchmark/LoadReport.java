@@ -0,0 +1,104 @@
+package one.password.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import one.password.util.Json;
+
+/** Throughput and latency percentiles of a load test per operation, exported as CSV and JSON. */
+public class LoadReport {
+	private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+	private final List<Row> rows = new ArrayList<>();
+
+	/** Report line of a single operation. */
+	public static class Row {
+		private final String operation;
+		private final long count;
+		private final long errors;
+		private final double perMinute;
+		private final double p50Millis;
+		private final double p90Millis;
+		private final double p99Millis;
+		private final double p999Millis;
+		private final double maxMillis;
+
+		private Row(String operation, long[] nanos, long errors, long elapsedNanos) {
+			Arrays.sort(nanos);
+			this.operation = operation;
+			this.count = nanos.length;
+			this.errors = errors;
+			this.perMinute = nanos.length * (double) TimeUnit.MINUTES.toNanos(1) / elapsedNanos;
+			this.p50Millis = percentile(nanos, PERCENTILES[0]);
+			this.p90Millis = percentile(nanos, PERCENTILES[1]);
+			this.p99Millis = percentile(nanos, PERCENTILES[2]);
+			this.p999Millis = percentile(nanos, PERCENTILES[3]);
+			this.maxMillis = nanos.length == 0 ? 0 : millis(nanos[nanos.length - 1]);
+		}
+
+		private static double percentile(long[] sorted, double percentile) {
+			if (sorted.length == 0) {
+				return 0;
+			}
+
+			int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+			return millis(sorted[Math.max(0, Math.min(index, sorted.length - 1))]);
+		}
+
+		private static double millis(long nanos) {
+			return nanos / 1e6;
+		}
+
+		private String toCsv() {
+			return String.format(Locale.ROOT, "%s,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f", operation,
+					count, errors, perMinute, p50Millis, p90Millis, p99Millis, p999Millis,
+					maxMillis);
+		}
+	}
+
+	/** Creates the report from latency samples in nanoseconds per operation. */
+	public LoadReport(Map<String, long[]> samples, Map<String, Long> errors, long elapsedNanos) {
+		long[] all = samples.values().stream().flatMapToLong(Arrays::stream).toArray();
+		new TreeMap<>(samples).forEach((operation, nanos) -> rows.add(
+				new Row(operation, nanos, errors.getOrDefault(operation, 0L), elapsedNanos)));
+		rows.add(new Row("total", all,
+				errors.values().stream().mapToLong(Long::longValue).sum(), elapsedNanos));
+	}
+
+	public List<Row> getRows() {
+		return rows;
+	}
+
+	/** Writes the report as "load-report.csv" and "load-report.json" to the directory. */
+	public void write(Path directory) throws IOException {
+		Files.createDirectories(directory);
+		try (Writer writer =
+				Files.newBufferedWriter(directory.resolve("load-report.csv"), StandardCharsets.UTF_8)) {
+			writer.write("operation,count,errors,per_minute,p50_ms,p90_ms,p99_ms,p999_ms,max_ms\n");
+			for (Row row : rows) {
+				writer.write(row.toCsv());
+				writer.write('\n');
+			}
+		}
+
+		Files.write(directory.resolve("load-report.json"),
+				Json.serialize(rows).getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(
+				"operation,count,errors,per_minute,p50_ms,p90_ms,p99_ms,p999_ms,max_ms\n");
+		rows.forEach(row -> builder.append(row.toCsv()).append('\n'));
+		return builder.toString();
+	}
+}
@@ -0,0 +1,171 @@
+package one.password.benchmark;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import one.password.Group;
+import one.password.Role;
+import one.password.User;
+import one.password.Vault;
+import one.password.snapshot.AccountSnapshot;
+import one.password.snapshot.Edge;
+import one.password.snapshot.MappedSnapshot;
+import one.password.snapshot.SnapshotFile;
+import one.password.util.Json;
+import one.password.util.RunnableWithException;
+
+/**
+ * Compares exporting a synthetic account as Gson JSON with the columnar {@link SnapshotFile}: file
+ * size, write time, full read time and the time for counting suspended users, which only needs a
+ * single column of the mapped snapshot.
+ *
+ * <p>
+ * Arguments (all optional): {@code --users=50000 --groups=500 --vaults=2000 --runs=5}
+ */
+public class SnapshotBenchmark {
+	private static final String TIMESTAMP = "\"2021-01-01T10:00:00Z\"";
+
+	public static void main(String[] args) throws IOException {
+		int users = Integer.parseInt(option(args, "users", "50000"));
+		int groups = Integer.parseInt(option(args, "groups", "500"));
+		int vaults = Integer.parseInt(option(args, "vaults", "2000"));
+		int runs = Integer.parseInt(option(args, "runs", "5"));
+		AccountSnapshot account = account(users, groups, vaults);
+		System.out.println(String.format("%d users, %d groups, %d vaults, %d edges", users, groups,
+				vaults, account.getEdges().size()));
+
+		Path json = Files.createTempFile("account-", ".json");
+		Path snapshot = Files.createTempFile("account-", ".snapshot");
+		try {
+			System.out.println("format       size MB  write ms  read ms  count suspended ms");
+			long[] gson = {median(runs, () -> {
+				try (Writer writer = Files.newBufferedWriter(json, StandardCharsets.UTF_8)) {
+					writer.write(Json.serialize(new Dump(account)));
+				}
+			}), median(runs, () -> readJson(json)),
+					median(runs, () -> countSuspended(readJson(json).users))};
+			print("gson", Files.size(json), gson);
+
+			long[] columnar = {median(runs, () -> SnapshotFile.write(account, snapshot)),
+					median(runs, () -> MappedSnapshot.open(snapshot).materialize()),
+					median(runs, () -> countSuspended(MappedSnapshot.open(snapshot)))};
+			print("snapshot", Files.size(snapshot), columnar);
+		} finally {
+			Files.delete(json);
+			Files.delete(snapshot);
+		}
+	}
+
+	/** The account as serialized with Gson. */
+	private static class Dump {
+		private final User[] users;
+		private final Group[] groups;
+		private final Vault[] vaults;
+		private final Edge[] edges;
+
+		private Dump(AccountSnapshot account) {
+			this.users = account.getUsers();
+			this.groups = account.getGroups();
+			this.vaults = account.getVaults();
+			this.edges = account.getEdges().toArray(new Edge[0]);
+		}
+	}
+
+	private static Dump readJson(Path json) throws IOException {
+		try (Reader reader = Files.newBufferedReader(json, StandardCharsets.UTF_8)) {
+			return Json.deserialize(reader, Dump.class);
+		}
+	}
+
+	private static long countSuspended(User[] users) {
+		return Arrays.stream(users).filter(User::isSuspended).count();
+	}
+
+	private static long countSuspended(MappedSnapshot snapshot) {
+		MappedSnapshot.Table users = snapshot.getUsers();
+		long count = 0;
+		for (int row = 0; row < users.size(); row++) {
+			if ("S".equals(users.getString("state", row))) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/** Creates an account where each user is member of three groups and has access to a vault. */
+	private static AccountSnapshot account(int userCount, int groupCount, int vaultCount)
+			throws IOException {
+		Random random = new Random(42);
+		List<String> users = new ArrayList<>();
+		List<Edge> edges = new ArrayList<>();
+		for (int i = 0; i < userCount; i++) {
+			users.add("{\"uuid\":\"user" + i + "\",\"email\":\"user" + i
+					+ "@example.com\",\"name\":\"User " + i + "\",\"firstName\":\"User\""
+					+ ",\"lastName\":\"" + i + "\",\"language\":\"" + (i % 3 == 0 ? "de" : "en")
+					+ "\",\"createdAt\":" + TIMESTAMP + ",\"updatedAt\":" + TIMESTAMP
+					+ ",\"lastAuthAt\":\"2021-02-" + (10 + i % 18) + "T" + (10 + i % 12) + ":"
+					+ (10 + i % 50) + ":00Z\",\"state\":\"" + (i % 10 == 0 ? "S" : "A")
+					+ "\",\"type\":\"R\"}");
+			for (int membership = 0; membership < 3; membership++) {
+				edges.add(new Edge(Edge.Kind.USER_GROUP, "user" + i,
+						"group" + random.nextInt(groupCount),
+						membership == 0 ? Role.MANAGER : Role.MEMBER));
+			}
+			edges.add(new Edge(Edge.Kind.USER_VAULT, "user" + i,
+					"vault" + random.nextInt(vaultCount), Role.MEMBER));
+		}
+
+		List<String> groups = new ArrayList<>();
+		for (int i = 0; i < groupCount; i++) {
+			groups.add("{\"uuid\":\"group" + i + "\",\"name\":\"Group " + i
+					+ "\",\"desc\":\"\",\"createdAt\":" + TIMESTAMP + "}");
+		}
+
+		List<String> vaults = new ArrayList<>();
+		for (int i = 0; i < vaultCount; i++) {
+			vaults.add("{\"uuid\":\"vault" + i + "\",\"name\":\"Vault " + i + "\",\"desc\":\"\"}");
+			edges.add(new Edge(Edge.Kind.GROUP_VAULT, "group" + random.nextInt(groupCount),
+					"vault" + i, null));
+		}
+
+		return new AccountSnapshot(Json.deserialize(array(users), User[].class),
+				Json.deserialize(array(groups), Group[].class),
+				Json.deserialize(array(vaults), Vault[].class), edges);
+	}
+
+	private static String array(List<String> json) {
+		return "[" + String.join(",", json) + "]";
+	}
+
+	/** Runs the action once for warm-up and then the given number of times. */
+	private static long median(int runs, RunnableWithException<IOException> action)
+			throws IOException {
+		action.run();
+		long[] nanos = new long[runs];
+		for (int i = 0; i < runs; i++) {
+			long start = System.nanoTime();
+			action.run();
+			nanos[i] = System.nanoTime() - start;
+		}
+		Arrays.sort(nanos);
+		return nanos[runs / 2];
+	}
+
+	private static void print(String format, long size, long[] nanos) {
+		System.out.println(String.format("%-10s %9.1f %9.1f %8.1f %19.1f", format, size / 1e6,
+				nanos[0] / 1e6, nanos[1] / 1e6, nanos[2] / 1e6));
+	}
+
+	private static String option(String[] args, String name, String defaultValue) {
+		String prefix = "--" + name + "=";
+		return Arrays.stream(args).filter(arg -> arg.startsWith(prefix))
+				.map(arg -> arg.substring(prefix.length())).findFirst().orElse(defaultValue);
+	}
+}
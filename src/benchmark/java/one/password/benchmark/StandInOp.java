@@ -0,0 +1,138 @@
+package one.password.benchmark;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import one.password.Session;
+import one.password.cli.Commands;
+import one.password.cli.ErrorType;
+import one.password.cli.Op;
+import one.password.cli.OpException;
+
+/**
+ * Local stand-in for the 1password CLI serving a synthetic account of users and groups. Each
+ * invocation sleeps for the configured latency randomized by +/- 50% to mimic process spawn and
+ * server round trips.
+ */
+public class StandInOp extends Op {
+	private static final String VERSION = "1.12.5";
+	private static final String TIMESTAMP = "\"2021-01-01T10:00:00Z\"";
+
+	private final Map<String, String> users = new ConcurrentHashMap<>();
+	private final Map<String, String> groups = new ConcurrentHashMap<>();
+	private final AtomicInteger created = new AtomicInteger();
+	private final long latencyNanos;
+	private volatile String userList;
+
+	public StandInOp(int userCount, int groupCount, Duration latency) {
+		this.latencyNanos = latency.toNanos();
+		for (int i = 0; i < userCount; i++) {
+			users.put(userId(i), userJson(userId(i), "user" + i + "@example.com", "User " + i));
+		}
+		for (int i = 0; i < groupCount; i++) {
+			String id = "group" + i;
+			groups.put(id, "{\"uuid\":\"" + id + "\",\"name\":\"Group " + i
+					+ "\",\"desc\":\"\",\"createdAt\":" + TIMESTAMP + "}");
+		}
+	}
+
+	/** Returns the uuid of the i-th synthetic user. */
+	public static String userId(int i) {
+		return "user" + i;
+	}
+
+	private static String userJson(String id, String email, String name) {
+		return "{\"uuid\":\"" + id + "\",\"email\":\"" + email + "\",\"name\":\"" + name
+				+ "\",\"firstName\":\"" + name + "\",\"lastName\":\"\",\"language\":\"en\""
+				+ ",\"createdAt\":" + TIMESTAMP + ",\"updatedAt\":" + TIMESTAMP
+				+ ",\"lastAuthAt\":" + TIMESTAMP + ",\"state\":\"A\",\"type\":\"R\"}";
+	}
+
+	@Override
+	public String execute(Session session, String... arguments) throws IOException {
+		sleep();
+		Commands command = Commands.of(arguments[0])
+				.orElseThrow(() -> new OpException(ErrorType.UNKNOWN, "Unknown command"));
+		switch (command) {
+			case VERSION:
+				return VERSION;
+			case LIST:
+				return list(arguments[1]);
+			case GET:
+				return get(arguments[1], arguments[2]);
+			case CREATE:
+				return create(arguments[1], arguments[2], arguments[3]);
+			case DELETE:
+				users.remove(arguments[2]);
+				userList = null;
+				return "";
+			default:
+				return "";
+		}
+	}
+
+	@Override
+	public Reader read(Session session, String... arguments) throws IOException {
+		return new StringReader(execute(session, arguments));
+	}
+
+	private String list(String entities) {
+		if (entities.equals("groups")) {
+			return "[" + String.join(",", groups.values()) + "]";
+		}
+
+		String list = userList;
+		if (list == null) {
+			list = users.values().stream().collect(Collectors.joining(",", "[", "]"));
+			userList = list;
+		}
+		return list;
+	}
+
+	private String get(String entity, String id) throws OpException {
+		String json = entity.equals("group") ? groups.get(id) : users.get(id);
+		if (json == null) {
+			throw new OpException(ErrorType.UNKNOWN, "Invalid " + entity + " \"" + id + "\"");
+		}
+		return json;
+	}
+
+	private String create(String entity, String email, String name) {
+		String id = "created" + created.incrementAndGet();
+		String json = userJson(id, email, name);
+		if (entity.equals("user")) {
+			users.put(id, json);
+			userList = null;
+		}
+		return json;
+	}
+
+	private void sleep() throws InterruptedIOException {
+		if (latencyNanos <= 0) {
+			return;
+		}
+
+		long nanos = (long) (latencyNanos * (0.5 + ThreadLocalRandom.current().nextDouble()));
+		try {
+			TimeUnit.NANOSECONDS.sleep(nanos);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+	}
+
+	/** Returns the uuids of all groups. */
+	public List<String> groupIds() {
+		return new ArrayList<>(groups.keySet());
+	}
+}
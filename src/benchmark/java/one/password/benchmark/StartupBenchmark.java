@@ -0,0 +1,94 @@
+package one.password.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import one.password.Config;
+import one.password.OnePassword;
+import one.password.User;
+import one.password.cli.Op;
+import one.password.util.Json;
+
+/**
+ * Measures the cold path of a fresh JVM with JMH: each fork runs a single invocation, so lazy
+ * initialization such as seeding the device id or building Gson is part of the measured time.
+ *
+ * <p>
+ * The first result benchmarks run the real CLI against the account configured by the environment
+ * variables of the integration tests ({@code OP_TEST_SIGNINADDRESS}, {@code OP_TEST_EMAILADDRESS},
+ * {@code OP_TEST_SECRETKEY}, {@code OP_TEST_PASSWORD}) and compare signing in on first use with
+ * {@link OnePassword#warmUp()}. Run all via {@code -PstartupBenchmarkArgs=StartupBenchmark}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(20)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+	private static final String USER = "{\"uuid\":\"ABCDEFGHIJKLMNOPQRSTUVWXYZ\","
+			+ "\"email\":\"probe@example.com\",\"name\":\"Probe\",\"state\":\"A\","
+			+ "\"createdAt\":\"2021-03-01T10:00:00Z\",\"updatedAt\":\"2021-03-01T10:00:00Z\"}";
+
+	/** Constructing the API without using it. */
+	@Benchmark
+	public Object construct() {
+		Config config = new Config();
+		return new OnePassword(new Op(config), "probe.1password.com", "probe@example.com",
+				"A3-PROBE", () -> "probe");
+	}
+
+	/** Constructing the API and resolving the device id passed to each CLI process. */
+	@Benchmark
+	public String firstDevice() {
+		Config config = new Config();
+		new Op(config);
+		return config.getDevice();
+	}
+
+	/** Constructing the API and deserializing the first entity. */
+	@Benchmark
+	public User firstParse() throws IOException {
+		new Op(new Config());
+		return Json.deserialize(USER, User.class);
+	}
+
+	/** Signing in on first use and getting the own user with the real CLI. */
+	@Benchmark
+	public User firstResultCold() throws IOException {
+		try (OnePassword api = signinFromEnvironment()) {
+			return api.users().get(environment("OP_TEST_EMAILADDRESS"));
+		}
+	}
+
+	/** Warming up, i.e. signing in in parallel, and getting the own user with the real CLI. */
+	@Benchmark
+	public User firstResultWarmUp() throws IOException {
+		try (OnePassword api = signinFromEnvironment()) {
+			api.warmUp().join();
+			return api.users().get(environment("OP_TEST_EMAILADDRESS"));
+		}
+	}
+
+	private static OnePassword signinFromEnvironment() {
+		return new OnePassword(new Config(), environment("OP_TEST_SIGNINADDRESS"),
+				environment("OP_TEST_EMAILADDRESS"), environment("OP_TEST_SECRETKEY"),
+				() -> environment("OP_TEST_PASSWORD"));
+	}
+
+	private static String environment(String name) {
+		String value = System.getenv(name);
+		if (value == null) {
+			throw new IllegalStateException("The environment variable " + name + " is not set");
+		}
+		return value;
+	}
+}
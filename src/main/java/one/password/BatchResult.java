@@ -0,0 +1,64 @@
+package one.password;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Outcome of getting several entities at once, keyed by the requested names or uuids in the order
+ * of the request. Each key either has an entity or an error.
+ */
+public class BatchResult<E extends Entity> {
+	private final Set<String> keys;
+	private final Map<String, E> entities = new ConcurrentHashMap<>();
+	private final Map<String, IOException> errors = new ConcurrentHashMap<>();
+
+	BatchResult(Collection<String> keys) {
+		this.keys = new LinkedHashSet<>(keys);
+	}
+
+	void put(String key, E entity) {
+		entities.put(key, entity);
+		errors.remove(key);
+	}
+
+	void fail(String key, IOException error) {
+		errors.put(key, error);
+	}
+
+	/** Returns the entity got for the requested name or uuid. */
+	public Optional<E> get(String key) {
+		return Optional.ofNullable(entities.get(key));
+	}
+
+	/** Returns the entities got by requested name or uuid. */
+	public Map<String, E> getEntities() {
+		return ordered(entities);
+	}
+
+	/** Returns the errors of the failed names or uuids. */
+	public Map<String, IOException> getErrors() {
+		return ordered(errors);
+	}
+
+	/** Returns whether all requested entities have been got. */
+	public boolean isComplete() {
+		return entities.size() == keys.size();
+	}
+
+	private <V> Map<String, V> ordered(Map<String, V> values) {
+		Map<String, V> ordered = new LinkedHashMap<>();
+		for (String key : keys) {
+			if (values.containsKey(key)) {
+				ordered.put(key, values.get(key));
+			}
+		}
+		return Collections.unmodifiableMap(ordered);
+	}
+}
@@ -2,18 +2,35 @@ package one.password;
 
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import one.password.cache.InvalidationBus;
+import one.password.cli.CircuitBreaker;
+import one.password.cli.LaneScheduler;
+import one.password.cli.OpListener;
+import one.password.cli.RateLimit;
+import one.password.cli.RetryPolicy;
 import one.password.util.Utils;
 
 /** Configuration for the 1password CLI. */
 public class Config {
-	private static final String DEFAULT_DEVICE = Utils.randomBase32(26);
+	private static final int DEVICE_LENGTH = 26;
 	private String shorthand;
 	private Path executable;
 	private Path configDir;
 	private boolean cache = false;
 	private Duration timeout = Duration.ofSeconds(30);
-	private String device = DEFAULT_DEVICE;
+	private String device;
+	private RetryPolicy retryPolicy;
+	private CircuitBreaker circuitBreaker;
+	private RateLimit rateLimit;
+	private LaneScheduler scheduler;
+	private final List<OpListener> listeners = new CopyOnWriteArrayList<>();
+	private SessionStore sessionStore;
+	private Long spillThreshold;
+	private InvalidationBus invalidationBus;
 
 	public Optional<Path> getExecutable() {
 		return Optional.ofNullable(executable);
@@ -51,6 +68,117 @@ public class Config {
 		return this;
 	}
 
+	public Optional<RetryPolicy> getRetryPolicy() {
+		return Optional.ofNullable(retryPolicy);
+	}
+
+	/**
+	 * Enables retrying idempotent commands, i.e. get and list, that failed with a transient error.
+	 * Mutating commands are never retried. Pass null in order to disable retries, which is the
+	 * default.
+	 */
+	public Config setRetryPolicy(RetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+		return this;
+	}
+
+	public Optional<CircuitBreaker> getCircuitBreaker() {
+		return Optional.ofNullable(circuitBreaker);
+	}
+
+	/**
+	 * Sets a circuit breaker that fails fast while the 1password backend is unhealthy. The circuit
+	 * breaker may be shared between multiple configurations. Disabled by default.
+	 */
+	public Config setCircuitBreaker(CircuitBreaker circuitBreaker) {
+		this.circuitBreaker = circuitBreaker;
+		return this;
+	}
+
+	public Optional<RateLimit> getRateLimit() {
+		return Optional.ofNullable(rateLimit);
+	}
+
+	/**
+	 * Enables adaptive throttling of commands per account, backing off when the server reports
+	 * rate-limit errors. Pass null in order to disable throttling, which is the default.
+	 */
+	public Config setRateLimit(RateLimit rateLimit) {
+		this.rateLimit = rateLimit;
+		return this;
+	}
+
+	public Optional<LaneScheduler> getScheduler() {
+		return Optional.ofNullable(scheduler);
+	}
+
+	/**
+	 * Limits the number of concurrent CLI processes, prioritizing commands according to their
+	 * {@link one.password.cli.CallOptions}. The scheduler may be shared between multiple
+	 * configurations. Disabled by default.
+	 */
+	public Config setScheduler(LaneScheduler scheduler) {
+		this.scheduler = scheduler;
+		return this;
+	}
+
+	/** Returns the listeners notified about CLI invocations. */
+	public List<OpListener> getListeners() {
+		return Collections.unmodifiableList(listeners);
+	}
+
+	/** Adds a listener notified about CLI invocations, e.g. for profiling. */
+	public Config addListener(OpListener listener) {
+		listeners.add(listener);
+		return this;
+	}
+
+	/** Removes a previously added listener. */
+	public Config removeListener(OpListener listener) {
+		listeners.remove(listener);
+		return this;
+	}
+
+	public Optional<SessionStore> getSessionStore() {
+		return Optional.ofNullable(sessionStore);
+	}
+
+	/**
+	 * Sets a store for sharing sessions between multiple JVMs on the same host. Sessions of a
+	 * shared store are not signed out on close, as other JVMs may still use them.
+	 */
+	public Config setSessionStore(SessionStore sessionStore) {
+		this.sessionStore = sessionStore;
+		return this;
+	}
+
+	public Optional<Long> getSpillThreshold() {
+		return Optional.ofNullable(spillThreshold);
+	}
+
+	/**
+	 * Sets the output size in characters above which listings are spilled to a temporary file,
+	 * readable by the owner only, and parsed from a memory-mapped buffer instead of the heap. Pass
+	 * null in order to keep all output on the heap, which is the default.
+	 */
+	public Config setSpillThreshold(Long spillThreshold) {
+		this.spillThreshold = spillThreshold;
+		return this;
+	}
+
+	public Optional<InvalidationBus> getInvalidationBus() {
+		return Optional.ofNullable(invalidationBus);
+	}
+
+	/**
+	 * Sets a bus the high-level commands publish invalidations of created, modified and deleted
+	 * entities to, so caches of other nodes can evict them. Disabled by default.
+	 */
+	public Config setInvalidationBus(InvalidationBus invalidationBus) {
+		this.invalidationBus = invalidationBus;
+		return this;
+	}
+
 	public void setCache(boolean enabled) {
 		this.cache = enabled;
 	}
@@ -60,6 +188,9 @@ public class Config {
 	}
 
 	public String getDevice() {
+		if (device == null) {
+			return DefaultDevice.ID;
+		}
 		return device;
 	}
 
@@ -69,12 +200,13 @@ public class Config {
 	 */
 	public Config setDevice(String device) throws IllegalArgumentException {
 		if (device == null) {
-			device = DEFAULT_DEVICE;
+			this.device = null;
+			return this;
 		}
 
-		if (device.length() != DEFAULT_DEVICE.length()) {
+		if (device.length() != DEVICE_LENGTH) {
 			throw new IllegalArgumentException(
-					"The device id must have a string length of " + DEFAULT_DEVICE.length());
+					"The device id must have a string length of " + DEVICE_LENGTH);
 		}
 
 		if (!Utils.isBase32(device)) {
@@ -86,4 +218,11 @@ public class Config {
 		return this;
 	}
 
+	/**
+	 * Holder of the auto-generated device id, initialized on first use as seeding a
+	 * {@link java.security.SecureRandom} may block on entropy.
+	 */
+	private static class DefaultDevice {
+		private static final String ID = Utils.randomBase32(DEVICE_LENGTH);
+	}
 }
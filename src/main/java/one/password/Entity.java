@@ -1,5 +1,11 @@
 package one.password;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Stream;
 import com.google.gson.annotations.SerializedName;
 import one.password.cli.Flags;
@@ -9,9 +15,19 @@ public interface Entity {
 	/** Returns the entity primary Id. */
 	public String getId();
 
-	/** For internal use: Arguments for editing this entity via the 1password CLI. */
+	/**
+	 * For internal use: Arguments for editing the fields of this entity modified since it was
+	 * loaded via the 1password CLI, empty if not modified.
+	 */
 	Stream<String> op_editArguments();
 
+	/**
+	 * For internal use: Snapshots the values of the modified fields before saving them. The
+	 * returned action marks these fields as unmodified after they have been saved, except fields
+	 * set to another value meanwhile.
+	 */
+	Runnable op_markSaving();
+
 	/** Returns the singular name of the entity class. */
 	public static String singular(Class<? extends Entity> clazz) {
 		return clazz.getSimpleName().toLowerCase();
@@ -43,14 +59,81 @@ public interface Entity {
 
 	/** Base class for 1password entities. */
 	public abstract static class Base implements Entity, Entity.SecondaryId {
+		// version 2 of the CLI prints "id"
+		@SerializedName(value = "uuid", alternate = "id")
 		private String uuid;
 
+		/** Values of the modified fields when the entity was loaded or saved, by serialized name. */
+		private transient Map<String, Object> originals;
+
+		/** Current values of all fields ever set, by serialized name. */
+		private transient Map<String, Object> values;
+
 		/** Returns the entities Uuid. */
 		@Override
 		public String getId() {
 			return uuid;
 		}
 
+		/** Returns whether any field has been modified since the entity was loaded or saved. */
+		public synchronized boolean isModified() {
+			return originals != null && !originals.isEmpty();
+		}
+
+		/** Returns the serialized names of the fields modified since loaded or saved. */
+		public synchronized Set<String> getModifiedFields() {
+			return originals == null ? Collections.emptySet()
+					: Collections.unmodifiableSet(new HashSet<>(originals.keySet()));
+		}
+
+		/** Returns whether the field with the given serialized name has been modified. */
+		protected synchronized boolean isModified(String field) {
+			return originals != null && originals.containsKey(field);
+		}
+
+		/**
+		 * Tracks setting a field from the current to a new value, which is returned. Setting the
+		 * original value again makes the field unmodified.
+		 */
+		protected synchronized <T> T modify(String field, T current, T value) {
+			if (originals == null) {
+				originals = new HashMap<>();
+				values = new HashMap<>();
+			}
+			values.put(field, value);
+			if (!originals.containsKey(field)) {
+				if (!Objects.equals(current, value)) {
+					originals.put(field, current);
+				}
+			} else if (Objects.equals(originals.get(field), value)) {
+				originals.remove(field);
+			}
+			return value;
+		}
+
+		@Override
+		public synchronized Runnable op_markSaving() {
+			if (originals == null) {
+				return () -> {
+				};
+			}
+
+			Map<String, Object> saving = new HashMap<>();
+			originals.keySet().forEach(field -> saving.put(field, values.get(field)));
+			return () -> markSaved(saving);
+		}
+
+		/** Makes the saved values the originals, so fields still holding them are unmodified. */
+		private synchronized void markSaved(Map<String, Object> saved) {
+			saved.forEach((field, value) -> {
+				if (Objects.equals(values.get(field), value)) {
+					originals.remove(field);
+				} else {
+					originals.put(field, value);
+				}
+			});
+		}
+
 		@Override
 		public String toString() {
 			return getSecondaryId();
@@ -66,7 +149,7 @@ public interface Entity {
 		}
 
 		public void setName(String name) {
-			this.name = name;
+			this.name = modify("name", this.name, name);
 		}
 
 		@SerializedName("desc")
@@ -77,7 +160,7 @@ public interface Entity {
 		}
 
 		public Stream<String> op_editArguments() {
-			return Stream.of(Flags.NAME.is(name));
+			return Stream.of(isModified("name") ? Flags.NAME.is(name) : null);
 		}
 
 		@Override
@@ -4,28 +4,29 @@ import java.time.ZonedDateTime;
 import java.util.Optional;
 import java.util.stream.Stream;
 import one.password.cli.Flags;
+import one.password.util.LazyDateTime;
 
 public class Group extends Entity.Named implements Entity.UserOrGroup, Entity.UserAccessible {
 
 	public void setDescription(String description) {
-		this.description = description;
+		this.description = modify("desc", this.description, description);
 	}
 
-	private ZonedDateTime createdAt;
+	private LazyDateTime createdAt;
 
 	public ZonedDateTime getCreatedAt() {
-		return createdAt;
+		return LazyDateTime.resolve(createdAt);
 	}
 
-	private ZonedDateTime updatedAt;
+	private LazyDateTime updatedAt;
 
 	public Optional<ZonedDateTime> getUpdatedAt() {
-		return Optional.ofNullable(updatedAt);
+		return Optional.ofNullable(updatedAt).map(LazyDateTime::get);
 	}
 
 	@Override
 	public Stream<String> op_editArguments() {
 		return Stream.concat(super.op_editArguments(),
-				Stream.of(Flags.DESCRIPTION.is(description)));
+				Stream.of(isModified("desc") ? Flags.DESCRIPTION.is(description) : null));
 	}
 }
@@ -0,0 +1,452 @@
+package one.password;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import one.password.cli.Commands;
+import one.password.cli.ErrorType;
+import one.password.cli.Flags;
+import one.password.cli.RetryPolicy;
+import one.password.util.Json;
+import one.password.util.Threads;
+
+/**
+ * Durable write-behind queue for mutations. A mutation is appended to a local file and executed in
+ * the background, so the caller returns at once with a {@link Handle} it may await. Appends are
+ * forced to disk in batches: all mutations arriving while a batch is synced share the next sync.
+ * Mutations of the same entity are executed in order. Errors proving that the CLI did not execute
+ * a mutation, i.e. rate limits and an open circuit breaker, are retried according to the
+ * {@link RetryPolicy}; others such as timeouts are not, as the mutation may have been applied.
+ * Mutations not completed when the process dies are executed again when the queue is reopened,
+ * i.e. execution is at-least-once. Once the file exceeds a threshold, it is compacted to the
+ * mutations not completed yet.
+ */
+public class MutationQueue implements Closeable {
+	/** Errors of mutations that have not been executed, so retrying them cannot apply them twice. */
+	private static final Set<ErrorType> NOT_EXECUTED =
+			EnumSet.of(ErrorType.RATE_LIMIT, ErrorType.CIRCUIT_OPEN);
+
+	private final OnePasswordBase api;
+	private final RetryPolicy retryPolicy;
+	private final Path file;
+	private FileChannel channel;
+	private final AtomicLong sequence = new AtomicLong();
+	private final Map<String, CompletableFuture<?>> tails = new ConcurrentHashMap<>();
+	private final List<Handle> recovered;
+
+	private final List<Write> buffer = new ArrayList<>();
+	private boolean flushing = false;
+	private boolean closed = false;
+
+	// file state, only accessed by the running flush
+	private final Map<Long, String> written = new TreeMap<>();
+	private int lines = 0;
+	private volatile int compactThreshold = 1000;
+
+	/** Opens or creates the queue file and resumes mutations that did not complete. */
+	public MutationQueue(OnePasswordBase api, Path file) throws IOException {
+		this(api, file, new RetryPolicy());
+	}
+
+	/** Opens or creates the queue file with a custom retry policy for failed mutations. */
+	public MutationQueue(OnePasswordBase api, Path file, RetryPolicy retryPolicy)
+			throws IOException {
+		this.api = api;
+		this.retryPolicy = retryPolicy;
+		this.file = file;
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+
+		Map<Long, Record> pending = new TreeMap<>();
+		try {
+			String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+			int end = content.lastIndexOf('\n') + 1;
+			for (String line : content.substring(0, end).split("\n")) {
+				if (line.isEmpty()) {
+					continue;
+				}
+				Record record = Json.deserialize(line, Record.class);
+				sequence.accumulateAndGet(record.sequence, Math::max);
+				lines++;
+				if (record.done) {
+					pending.remove(record.sequence);
+					written.remove(record.sequence);
+				} else {
+					pending.put(record.sequence, record);
+					written.put(record.sequence, line + "\n");
+				}
+			}
+			// nothing to resume, start over with an empty file
+			if (pending.isEmpty()) {
+				lines = 0;
+			}
+			channel.truncate(pending.isEmpty() ? 0
+					: content.substring(0, end).getBytes(StandardCharsets.UTF_8).length);
+			channel.position(channel.size());
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+
+		List<Handle> handles = new ArrayList<>();
+		for (Record record : pending.values()) {
+			handles.add(schedule(record, CompletableFuture.completedFuture(null)));
+		}
+		recovered = Collections.unmodifiableList(handles);
+	}
+
+	/** Returns the handles of mutations resumed from a previous run. */
+	public List<Handle> getRecovered() {
+		return recovered;
+	}
+
+	/**
+	 * Sets the number of lines of the queue file, i.e. mutations and markers that they are done,
+	 * from which on the file is rewritten with the mutations not completed yet. Defaults to 1000.
+	 */
+	public MutationQueue setCompactThreshold(int compactThreshold) {
+		if (compactThreshold < 1) {
+			throw new IllegalArgumentException("The compact threshold must be positive");
+		}
+		this.compactThreshold = compactThreshold;
+		return this;
+	}
+
+	/** Grants a user or group access to a group or vault. */
+	public Handle grantAccessTo(Entity.UserOrGroup accessor, Entity accessible) {
+		return invalidating(enqueue(accessor, Commands.ADD, Entity.singular(accessor.getClass()),
+				accessor.getId(), accessible.getId()), accessor, accessible);
+	}
+
+	/** Grants a user access to a group or vault with a given role. */
+	public Handle grantAccessTo(User user, Entity.UserAccessible accessible, Role role) {
+		return invalidating(enqueue(user, Commands.ADD, Entity.singular(User.class), user.getId(),
+				accessible.getId(), Flags.ROLE.is(Objects.toString(role, null))), user, accessible);
+	}
+
+	/** Revokes access of a user or group to a group or vault. */
+	public Handle revokeAccessTo(Entity.UserOrGroup accessor, Entity accessible) {
+		return invalidating(enqueue(accessor, Commands.REMOVE,
+				Entity.singular(accessor.getClass()), accessor.getId(), accessible.getId()),
+				accessor, accessible);
+	}
+
+	/** Confirms a user. */
+	public Handle confirm(User user) {
+		return invalidating(
+				whenDone(enqueue(user, Commands.CONFIRM, user.getId()), user::internal_setActive),
+				user);
+	}
+
+	/** Suspends a user. */
+	public Handle suspend(User user) {
+		return invalidating(
+				whenDone(enqueue(user, Commands.SUSPEND, user.getId()), user::internal_setSuspend),
+				user);
+	}
+
+	/** Reactivates a suspended user. */
+	public Handle reactivate(User user) {
+		return invalidating(whenDone(enqueue(user, Commands.REACTIVATE, user.getId()),
+				user::internal_setActive), user);
+	}
+
+	/**
+	 * Edits the modified fields of an entity. Unmodified entities are not enqueued, their handle is
+	 * completed at once.
+	 */
+	public Handle edit(Entity entity) {
+		String[] arguments =
+				entity.op_editArguments().filter(Objects::nonNull).toArray(String[]::new);
+		if (arguments.length == 0) {
+			api.elideEdit();
+			CompletableFuture<Void> durable = CompletableFuture.completedFuture(null);
+			return new Handle(sequence.get(), durable, CompletableFuture.completedFuture(""));
+		}
+
+		Runnable markSaved = entity.op_markSaving();
+		return invalidating(whenDone(enqueue(entity, Commands.EDIT, Stream
+				.concat(Stream.of(Entity.singular(entity.getClass()), entity.getId()),
+						Arrays.stream(arguments))
+				.toArray(String[]::new)), markSaved), entity);
+	}
+
+	/** Deletes an entity. */
+	public Handle delete(Entity entity) {
+		return invalidating(enqueue(entity, Commands.DELETE,
+				Entity.singular(entity.getClass()), entity.getId()), entity);
+	}
+
+	private static Handle whenDone(Handle handle, Runnable action) {
+		handle.completed().thenRun(action);
+		return handle;
+	}
+
+	/** Publishes invalidations of the entities once the mutation succeeded, see {@link Config}. */
+	private Handle invalidating(Handle handle, Entity... entities) {
+		handle.completed().thenRun(() -> {
+			for (Entity entity : entities) {
+				api.users().internal().invalidate(entity.getClass(), entity.getId());
+			}
+		});
+		return handle;
+	}
+
+	private Handle enqueue(Entity entity, Commands command, String... arguments) {
+		Record record = new Record();
+		record.sequence = sequence.incrementAndGet();
+		record.key = Entity.singular(entity.getClass()) + ":" + entity.getId();
+		record.arguments = Stream.concat(Stream.of(command.toString()), Arrays.stream(arguments))
+				.filter(Objects::nonNull).toArray(String[]::new);
+		return schedule(record, append(record));
+	}
+
+	/** Executes the mutation once it is durable and all previous ones of the entity completed. */
+	private Handle schedule(Record record, CompletableFuture<Void> durable) {
+		CompletableFuture<String> completed = new CompletableFuture<>();
+		CompletableFuture<?> previous = tails.put(record.key, completed);
+		if (previous == null) {
+			previous = CompletableFuture.completedFuture(null);
+		}
+		CompletableFuture.allOf(durable, previous.handle((result, e) -> null))
+				.whenCompleteAsync((ignored, e) -> {
+					if (e != null) {
+						completed.completeExceptionally(e);
+						return;
+					}
+					try {
+						completed.complete(execute(record));
+					} catch (IOException failure) {
+						completed.completeExceptionally(failure);
+					}
+				}, Threads.executor());
+		completed.whenComplete((result, e) -> {
+			Record done = new Record();
+			done.sequence = record.sequence;
+			done.done = true;
+			if (e != null) {
+				done.error = e.getMessage();
+			}
+			append(done);
+			tails.remove(record.key, completed);
+		});
+		return new Handle(record.sequence, durable, completed);
+	}
+
+	private String execute(Record record) throws IOException {
+		for (int attempt = 1;; attempt++) {
+			try {
+				return api.users().internal()
+						.execute((op, session) -> op.execute(session, record.arguments));
+			} catch (IOException e) {
+				ErrorType type = ErrorType.classify(e);
+				if (!NOT_EXECUTED.contains(type) || !retryPolicy.shouldRetry(type, attempt)) {
+					throw e;
+				}
+			}
+
+			try {
+				Thread.sleep(retryPolicy.backoff(attempt).toMillis());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for retry");
+			}
+		}
+	}
+
+	/** Buffers a record, starting a flush unless one is running that will pick it up. */
+	private CompletableFuture<Void> append(Record record) {
+		Write write = new Write(record, Json.serialize(record) + "\n");
+		synchronized (buffer) {
+			if (closed) {
+				write.durable.completeExceptionally(new IOException("Mutation queue is closed"));
+				return write.durable;
+			}
+			buffer.add(write);
+			if (flushing) {
+				return write.durable;
+			}
+			flushing = true;
+		}
+		Threads.executor().execute(this::flush);
+		return write.durable;
+	}
+
+	private void flush() {
+		while (true) {
+			List<Write> batch;
+			synchronized (buffer) {
+				if (buffer.isEmpty()) {
+					flushing = false;
+					buffer.notifyAll();
+					return;
+				}
+				batch = new ArrayList<>(buffer);
+				buffer.clear();
+			}
+
+			try {
+				for (Write write : batch) {
+					write(channel, write.line);
+				}
+				channel.force(false);
+			} catch (IOException e) {
+				batch.forEach(write -> write.durable.completeExceptionally(e));
+				continue;
+			}
+
+			for (Write write : batch) {
+				if (write.done) {
+					written.remove(write.sequence);
+				} else {
+					written.put(write.sequence, write.line);
+				}
+			}
+			lines += batch.size();
+			batch.forEach(write -> write.durable.complete(null));
+
+			if (lines >= Math.max(compactThreshold, 2 * written.size())) {
+				try {
+					compact();
+				} catch (IOException e) {
+					// the file stays valid, compaction is retried with the next batch
+				}
+			}
+		}
+	}
+
+	/**
+	 * Rewrites the file with the mutations not completed yet. The new file replaces the old one
+	 * atomically, so a crash during compaction loses no mutations.
+	 */
+	private void compact() throws IOException {
+		Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+		try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			for (String line : written.values()) {
+				write(out, line);
+			}
+			out.force(false);
+		}
+
+		channel.close();
+		try {
+			Files.move(compacted, file, StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+			lines = written.size();
+		} finally {
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			channel.position(channel.size());
+		}
+	}
+
+	private static void write(FileChannel channel, String line) throws IOException {
+		ByteBuffer bytes = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+		while (bytes.hasRemaining()) {
+			channel.write(bytes);
+		}
+	}
+
+	/** Waits for all queued mutations to complete, then empties and closes the queue file. */
+	@Override
+	public void close() throws IOException {
+		for (CompletableFuture<?> tail = anyTail(); tail != null; tail = anyTail()) {
+			tail.handle((result, e) -> null).join();
+		}
+
+		synchronized (buffer) {
+			closed = true;
+			while (flushing) {
+				try {
+					buffer.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException();
+				}
+			}
+		}
+
+		try {
+			// all mutations are done
+			channel.truncate(0);
+		} finally {
+			channel.close();
+		}
+	}
+
+	private CompletableFuture<?> anyTail() {
+		return tails.values().stream().findAny().orElse(null);
+	}
+
+	/** Handle of a queued mutation. */
+	public static class Handle {
+		private final long sequence;
+		private final CompletableFuture<Void> durable;
+		private final CompletableFuture<String> completed;
+
+		private Handle(long sequence, CompletableFuture<Void> durable,
+				CompletableFuture<String> completed) {
+			this.sequence = sequence;
+			this.durable = durable;
+			this.completed = completed;
+		}
+
+		/** Returns the position of the mutation in the queue. */
+		public long getSequence() {
+			return sequence;
+		}
+
+		/** Completes once the mutation has been forced to disk. */
+		public CompletableFuture<Void> durable() {
+			return durable;
+		}
+
+		/** Completes with the CLI output once the mutation has been executed. */
+		public CompletableFuture<String> completed() {
+			return completed;
+		}
+	}
+
+	/** Line of the queue file, either a mutation or the marker that it is done. */
+	private static class Record {
+		private long sequence;
+		private String key;
+		private String[] arguments;
+		private boolean done;
+		private String error;
+	}
+
+	private static class Write {
+		private final long sequence;
+		private final boolean done;
+		private final String line;
+		private final CompletableFuture<Void> durable = new CompletableFuture<>();
+
+		private Write(Record record, String line) {
+			this.sequence = record.sequence;
+			this.done = record.done;
+			this.line = line;
+		}
+	}
+}
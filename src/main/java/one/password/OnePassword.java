@@ -1,19 +1,20 @@
 package one.password;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
+import one.password.cli.ErrorType;
 import one.password.cli.Op;
+import one.password.cli.Signin;
 import one.password.util.SupplierWithException;
+import one.password.util.Threads;
 
 /**
  * High-level 1password CLI Java binding that creates a new session on first request that will be
  * auto-extended if needed. The session will be auto-closed if used with a try-with-resource block.
  */
 public class OnePassword extends OnePasswordBase implements AutoCloseable {
-	private static final List<String> SIGNIN_ERRORS = Arrays.asList("session expired",
-			"sign in to create a new session", "you are not currently signed in");
 	private final String signInAddress;
 	private final String emailAddress;
 	private final String secretKey;
@@ -31,7 +32,11 @@ public class OnePassword extends OnePasswordBase implements AutoCloseable {
 		this(new Op(config), signInAddress, emailAddress, secretKey, password);
 	}
 
-	OnePassword(Op op, String signInAddress, String emailAddress, String secretKey,
+	/**
+	 * Signs in 1password using a custom {@link Op}, e.g. a {@link one.password.cli.RecordingOp} or
+	 * {@link one.password.cli.ReplayOp}.
+	 */
+	public OnePassword(Op op, String signInAddress, String emailAddress, String secretKey,
 			Supplier<String> password) {
 		super(op);
 		this.signInAddress = signInAddress;
@@ -41,11 +46,75 @@ public class OnePassword extends OnePasswordBase implements AutoCloseable {
 	}
 
 	public OnePassword signin() throws IOException {
-		session = op.signin(signInAddress, emailAddress, secretKey, password, session);
-		return this;
+		return signin(Signin.Cause.EXPLICIT, null, null);
+	}
+
+	/** Additionally signs in parallel to the base warm-up, unless already signed in. */
+	@Override
+	public CompletableFuture<Void> warmUp() {
+		return CompletableFuture.allOf(super.warmUp(),
+				Threads.async(() -> signin(Signin.Cause.INITIAL, null, null)));
+	}
+
+	/**
+	 * Signs in unless another thread already did so meanwhile, i.e. if not yet signed in for the
+	 * initial cause or if the session still is the expired one.
+	 */
+	private synchronized OnePassword signin(Signin.Cause cause, String reason, Session expired)
+			throws IOException {
+		if (cause == Signin.Cause.INITIAL && session != null) {
+			return this;
+		}
+		if (cause == Signin.Cause.EXPIRED && session != expired) {
+			return this;
+		}
+
+		long start = System.nanoTime();
+		boolean successful = false;
+		Session previous = session;
+		try {
+			Optional<SessionStore> store = op.getConfig().getSessionStore();
+			if (store.isPresent()) {
+				session = signinWithStore(store.get(), cause, previous);
+			} else {
+				session = op.signin(signInAddress, emailAddress, secretKey, password, previous);
+			}
+			successful = true;
+			if (op.getConfig().getCache()) {
+				Session prewarmed = session;
+				Threads.async(() -> {
+					op.cacheDaemon().prewarm(prewarmed);
+					return null;
+				});
+			}
+			return this;
+		} finally {
+			Signin signin = new Signin(session == null ? null : session.getShorthand(), cause,
+					reason, System.nanoTime() - start, successful);
+			op.getListeners().forEach(listener -> listener.onSignin(signin));
+		}
+	}
+
+	private Session signinWithStore(SessionStore store, Signin.Cause cause, Session previous)
+			throws IOException {
+		String shorthand = op.getShorthand(signInAddress);
+		if (cause == Signin.Cause.INITIAL) {
+			Optional<Session> stored = store.load(shorthand);
+			if (stored.isPresent()) {
+				return stored.get();
+			}
+		}
+
+		Session expired = cause == Signin.Cause.EXPLICIT ? null : previous;
+		return store.refresh(shorthand, expired,
+				() -> op.signin(signInAddress, emailAddress, secretKey, password, previous));
 	}
 
 	private OnePassword signout() throws IOException {
+		if (op.getConfig().getSessionStore().isPresent()) {
+			session = null;
+		}
+
 		if (session != null) {
 			op.signout(session);
 			session = null;
@@ -60,20 +129,21 @@ public class OnePassword extends OnePasswordBase implements AutoCloseable {
 	}
 
 	@Override
-	protected String execute(SupplierWithException<String, IOException> action) throws IOException {
+	protected <T> T execute(SupplierWithException<T, IOException> action) throws IOException {
+		Session used = session;
 		try {
-			if (session == null) {
-				signin();
+			if (used == null) {
+				signin(Signin.Cause.INITIAL, null, null);
+				used = session;
 			}
 
 			return super.execute(action);
 		} catch (IOException e) {
-			if (SIGNIN_ERRORS.stream()
-					.noneMatch(error -> e.getMessage().toLowerCase().contains(error))) {
+			if (ErrorType.classify(e) != ErrorType.SIGNIN) {
 				throw e;
 			}
 
-			signin();
+			signin(Signin.Cause.EXPIRED, e.getMessage(), used);
 			return super.execute(action);
 		}
 	}
@@ -92,7 +162,12 @@ public class OnePassword extends OnePasswordBase implements AutoCloseable {
 		}
 
 		public PreAuthenticated(Config config, Session session) {
-			super(new Op(config), session);
+			this(new Op(config), session);
+		}
+
+		/** Reuses an existing session with a custom {@link Op}. */
+		public PreAuthenticated(Op op, Session session) {
+			super(op, session);
 		}
 	}
 }
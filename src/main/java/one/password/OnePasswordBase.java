@@ -1,22 +1,39 @@
 package one.password;
 
+import java.io.FilterReader;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import one.password.cache.Invalidation;
+import one.password.cli.CallOptions;
+import one.password.cli.ErrorType;
 import one.password.cli.Flags;
 import one.password.cli.Op;
 import one.password.util.BiFunctionWithException;
+import one.password.util.Flow;
 import one.password.util.FunctionWithException;
 import one.password.util.Json;
+import one.password.util.JsonArrayPublisher;
 import one.password.util.SupplierWithException;
+import one.password.util.Threads;
 import one.password.util.Utils;
 
 /** Base class for high-level 1password CLI Java bindings. */
 public abstract class OnePasswordBase {
 	protected final Op op;
 	protected Session session;
+	private final AtomicLong elidedEdits = new AtomicLong();
 
 	protected OnePasswordBase(Op op) {
 		this.op = op;
@@ -53,23 +70,27 @@ public abstract class OnePasswordBase {
 		public void confirm(User user) throws IOException {
 			internal().execute((op, session) -> op.confirm(session, user.getId()));
 			user.internal_setActive();
+			internal().invalidate(User.class, user.getId());
 		}
 
 		/** Confirms all unconfirmed users. */
 		public void confirmAll() throws IOException {
 			internal().execute((op, session) -> op.confirm(session, Flags.ALL.toString()));
+			internal().invalidate(User.class, null);
 		}
 
 		/** Suspends a user. */
 		public void suspend(User user) throws IOException {
 			internal().execute((op, session) -> op.suspend(session, user.getId()));
 			user.internal_setSuspend();
+			internal().invalidate(User.class, user.getId());
 		}
 
 		/** Reactivates a suspended user. */
 		public void reactivate(User user) throws IOException {
 			internal().execute((op, session) -> op.reactivate(session, user.getId()));
 			user.internal_setActive();
+			internal().invalidate(User.class, user.getId());
 		}
 	}
 
@@ -109,6 +130,49 @@ public abstract class OnePasswordBase {
 		}
 	}
 
+	/**
+	 * Executes commands asynchronously, e.g. {@code async(op -> op.users().list())}. Commands run on
+	 * {@link Threads#executor()}, which uses virtual threads on Java 21 and later, with the
+	 * {@link CallOptions} of the calling thread.
+	 */
+	public <T> CompletableFuture<T> async(
+			FunctionWithException<OnePasswordBase, T, IOException> commands) {
+		CallOptions options = CallOptions.current();
+		return Threads.async(() -> options.call(() -> commands.apply(this)));
+	}
+
+	/**
+	 * Warms up in the background, so the first command does not pay for startup: detects the
+	 * {@link one.password.cli.Capabilities} of the CLI and primes the JSON adapters of all entities
+	 * in parallel.
+	 */
+	public CompletableFuture<Void> warmUp() {
+		return CompletableFuture.allOf(Threads.async(op::capabilities), Threads.async(() -> {
+			Json.prime(User.class, User[].class, Group.class, Group[].class, Vault.class,
+					Vault[].class, Role.JsonWrapper[].class);
+			return null;
+		}));
+	}
+
+	/** Returns the number of edits skipped without calling the CLI as nothing was modified. */
+	public long getElidedEdits() {
+		return elidedEdits.get();
+	}
+
+	/** Counts an edit skipped as nothing was modified. */
+	void elideEdit() {
+		elidedEdits.incrementAndGet();
+	}
+
+	/**
+	 * Publishes an invalidation of the entity with the given uuid, of all entities of the type if
+	 * null, to the {@link Config#getInvalidationBus() bus} if configured.
+	 */
+	private void invalidate(Class<? extends Entity> type, String id) {
+		op.getConfig().getInvalidationBus()
+				.ifPresent(bus -> bus.publish(new Invalidation(type, id)));
+	}
+
 	/** Access to the raw 1password CLI {@link Op}. */
 	public Op op() {
 		return op;
@@ -119,18 +183,92 @@ public abstract class OnePasswordBase {
 		return session;
 	}
 
-	protected String execute(SupplierWithException<String, IOException> action) throws IOException {
+	protected <T> T execute(SupplierWithException<T, IOException> action) throws IOException {
 		return action.get();
 	}
 
+	/**
+	 * Deserializes CLI output, notifying the listeners of {@link Op} about the parse duration, also
+	 * if it fails.
+	 */
+	private <T> T deserialize(String json, Class<T> type) throws IOException {
+		return deserialize(json, type, null);
+	}
+
+	/** Deserializes CLI output, only reading the projected fields unless null. */
+	private <T> T deserialize(String json, Class<T> type, Projection projection)
+			throws IOException {
+		long start = System.nanoTime();
+		try {
+			return projection == null ? Json.deserialize(json, type)
+					: Json.deserialize(json, type, projection.getFields());
+		} finally {
+			onParse(type, json.length(), start);
+		}
+	}
+
+	/** Deserializes concatenated JSON values of CLI output, notifying the listeners of {@link Op}. */
+	private <T> List<T> deserializeAll(String json, Class<T> type) throws IOException {
+		long start = System.nanoTime();
+		try {
+			return Json.deserializeAll(json, type);
+		} finally {
+			onParse(type, json.length(), start);
+		}
+	}
+
+	/**
+	 * Deserializes CLI output from a reader, which is closed afterwards, only reading the projected
+	 * fields unless null.
+	 */
+	private <T> T deserialize(Reader json, Class<T> type, Projection projection)
+			throws IOException {
+		long start = System.nanoTime();
+		long[] size = {0};
+		try (Reader counting = new FilterReader(json) {
+			@Override
+			public int read(char[] buffer, int offset, int length) throws IOException {
+				int read = super.read(buffer, offset, length);
+				size[0] += Math.max(read, 0);
+				return read;
+			}
+		}) {
+			return projection == null ? Json.deserialize(counting, type)
+					: Json.deserialize(counting, type, projection.getFields());
+		} finally {
+			onParse(type, size[0], start);
+		}
+	}
+
+	/**
+	 * Notifies the listeners of {@link Op} about parsing that started at the given nano time, even
+	 * if it failed, so they do not wait for it.
+	 */
+	private void onParse(Class<?> type, long size, long start) {
+		long nanos = System.nanoTime() - start;
+		op.getListeners().forEach(listener -> listener.onParse(type, size, nanos));
+	}
+
 	/** Internal methods not meant for public use. */
 	public interface Internal<E extends Entity> {
 		/** Returns the entity type of this command. */
 		Class<E> type();
 
 		/** Executes an function with {@link Op}. */
-		String execute(BiFunctionWithException<Op, Session, String, IOException> action)
+		<T> T execute(BiFunctionWithException<Op, Session, T, IOException> action)
 				throws IOException;
+
+		/** Deserializes CLI output, notifying the listeners of {@link Op}. */
+		<T> T deserialize(String json, Class<T> type) throws IOException;
+
+		/** Deserializes CLI output from a reader, notifying the listeners of {@link Op}. */
+		<T> T deserialize(Reader json, Class<T> type) throws IOException;
+
+		/** Deserializes the projected fields of CLI output from a reader. */
+		<T> T deserialize(Reader json, Class<T> type, Projection projection) throws IOException;
+
+		/** Publishes an invalidation of a created, modified or deleted entity, see {@link Config}. */
+		void invalidate(Class<? extends Entity> type, String id);
 	}
 
 	public interface TypeEntityCommand<E extends Entity> {
@@ -150,11 +288,31 @@ public abstract class OnePasswordBase {
 				}
 
 				@Override
-				public String execute(
-						BiFunctionWithException<Op, Session, String, IOException> action)
+				public <T> T execute(BiFunctionWithException<Op, Session, T, IOException> action)
 						throws IOException {
 					return OnePasswordBase.this.execute(() -> action.apply(op, session));
 				}
+
+				@Override
+				public <T> T deserialize(String json, Class<T> type) throws IOException {
+					return OnePasswordBase.this.deserialize(json, type);
+				}
+
+				@Override
+				public <T> T deserialize(Reader json, Class<T> type) throws IOException {
+					return OnePasswordBase.this.deserialize(json, type, null);
+				}
+
+				@Override
+				public <T> T deserialize(Reader json, Class<T> type, Projection projection)
+						throws IOException {
+					return OnePasswordBase.this.deserialize(json, type, projection);
+				}
+
+				@Override
+				public void invalidate(Class<? extends Entity> type, String id) {
+					OnePasswordBase.this.invalidate(type, id);
+				}
 			};
 		}
 
@@ -167,7 +325,89 @@ public abstract class OnePasswordBase {
 		public E get(String nameOrUuid) throws IOException {
 			String json = internal()
 					.execute((op, session) -> op.get(session, internal().type(), nameOrUuid));
-			return Json.deserialize(json, internal().type());
+			return deserialize(json, internal().type());
+		}
+
+		/**
+		 * Returns an entity with the given uuid or other primary key, only deserializing the
+		 * projected fields.
+		 */
+		public E get(String nameOrUuid, Projection projection) throws IOException {
+			String json = internal()
+					.execute((op, session) -> op.get(session, internal().type(), nameOrUuid));
+			return deserialize(json, internal().type(), projection);
+		}
+
+		/** Gets several entities with at most 4 CLI calls in parallel, see {@link #getAll}. */
+		public BatchResult<E> getAll(Collection<String> namesOrUuids) throws IOException {
+			return getAll(namesOrUuids, 4);
+		}
+
+		/**
+		 * Gets the entities with the given uuids or other primary keys. If supported by the CLI
+		 * ({@link one.password.cli.Capabilities#isPipedGetSupported()}), all keys are piped to a
+		 * single call. Otherwise, if the CLI rejects the call, e.g. for an unknown key, and for
+		 * keys missing in its output, each entity is got by its own call with at most the given
+		 * number of calls in parallel. Failures are reported per key, only interruption is thrown.
+		 * If the piped call fails for another reason, e.g. a timeout, cancellation or an open
+		 * circuit breaker, its error is reported for all keys without getting them one by one.
+		 */
+		public BatchResult<E> getAll(Collection<String> namesOrUuids, int parallelism)
+				throws IOException {
+			if (parallelism < 1) {
+				throw new IllegalArgumentException("The parallelism must be positive");
+			}
+
+			Set<String> remaining = new LinkedHashSet<>(namesOrUuids);
+			BatchResult<E> result = new BatchResult<>(remaining);
+			if (remaining.size() > 1 && isPipedGetSupported()) {
+				try {
+					String json = internal().execute(
+							(op, session) -> op.getAll(session, internal().type(), remaining));
+					for (E entity : deserializeAll(json, internal().type())) {
+						remaining.removeIf(key -> {
+							boolean matches = key.equals(entity.getId())
+									|| entity instanceof Entity.SecondaryId && key
+											.equals(((Entity.SecondaryId) entity).getSecondaryId());
+							if (matches) {
+								result.put(key, entity);
+							}
+							return matches;
+						});
+					}
+				} catch (InterruptedIOException e) {
+					throw e;
+				} catch (IOException e) {
+					if (ErrorType.classify(e) != ErrorType.UNKNOWN) {
+						remaining.forEach(key -> result.fail(key, e));
+						return result;
+					}
+					// e.g. a single unknown key fails the whole call, get them one by one instead
+				}
+			}
+
+			CallOptions options = CallOptions.current();
+			Semaphore permits = new Semaphore(parallelism);
+			try {
+				for (String key : remaining) {
+					permits.acquire();
+					Threads.async(() -> options.call(() -> get(key))).whenComplete((entity, e) -> {
+						if (e == null) {
+							result.put(key, entity);
+						} else {
+							result.fail(key, e instanceof IOException ? (IOException) e
+									: new IOException(e.getMessage(), e));
+						}
+						permits.release();
+					});
+				}
+				permits.acquire(parallelism);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while getting " + remaining.size()
+						+ " " + Entity.plural(internal().type()));
+			}
+			return result;
 		}
 
 		/** Lists all entities */
@@ -175,22 +415,57 @@ public abstract class OnePasswordBase {
 			return OnePasswordBase.list(internal());
 		}
 
-		/** Saves modification to the given entity. */
+		/**
+		 * Lists all entities, only deserializing the projected fields and skipping all other values
+		 * while parsing.
+		 */
+		public E[] list(Projection projection) throws IOException {
+			return listRelated(internal(), null, projection);
+		}
+
+		/**
+		 * Publishes all entities, parsing them incrementally from the CLI output as requested by
+		 * the subscriber. The CLI is executed anew for each subscription with the
+		 * {@link CallOptions} of the calling thread.
+		 */
+		public Flow.Publisher<E> publish() {
+			return publishRelated(internal(), null);
+		}
+
+		/**
+		 * Saves the fields of the given entity modified since it was loaded or saved. Does not call
+		 * the CLI if nothing was modified, see {@link OnePasswordBase#getElidedEdits()}.
+		 */
 		public void edit(E entity) throws IOException {
+			String[] arguments =
+					entity.op_editArguments().filter(Objects::nonNull).toArray(String[]::new);
+			if (arguments.length == 0) {
+				elideEdit();
+				return;
+			}
+
+			Runnable markSaved = entity.op_markSaving();
 			internal().execute((op, session) -> op.edit(session, internal().type(), entity.getId(),
-					entity.op_editArguments().toArray(String[]::new)));
+					arguments));
+			markSaved.run();
+			internal().invalidate(internal().type(), entity.getId());
 		}
 
 		/** Deletes an entity. */
 		public void delete(E entity) throws IOException {
 			internal().execute(
 					(op, session) -> op.delete(session, internal().type(), entity.getId()));
+			internal().invalidate(internal().type(), entity.getId());
 		}
 
 		protected E createWithArguments(String name, String... arguments) throws IOException {
 			String json = internal().execute(
 					(op, session) -> op.create(session, internal().type(), name, arguments));
-			return Json.deserialize(json, internal().type());
+			E created = deserialize(json, internal().type());
+			if (created != null) {
+				internal().invalidate(internal().type(), created.getId());
+			}
+			return created;
 		}
 	}
 
@@ -206,6 +481,14 @@ public abstract class OnePasswordBase {
 		default public Accessible[] listAccessibleBy(Accessor accessor) throws IOException {
 			return listRelated(internal(), accessor);
 		}
+
+		/**
+		 * Publishes all entities that are (transitively, e.g. via groups) accessible by other
+		 * entities, parsing them incrementally as requested by the subscriber.
+		 */
+		default public Flow.Publisher<Accessible> publishAccessibleBy(Accessor accessor) {
+			return publishRelated(internal(), accessor);
+		}
 	}
 
 	/**
@@ -217,6 +500,14 @@ public abstract class OnePasswordBase {
 		default public Accessor[] listGrantedAccessTo(Accessible accessible) throws IOException {
 			return listRelated(internal(), accessible);
 		}
+
+		/**
+		 * Publishes all entities that have direct access to other entities, parsing them
+		 * incrementally as requested by the subscriber.
+		 */
+		default public Flow.Publisher<Accessor> publishGrantedAccessTo(Accessible accessible) {
+			return publishRelated(internal(), accessible);
+		}
 	}
 
 	/**
@@ -228,8 +519,9 @@ public abstract class OnePasswordBase {
 		/** Lists all entities that have access to other entities (members of). */
 		default Map<Accessor, Role> listGrantedRolesTo(Accessible accessible) throws IOException {
 			return listRelated(internal(), accessible, json -> {
-				Accessor[] accessors = Json.deserialize(json, Utils.arrayType(internal().type()));
-				Role.JsonWrapper[] roles = Json.deserialize(json, Role.JsonWrapper[].class);
+				Accessor[] accessors =
+						internal().deserialize(json, Utils.arrayType(internal().type()));
+				Role.JsonWrapper[] roles = internal().deserialize(json, Role.JsonWrapper[].class);
 				return IntStream.range(0, Math.min(accessors.length, roles.length)).boxed()
 						.collect(Collectors.toMap(i -> accessors[i], i -> roles[i].getRole()));
 			});
@@ -245,12 +537,16 @@ public abstract class OnePasswordBase {
 		default void grantAccessTo(Accessor accessor, Accessible accessible) throws IOException {
 			internal().execute((op, session) -> op.add(session, accessor.getClass(),
 					accessor.getId(), accessible.getId()));
+			internal().invalidate(accessor.getClass(), accessor.getId());
+			internal().invalidate(accessible.getClass(), accessible.getId());
 		}
 
 		/** Revoke access to an entity. */
 		default void revokeAccessTo(Accessor accessor, Accessible accessible) throws IOException {
 			internal().execute((op, session) -> op.remove(session, accessor.getClass(),
 					accessor.getId(), accessible.getId()));
+			internal().invalidate(accessor.getClass(), accessor.getId());
+			internal().invalidate(accessible.getClass(), accessible.getId());
 		}
 	}
 
@@ -266,6 +562,8 @@ public abstract class OnePasswordBase {
 			internal()
 					.execute((op, session) -> op.add(session, accessor.getClass(), accessor.getId(),
 							accessible.getId(), Flags.ROLE.is(Objects.toString(role, null))));
+			internal().invalidate(accessor.getClass(), accessor.getId());
+			internal().invalidate(accessible.getClass(), accessible.getId());
 		}
 	}
 
@@ -292,14 +590,35 @@ public abstract class OnePasswordBase {
 		}
 	}
 
+	/** Returns whether the CLI supports piped gets, false if its version cannot be detected. */
+	private boolean isPipedGetSupported() {
+		try {
+			return op.capabilities().isPipedGetSupported();
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
 	private static <E extends Entity> E[] list(Internal<E> internal) throws IOException {
 		return listRelated(internal, null);
 	}
 
 	private static <E extends Entity, R extends Entity> E[] listRelated(Internal<E> internal,
 			R related) throws IOException {
-		return listRelated(internal, related,
-				json -> Json.deserialize(json, Utils.arrayType(internal.type())));
+		return listRelated(internal, related, (Projection) null);
+	}
+
+	/**
+	 * Lists related entities parsing the output from a reader, so large listings may be spilled
+	 * according to {@link Config#getSpillThreshold()}. Only reads the projected fields unless
+	 * null.
+	 */
+	private static <E extends Entity, R extends Entity> E[] listRelated(Internal<E> internal,
+			R related, Projection projection) throws IOException {
+		String filterFlag = Entity.filterFlag(related);
+		Reader json = internal
+				.execute((op, session) -> op.readList(session, internal.type(), filterFlag));
+		return internal.deserialize(json, Utils.arrayType(internal.type()), projection);
 	}
 
 	private static <E extends Entity, R extends Entity, O> O listRelated(Internal<E> internal,
@@ -310,4 +629,14 @@ public abstract class OnePasswordBase {
 				internal.execute((op, session) -> op.list(session, internal.type(), filterFlag));
 		return deserializer.apply(json);
 	}
+
+	private static <E extends Entity, R extends Entity> Flow.Publisher<E> publishRelated(
+			Internal<E> internal, R related) {
+		String filterFlag = Entity.filterFlag(related);
+		// the CLI is started on the executor, so keep the options of the publishing thread
+		CallOptions options = CallOptions.current();
+		return new JsonArrayPublisher<>(() -> options.call(() -> internal
+				.execute((op, session) -> op.streamList(session, internal.type(), filterFlag))),
+				internal.type());
+	}
 }
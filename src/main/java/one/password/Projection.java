@@ -0,0 +1,46 @@
+package one.password;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Fields to deserialize when getting or listing entities, named as serialized by the CLI, e.g.
+ * {@code users().list(Projection.of("email"))}. All other values are skipped while parsing and
+ * their getters return null. The uuid is always included.
+ */
+public final class Projection {
+	private final Set<String> fields;
+
+	private Projection(Set<String> fields) {
+		this.fields = Collections.unmodifiableSet(fields);
+	}
+
+	/** Creates a projection of the given serialized field names. */
+	public static Projection of(String... fields) {
+		Set<String> set = new HashSet<>(Arrays.asList(fields));
+		set.add("uuid");
+		return new Projection(set);
+	}
+
+	/** Returns the serialized names of the projected fields. */
+	public Set<String> getFields() {
+		return fields;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof Projection && fields.equals(((Projection) other).fields);
+	}
+
+	@Override
+	public int hashCode() {
+		return fields.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return fields.toString();
+	}
+}
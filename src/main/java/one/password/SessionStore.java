@@ -0,0 +1,127 @@
+package one.password;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import one.password.util.SupplierWithException;
+
+/**
+ * File storing the current session token per account shorthand, so multiple JVMs on the same host
+ * can share one signin. Access is coordinated by file locks: if a session expired, only the JVM
+ * holding the lock signs in again while the others wait and reuse the new session. The file is
+ * created readable and writable by the owner only, where supported.
+ */
+public class SessionStore {
+	/** File locks are held by the JVM, so threads of the same JVM need to be serialized. */
+	private static final Map<Path, ReentrantLock> JVM_LOCKS = new ConcurrentHashMap<>();
+
+	private final Path file;
+
+	public SessionStore(Path file) {
+		this.file = file.toAbsolutePath().normalize();
+	}
+
+	/** Returns the stored session of the account. */
+	public Optional<Session> load(String shorthand) throws IOException {
+		return withLock(false, channel -> Optional.ofNullable(read(channel).getProperty(shorthand))
+				.map(token -> new Session(token, shorthand)));
+	}
+
+	/**
+	 * Returns a session that differs from the expired one. Reuses the stored session if another
+	 * process already renewed it, otherwise signs in and stores the new session. Pass null as
+	 * expired session in order to always sign in.
+	 */
+	public Session refresh(String shorthand, Session expired,
+			SupplierWithException<Session, IOException> signin) throws IOException {
+		return withLock(true, channel -> {
+			Properties sessions = read(channel);
+			String token = sessions.getProperty(shorthand);
+			if (token != null && expired != null && !token.equals(expired.getSession())) {
+				return new Session(token, shorthand);
+			}
+
+			Session session = signin.get();
+			sessions.setProperty(shorthand, session.getSession());
+			write(channel, sessions);
+			return session;
+		});
+	}
+
+	private interface LockedAction<T> {
+		T apply(FileChannel channel) throws IOException;
+	}
+
+	private <T> T withLock(boolean exclusive, LockedAction<T> action) throws IOException {
+		ReentrantLock jvmLock = JVM_LOCKS.computeIfAbsent(file, key -> new ReentrantLock());
+		jvmLock.lock();
+		try (FileChannel channel = open()) {
+			FileLock lock = channel.lock(0, Long.MAX_VALUE, !exclusive);
+			try {
+				return action.apply(channel);
+			} finally {
+				lock.release();
+			}
+		} finally {
+			jvmLock.unlock();
+		}
+	}
+
+	private FileChannel open() throws IOException {
+		if (!Files.exists(file)) {
+			Files.createDirectories(file.getParent());
+			try {
+				Files.createFile(file, ownerOnly());
+			} catch (FileAlreadyExistsException e) {
+				// created concurrently
+			}
+		}
+
+		return FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+	}
+
+	private static FileAttribute<?>[] ownerOnly() {
+		if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+			return new FileAttribute<?>[0];
+		}
+
+		return new FileAttribute<?>[] {
+				PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"))};
+	}
+
+	private static Properties read(FileChannel channel) throws IOException {
+		Properties properties = new Properties();
+		ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+		while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+			// read until full
+		}
+		properties.load(new ByteArrayInputStream(buffer.array()));
+		return properties;
+	}
+
+	private static void write(FileChannel channel, Properties properties) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		properties.store(bytes, "1password sessions");
+		channel.truncate(0);
+		ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+		while (buffer.hasRemaining()) {
+			channel.write(buffer, buffer.position());
+		}
+		channel.force(false);
+	}
+}
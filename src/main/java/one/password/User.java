@@ -6,6 +6,7 @@ import java.util.HashSet;
 import java.util.Set;
 import java.util.stream.Stream;
 import one.password.cli.Flags;
+import one.password.util.LazyDateTime;
 
 public class User extends Entity.Base implements Entity.UserOrGroup {
 
@@ -37,7 +38,7 @@ public class User extends Entity.Base implements Entity.UserOrGroup {
 	}
 
 	public void setName(String name) {
-		this.name = name;
+		this.name = modify("name", this.name, name);
 	}
 
 	private String firstName;
@@ -58,22 +59,22 @@ public class User extends Entity.Base implements Entity.UserOrGroup {
 		return language;
 	}
 
-	private ZonedDateTime createdAt;
+	private LazyDateTime createdAt;
 
 	public ZonedDateTime getCreatedAt() {
-		return createdAt;
+		return LazyDateTime.resolve(createdAt);
 	}
 
-	private ZonedDateTime updatedAt;
+	private LazyDateTime updatedAt;
 
 	public ZonedDateTime getUpdatedAt() {
-		return updatedAt;
+		return LazyDateTime.resolve(updatedAt);
 	}
 
-	private ZonedDateTime lastAuthAt;
+	private LazyDateTime lastAuthAt;
 
 	public ZonedDateTime getLastAuthAt() {
-		return lastAuthAt;
+		return LazyDateTime.resolve(lastAuthAt);
 	}
 
 	private String state;
@@ -121,7 +122,7 @@ public class User extends Entity.Base implements Entity.UserOrGroup {
 	}
 
 	public Stream<String> op_editArguments() {
-		return Stream.of(Flags.NAME.is(name));
+		return Stream.of(isModified("name") ? Flags.NAME.is(name) : null);
 	}
 
 	@Override
@@ -0,0 +1,109 @@
+package one.password.bulk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only journal of completed import steps. Each step is written as a line and forced to disk
+ * before it counts as completed, so a restarted import skips exactly the completed steps. A
+ * partially written last line of a crashed import is discarded on open.
+ */
+public class CheckpointJournal implements Closeable {
+	private static final String CREATED = "created";
+	private static final String GRANTED = "granted";
+
+	private final FileChannel channel;
+	private final Map<String, String> created = new ConcurrentHashMap<>();
+	private final Set<String> granted = ConcurrentHashMap.newKeySet();
+
+	/** Opens or creates the journal at the given path. */
+	public CheckpointJournal(Path path) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			String content = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+			int end = content.lastIndexOf('\n') + 1;
+			for (String line : content.substring(0, end).split("\n")) {
+				replay(line);
+			}
+			channel.truncate(content.substring(0, end).getBytes(StandardCharsets.UTF_8).length);
+			channel.position(channel.size());
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	private void replay(String line) throws IOException {
+		if (line.isEmpty()) {
+			return;
+		}
+
+		String[] fields = line.split("\t");
+		if (fields.length != 3) {
+			throw new IOException("Corrupt checkpoint journal line: " + line);
+		}
+		if (CREATED.equals(fields[0])) {
+			created.put(fields[1], fields[2]);
+		} else if (GRANTED.equals(fields[0])) {
+			granted.add(grantKey(fields[1], fields[2]));
+		} else {
+			throw new IOException("Unknown checkpoint journal step: " + line);
+		}
+	}
+
+	/** Returns the uuid of the user if its creation has been completed. */
+	public Optional<String> getCreated(String email) {
+		return Optional.ofNullable(created.get(normalize(email)));
+	}
+
+	/** Returns whether granting the user access to the group has been completed. */
+	public boolean isGranted(String email, String groupId) {
+		return granted.contains(grantKey(normalize(email), groupId));
+	}
+
+	/** Records the creation of a user. */
+	public void markCreated(String email, String userId) throws IOException {
+		append(CREATED, normalize(email), userId);
+		created.put(normalize(email), userId);
+	}
+
+	/** Records granting a user access to a group. */
+	public void markGranted(String email, String groupId) throws IOException {
+		append(GRANTED, normalize(email), groupId);
+		granted.add(grantKey(normalize(email), groupId));
+	}
+
+	private synchronized void append(String step, String key, String value) throws IOException {
+		ByteBuffer line = ByteBuffer.wrap(
+				(step + "\t" + key + "\t" + value + "\n").getBytes(StandardCharsets.UTF_8));
+		while (line.hasRemaining()) {
+			channel.write(line);
+		}
+		channel.force(false);
+	}
+
+	private static String grantKey(String email, String groupId) {
+		return email + "\t" + groupId;
+	}
+
+	private static String normalize(String email) {
+		return email.trim().toLowerCase(Locale.ROOT);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,146 @@
+package one.password.bulk;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import one.password.util.Json;
+
+/** A user to import together with the groups it should be member of. */
+public class ImportRecord {
+	private static final List<String> CSV_COLUMNS = Arrays.asList("email", "name", "language",
+			"groups");
+
+	private String email;
+	private String name;
+	private String language;
+	private List<String> groups;
+
+	/** Creates a record, the email is required and identifies the record within an import. */
+	public ImportRecord(String email, String name, String language, List<String> groups) {
+		if (email == null || email.isEmpty()) {
+			throw new IllegalArgumentException("The email of a record must not be empty");
+		}
+		this.email = email;
+		this.name = name;
+		this.language = language;
+		this.groups = groups;
+	}
+
+	public String getEmail() {
+		return email;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/** Returns the language, e.g. "en", or null for the default. */
+	public String getLanguage() {
+		return language;
+	}
+
+	/** Returns the names or uuids of the groups to grant access to. */
+	public List<String> getGroups() {
+		if (groups == null) {
+			return Collections.emptyList();
+		}
+		return groups;
+	}
+
+	/**
+	 * Reads records lazily from CSV with the header "email,name,language,groups". Groups are
+	 * separated by semicolons. Values may be quoted, but must not span multiple lines. Read
+	 * errors and records without email are thrown as {@link UncheckedIOException} while consuming
+	 * the stream.
+	 */
+	public static Stream<ImportRecord> csv(Reader reader) throws IOException {
+		BufferedReader lines = new BufferedReader(reader);
+		String header = lines.readLine();
+		if (header == null) {
+			return Stream.empty();
+		}
+
+		List<String> columns = parseCsvLine(header);
+		int[] indexes = CSV_COLUMNS.stream().mapToInt(columns::indexOf).toArray();
+		if (indexes[0] < 0 || indexes[1] < 0) {
+			throw new IOException("CSV header must contain the columns " + CSV_COLUMNS);
+		}
+
+		return lines.lines().filter(line -> !line.trim().isEmpty()).map(line -> {
+			List<String> values = parseCsvLine(line);
+			if (column(values, indexes[0]) == null) {
+				throw new UncheckedIOException(new IOException("Record without email: " + line));
+			}
+			String groups = column(values, indexes[3]);
+			return new ImportRecord(column(values, indexes[0]), column(values, indexes[1]),
+					column(values, indexes[2]),
+					groups == null ? null
+							: Arrays.stream(groups.split(";")).map(String::trim)
+									.filter(group -> !group.isEmpty())
+									.collect(Collectors.toList()));
+		});
+	}
+
+	/**
+	 * Reads records lazily from JSON lines, e.g. {"email":"a@b.c","name":"A","groups":["Team"]}.
+	 * Read and parse errors and records without email are thrown as {@link UncheckedIOException}
+	 * while consuming the stream.
+	 */
+	public static Stream<ImportRecord> jsonLines(Reader reader) {
+		return new BufferedReader(reader).lines().filter(line -> !line.trim().isEmpty())
+				.map(line -> {
+					try {
+						ImportRecord record = Json.deserialize(line, ImportRecord.class);
+						if (record == null || record.email == null || record.email.isEmpty()) {
+							throw new IOException("Record without email: " + line);
+						}
+						return record;
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+	}
+
+	private static String column(List<String> values, int index) {
+		if (index < 0 || index >= values.size() || values.get(index).isEmpty()) {
+			return null;
+		}
+		return values.get(index);
+	}
+
+	/** Splits a CSV line, unquoting quoted values. */
+	static List<String> parseCsvLine(String line) {
+		List<String> values = new ArrayList<>();
+		StringBuilder value = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c != '"') {
+					value.append(c);
+				} else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					value.append(c);
+					i++;
+				} else {
+					quoted = false;
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				values.add(value.toString().trim());
+				value.setLength(0);
+			} else {
+				value.append(c);
+			}
+		}
+		values.add(value.toString().trim());
+		return values;
+	}
+}
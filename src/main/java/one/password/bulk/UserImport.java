@@ -0,0 +1,174 @@
+package one.password.bulk;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import one.password.Group;
+import one.password.OnePasswordBase;
+import one.password.User;
+import one.password.index.EntityIndex;
+
+/**
+ * Streaming bulk import of users and their group memberships. Records are consumed lazily with a
+ * bounded number of records in flight. Every completed create and grant is recorded in a
+ * {@link CheckpointJournal}, so running the import again with the same journal resumes where it
+ * stopped. Failed records are reported and retried by the next run.
+ */
+public class UserImport {
+	private final OnePasswordBase api;
+	private int parallelism = 4;
+
+	public UserImport(OnePasswordBase api) {
+		this.api = api;
+	}
+
+	/** Sets the maximum number of records imported in parallel, defaults to 4. */
+	public UserImport setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("The parallelism must be positive");
+		}
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/** Imports the records, skipping steps already completed according to the journal. */
+	public Result run(Stream<ImportRecord> records, CheckpointJournal journal)
+			throws IOException {
+		EntityIndex<Group> groups = new EntityIndex<>(api.groups().list());
+		Result result = new Result();
+		Semaphore permits = new Semaphore(parallelism);
+		try {
+			Iterator<ImportRecord> iterator = records.iterator();
+			while (iterator.hasNext()) {
+				ImportRecord record = iterator.next();
+				acquire(permits);
+				CompletableFuture<Void> future = api.async(base -> {
+					importRecord(record, groups, journal, result);
+					return null;
+				});
+				future.whenComplete((ignored, e) -> {
+					if (e instanceof CompletionException && e.getCause() != null) {
+						e = e.getCause();
+					}
+					try {
+						if (e != null) {
+							result.failures.put(record.getEmail(), String.valueOf(e.getMessage()));
+						}
+					} finally {
+						permits.release();
+					}
+				});
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			acquire(permits, parallelism);
+		}
+		return result;
+	}
+
+	private void importRecord(ImportRecord record, EntityIndex<Group> groups,
+			CheckpointJournal journal, Result result) throws IOException {
+		List<Group> targets = new ArrayList<>();
+		for (String name : record.getGroups()) {
+			Optional<Group> group = groups.get(name);
+			if (!group.isPresent()) {
+				group = groups.getBySecondaryId(name).stream().findFirst();
+			}
+			targets.add(group.orElseThrow(() -> new IOException("Unknown group " + name)));
+		}
+
+		User user = null;
+		Optional<String> userId = journal.getCreated(record.getEmail());
+		if (userId.isPresent()) {
+			result.skipped.incrementAndGet();
+		} else {
+			user = create(record);
+			journal.markCreated(record.getEmail(), user.getId());
+			result.created.incrementAndGet();
+		}
+
+		for (Group group : targets) {
+			if (journal.isGranted(record.getEmail(), group.getId())) {
+				result.skipped.incrementAndGet();
+				continue;
+			}
+			if (user == null) {
+				user = api.users().get(userId.get());
+			}
+			api.users().grantAccessTo(user, group);
+			journal.markGranted(record.getEmail(), group.getId());
+			result.granted.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Creates the user. If that fails, the user may have been created by a run that died before
+	 * recording it, so an existing user with that email is adopted.
+	 */
+	private User create(ImportRecord record) throws IOException {
+		try {
+			return api.users().create(record.getEmail(), record.getName(), record.getLanguage());
+		} catch (IOException e) {
+			try {
+				return api.users().get(record.getEmail());
+			} catch (IOException notFound) {
+				e.addSuppressed(notFound);
+				throw e;
+			}
+		}
+	}
+
+	private static void acquire(Semaphore permits) throws InterruptedIOException {
+		acquire(permits, 1);
+	}
+
+	private static void acquire(Semaphore permits, int count) throws InterruptedIOException {
+		try {
+			permits.acquire(count);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+	}
+
+	/** Outcome of an import run. */
+	public static class Result {
+		private final AtomicInteger created = new AtomicInteger();
+		private final AtomicInteger granted = new AtomicInteger();
+		private final AtomicInteger skipped = new AtomicInteger();
+		private final Map<String, String> failures = new ConcurrentHashMap<>();
+
+		/** Returns the number of users created in this run. */
+		public int getCreated() {
+			return created.get();
+		}
+
+		/** Returns the number of group grants in this run. */
+		public int getGranted() {
+			return granted.get();
+		}
+
+		/** Returns the number of steps skipped as completed by a previous run. */
+		public int getSkipped() {
+			return skipped.get();
+		}
+
+		/** Returns the error messages of the failed records by email. */
+		public Map<String, String> getFailures() {
+			return Collections.unmodifiableMap(failures);
+		}
+	}
+}
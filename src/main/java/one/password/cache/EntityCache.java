@@ -0,0 +1,221 @@
+package one.password.cache;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import one.password.Entity;
+import one.password.util.SupplierWithException;
+
+/**
+ * Cache of got and listed entities that expire after a fixed time to live. Concurrent requests of
+ * the same uncached entry are coalesced into a single load, failed loads are not cached. Entries
+ * are evicted on {@link #invalidate(Class, String) invalidation} of an entity: lists of its type
+ * or related to it and gets resolving to it.
+ */
+public class EntityCache {
+	private final Duration ttl;
+	private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong coalesced = new AtomicLong();
+	private final AtomicLong invalidations = new AtomicLong();
+	private Clock clock = Clock.systemUTC();
+
+	public EntityCache(Duration ttl) {
+		if (ttl.isNegative() || ttl.isZero()) {
+			throw new IllegalArgumentException("The time to live must be positive");
+		}
+		this.ttl = ttl;
+	}
+
+	/** Sets the clock entries expire against. */
+	public EntityCache setClock(Clock clock) {
+		this.clock = clock;
+		return this;
+	}
+
+	/** Returns the entity with the given name or uuid, loading it if not cached. */
+	public <E extends Entity> E get(Class<E> type, String nameOrUuid,
+			SupplierWithException<E, IOException> loader) throws IOException {
+		return type.cast(lookup(new Key(type, false, nameOrUuid), loader));
+	}
+
+	/**
+	 * Returns the entities of the given type, optionally related to the entity with the given uuid,
+	 * loading them if not cached.
+	 */
+	public <E extends Entity, T> T list(Class<E> type, String related,
+			SupplierWithException<T, IOException> loader) throws IOException {
+		@SuppressWarnings("unchecked")
+		T value = (T) lookup(new Key(type, true, related), loader);
+		return value;
+	}
+
+	/**
+	 * Evicts the lists of the given type, all lists related to the entity and gets resolving to the
+	 * entity with the given uuid.
+	 */
+	public void invalidate(Class<? extends Entity> type, String id) {
+		invalidations.incrementAndGet();
+		entries.entrySet().removeIf(entry -> {
+			Key key = entry.getKey();
+			if (key.list) {
+				return key.type == type || id.equals(key.argument);
+			}
+			return key.type == type && entry.getValue().ids.contains(id);
+		});
+	}
+
+	/**
+	 * Evicts the entries affected by an invalidation, all entries of its type if it has no uuid.
+	 * Subscribe to an {@link InvalidationBus} in order to evict entities modified by other nodes.
+	 */
+	public void invalidate(Invalidation invalidation) {
+		if (invalidation.getId().isPresent()) {
+			invalidate(invalidation.getType(), invalidation.getId().get());
+			return;
+		}
+		invalidations.incrementAndGet();
+		entries.keySet().removeIf(key -> key.type == invalidation.getType());
+	}
+
+	/** Evicts all entries. */
+	public void invalidateAll() {
+		invalidations.incrementAndGet();
+		entries.clear();
+	}
+
+	/** Returns the number of cached entries, including expired ones not evicted yet. */
+	public int size() {
+		return entries.size();
+	}
+
+	/** Returns the number of lookups answered from the cache. */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/** Returns the number of lookups that loaded the entry. */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/** Returns the number of lookups that waited for the load of a concurrent lookup. */
+	public long getCoalesced() {
+		return coalesced.get();
+	}
+
+	private Object lookup(Key key, SupplierWithException<?, IOException> loader)
+			throws IOException {
+		long now = clock.millis();
+		Entry created = new Entry(now + ttl.toMillis());
+		Entry entry = entries.compute(key,
+				(ignored, existing) -> existing == null || existing.isExpired(now) ? created
+						: existing);
+		if (entry != created) {
+			if (entry.value.isDone()) {
+				hits.incrementAndGet();
+			} else {
+				coalesced.incrementAndGet();
+			}
+			return join(entry.value);
+		}
+
+		misses.incrementAndGet();
+		long invalidation = invalidations.get();
+		try {
+			Object value = loader.get();
+			entry.ids.addAll(ids(key, value));
+			// the value may be stale if invalidated while loading, so it is not kept
+			if (invalidations.get() != invalidation) {
+				entries.remove(key, entry);
+			}
+			entry.value.complete(value);
+			return value;
+		} catch (IOException | RuntimeException e) {
+			entries.remove(key, entry);
+			entry.value.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	/** Returns the keys a got entity is known by. */
+	private static Set<String> ids(Key key, Object value) {
+		Set<String> ids = new HashSet<>();
+		if (key.argument != null) {
+			ids.add(key.argument);
+		}
+		if (value instanceof Entity) {
+			ids.add(((Entity) value).getId());
+		}
+		if (value instanceof Entity.SecondaryId
+				&& ((Entity.SecondaryId) value).getSecondaryId() != null) {
+			ids.add(((Entity.SecondaryId) value).getSecondaryId());
+		}
+		return ids;
+	}
+
+	private static Object join(CompletableFuture<Object> value) throws IOException {
+		try {
+			return value.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw e;
+		}
+	}
+
+	private static class Key {
+		private final Class<? extends Entity> type;
+		private final boolean list;
+		private final String argument;
+
+		private Key(Class<? extends Entity> type, boolean list, String argument) {
+			this.type = type;
+			this.list = list;
+			this.argument = argument;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) other;
+			return type == key.type && list == key.list && Objects.equals(argument, key.argument);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(type, list, argument);
+		}
+	}
+
+	private static class Entry {
+		private final long expires;
+		private final CompletableFuture<Object> value = new CompletableFuture<>();
+		private final Set<String> ids = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+		private Entry(long expires) {
+			this.expires = expires;
+		}
+
+		private boolean isExpired(long now) {
+			return now >= expires;
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package one.password.cache;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import one.password.Entity;
+import one.password.Group;
+import one.password.User;
+import one.password.Vault;
+
+/**
+ * Notification that an entity was created, modified or deleted, so cached state about it is stale.
+ * Without uuid, all entities of the type are affected, e.g. after confirming all users.
+ */
+public final class Invalidation {
+	private static final String ALL = "*";
+
+	private final Class<? extends Entity> type;
+	private final String id;
+
+	public Invalidation(Class<? extends Entity> type, String id) {
+		this.type = Objects.requireNonNull(type);
+		this.id = id;
+	}
+
+	/** Returns the type of the affected entities. */
+	public Class<? extends Entity> getType() {
+		return type;
+	}
+
+	/** Returns the uuid of the affected entity, empty if all entities of the type are affected. */
+	public Optional<String> getId() {
+		return Optional.ofNullable(id);
+	}
+
+	/** Returns the text form "type uuid", with "*" as uuid if all entities are affected. */
+	String format() {
+		return Entity.singular(type) + " " + (id == null ? ALL : id);
+	}
+
+	/** Parses the text form, see {@link #format()}. */
+	static Invalidation parse(String text) {
+		String[] parts = text.trim().split(" ", 2);
+		if (parts.length != 2) {
+			throw new IllegalArgumentException("Malformed invalidation: " + text);
+		}
+		Class<? extends Entity> type = Arrays.asList(User.class, Group.class, Vault.class).stream()
+				.filter(candidate -> Entity.singular(candidate).equals(parts[0])).findFirst()
+				.orElseThrow(() -> new IllegalArgumentException("Unknown entity: " + parts[0]));
+		return new Invalidation(type, ALL.equals(parts[1]) ? null : parts[1]);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof Invalidation)) {
+			return false;
+		}
+		Invalidation invalidation = (Invalidation) other;
+		return type == invalidation.type && Objects.equals(id, invalidation.id);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(type, id);
+	}
+
+	@Override
+	public String toString() {
+		return format();
+	}
+}
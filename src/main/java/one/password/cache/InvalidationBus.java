@@ -0,0 +1,31 @@
+package one.password.cache;
+
+import java.io.Closeable;
+import java.util.function.Consumer;
+
+/**
+ * Channel for {@link Invalidation}s between nodes caching entities, see
+ * {@link one.password.Config#setInvalidationBus(InvalidationBus)}. The high-level commands publish
+ * an invalidation for each entity they create, modify, delete or change access of; subscribers
+ * such as {@link EntityCache#invalidate(Invalidation)} evict their stale state. Delivery is best
+ * effort, so caches should still expire.
+ */
+public interface InvalidationBus extends Closeable {
+	/** Notifies all subscribers, of this and other nodes. Must not block on the network. */
+	void publish(Invalidation invalidation);
+
+	/** Adds a subscriber notified about invalidations until the subscription is closed. */
+	Subscription subscribe(Consumer<Invalidation> subscriber);
+
+	/** Releases resources of the bus, e.g. sockets. */
+	@Override
+	default void close() {
+	}
+
+	/** Subscription of an {@link InvalidationBus}. */
+	interface Subscription extends AutoCloseable {
+		/** Stops notifying the subscriber. */
+		@Override
+		void close();
+	}
+}
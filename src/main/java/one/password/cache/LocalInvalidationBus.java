@@ -0,0 +1,30 @@
+package one.password.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * {@link InvalidationBus} within a single JVM, e.g. shared by several APIs and caches. Subscribers
+ * are notified synchronously by the publishing thread; their failures do not affect publishers.
+ */
+public class LocalInvalidationBus implements InvalidationBus {
+	private final List<Consumer<Invalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+	@Override
+	public void publish(Invalidation invalidation) {
+		for (Consumer<Invalidation> subscriber : subscribers) {
+			try {
+				subscriber.accept(invalidation);
+			} catch (RuntimeException e) {
+				// a failing subscriber must not affect the mutation that already succeeded
+			}
+		}
+	}
+
+	@Override
+	public Subscription subscribe(Consumer<Invalidation> subscriber) {
+		subscribers.add(subscriber);
+		return () -> subscribers.remove(subscriber);
+	}
+}
@@ -0,0 +1,84 @@
+package one.password.cache;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * {@link InvalidationBus} sending each invalidation as UDP datagram to a fixed list of peers, e.g.
+ * other JVMs on the loopback interface or the nodes of a cluster, without any broker. Datagrams
+ * are sent without waiting for peers, so lost datagrams are only compensated by cache expiry. A
+ * peer list may contain the own address, as a node ignores its own datagrams.
+ */
+public class UdpInvalidationBus extends LocalInvalidationBus {
+	private static final int MAX_LENGTH = 512;
+
+	private final String node = UUID.randomUUID().toString();
+	private final DatagramSocket socket;
+	private final List<InetSocketAddress> peers;
+
+	/** Binds to the given address, which may have port 0 for an ephemeral port. */
+	public UdpInvalidationBus(InetSocketAddress address, Collection<InetSocketAddress> peers)
+			throws IOException {
+		this.socket = new DatagramSocket(address);
+		this.peers = new ArrayList<>(peers);
+		Thread receiver = new Thread(this::receive, "op-invalidation-" + getAddress().getPort());
+		receiver.setDaemon(true);
+		receiver.start();
+	}
+
+	/** Returns the address the bus receives invalidations on. */
+	public InetSocketAddress getAddress() {
+		return (InetSocketAddress) socket.getLocalSocketAddress();
+	}
+
+	@Override
+	public void publish(Invalidation invalidation) {
+		super.publish(invalidation);
+		byte[] message = (node + " " + invalidation.format()).getBytes(StandardCharsets.UTF_8);
+		for (InetSocketAddress peer : peers) {
+			try {
+				socket.send(new DatagramPacket(message, message.length, peer));
+			} catch (IOException e) {
+				// best effort, the peer's cache expires eventually
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		socket.close();
+	}
+
+	private void receive() {
+		byte[] buffer = new byte[MAX_LENGTH];
+		while (!socket.isClosed()) {
+			DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+			try {
+				socket.receive(packet);
+			} catch (SocketException e) {
+				return;
+			} catch (IOException e) {
+				continue;
+			}
+
+			String[] message = new String(packet.getData(), packet.getOffset(), packet.getLength(),
+					StandardCharsets.UTF_8).split(" ", 2);
+			if (message.length != 2 || message[0].equals(node)) {
+				continue;
+			}
+			try {
+				super.publish(Invalidation.parse(message[1]));
+			} catch (IllegalArgumentException e) {
+				// not sent by an invalidation bus
+			}
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package one.password.cli;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import one.password.Entity;
+import one.password.Group;
+import one.password.Session;
+import one.password.User;
+import one.password.Vault;
+import one.password.util.Threads;
+
+/**
+ * Lifecycle and instrumentation of the cache daemon of the 1password CLI, which is spawned by the
+ * first command passing {@link Flags#CACHE} and serves subsequent reads from memory. Whether the
+ * daemon is alive can only be detected on Java 21, where a dead daemon is restarted and prewarmed
+ * anew with the last prewarmed session.
+ */
+public class CacheDaemon {
+	/** The argument of the CLI running as cache daemon. */
+	static final String COMMAND = "daemon";
+
+	private static final Duration CHECK_INTERVAL = Duration.ofSeconds(30);
+
+	private static final List<Class<? extends Entity>> PREWARMED =
+			Arrays.asList(Vault.class, Group.class, User.class);
+
+	private final Op op;
+	private final Latency cached = new Latency();
+	private final Latency uncached = new Latency();
+	private final AtomicInteger restarts = new AtomicInteger();
+	private final AtomicLong nextCheck = new AtomicLong(System.nanoTime());
+	private final AtomicBoolean checking = new AtomicBoolean();
+	private volatile Session session;
+
+	CacheDaemon(Op op) {
+		this.op = op;
+	}
+
+	/**
+	 * Returns whether the daemon is running. Unknown on Java 8, which cannot enumerate processes.
+	 */
+	public Optional<Boolean> isAlive() {
+		return ProcessTree.isDaemonRunning(OpProcess.getExecutable(op.getConfig()));
+	}
+
+	/**
+	 * Starts the daemon if not running yet and fills its cache by listing vaults, groups and users
+	 * with {@link Priority#BULK}. The session is remembered for restarting the daemon.
+	 */
+	public void prewarm(Session session) throws IOException {
+		this.session = session;
+		new CallOptions().setCache(true).setPriority(Priority.BULK).call(() -> {
+			for (Class<? extends Entity> entity : PREWARMED) {
+				op.readList(session, entity).close();
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Lists vaults with and without the daemon in order to compare their latencies, which are
+	 * included in the returned statistics.
+	 */
+	public Stats measure(Session session) throws IOException {
+		for (boolean cache : new boolean[] {false, true}) {
+			new CallOptions().setCache(cache).call(() -> op.readList(session, Vault.class)).close();
+		}
+		return getStats();
+	}
+
+	/** Returns the statistics of successful reads with and without the daemon so far. */
+	public Stats getStats() {
+		return new Stats(cached.count.sum(), cached.nanos.sum(), uncached.count.sum(),
+				uncached.nanos.sum(), restarts.get());
+	}
+
+	/** Records the latency of a finished invocation and checks the daemon once in a while. */
+	void record(Invocation invocation) {
+		boolean read = Commands.of(invocation.getCommand())
+				.filter(command -> command == Commands.GET || command == Commands.LIST).isPresent();
+		if (read && invocation.getError() == null && invocation.getWaitNanos() >= 0) {
+			(invocation.isCached() ? cached : uncached)
+					.add(invocation.getSpawnNanos() + invocation.getWaitNanos());
+		}
+
+		if (invocation.isCached()) {
+			checkAlive();
+		}
+	}
+
+	/** Restarts a dead daemon in the background, checking at most every thirty seconds. */
+	private void checkAlive() {
+		long now = System.nanoTime();
+		long next = nextCheck.get();
+		if (now - next < 0 || session == null || !nextCheck.compareAndSet(next,
+				now + CHECK_INTERVAL.toNanos()) || !checking.compareAndSet(false, true)) {
+			return;
+		}
+
+		CompletableFuture<Void> check = Threads.async(() -> {
+			if (!isAlive().orElse(true)) {
+				restarts.incrementAndGet();
+				prewarm(session);
+			}
+			return null;
+		});
+		check.whenComplete((result, error) -> checking.set(false));
+	}
+
+	/** Count and total duration of reads. */
+	private static class Latency {
+		private final LongAdder count = new LongAdder();
+		private final LongAdder nanos = new LongAdder();
+
+		private void add(long duration) {
+			count.increment();
+			nanos.add(duration);
+		}
+	}
+
+	/** Statistics of reads with and without the daemon. */
+	public static class Stats {
+		private final long cachedReads;
+		private final long cachedNanos;
+		private final long uncachedReads;
+		private final long uncachedNanos;
+		private final int restarts;
+
+		private Stats(long cachedReads, long cachedNanos, long uncachedReads, long uncachedNanos,
+				int restarts) {
+			this.cachedReads = cachedReads;
+			this.cachedNanos = cachedNanos;
+			this.uncachedReads = uncachedReads;
+			this.uncachedNanos = uncachedNanos;
+			this.restarts = restarts;
+		}
+
+		public long getCachedReads() {
+			return cachedReads;
+		}
+
+		/** Returns the mean latency of reads served with the daemon or zero if there were none. */
+		public Duration getCachedMean() {
+			return mean(cachedNanos, cachedReads);
+		}
+
+		public long getUncachedReads() {
+			return uncachedReads;
+		}
+
+		/** Returns the mean latency of reads without the daemon or zero if there were none. */
+		public Duration getUncachedMean() {
+			return mean(uncachedNanos, uncachedReads);
+		}
+
+		/**
+		 * Returns how many times faster reads with the daemon are, if reads with and without it
+		 * have been recorded.
+		 */
+		public OptionalDouble getSpeedup() {
+			if (cachedReads == 0 || uncachedReads == 0 || cachedNanos == 0) {
+				return OptionalDouble.empty();
+			}
+			return OptionalDouble.of((double) uncachedNanos / uncachedReads * cachedReads
+					/ cachedNanos);
+		}
+
+		/** Returns how many times the daemon has been restarted after it died. */
+		public int getRestarts() {
+			return restarts;
+		}
+
+		private static Duration mean(long nanos, long count) {
+			return Duration.ofNanos(count == 0 ? 0 : nanos / count);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("cached %d reads, mean %s; uncached %d reads, mean %s; restarts %d",
+					cachedReads, getCachedMean(), uncachedReads, getUncachedMean(), restarts);
+		}
+	}
+}
@@ -0,0 +1,188 @@
+package one.password.cli;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import one.password.util.SupplierWithException;
+
+/**
+ * Options of the 1password CLI commands executed by the current thread, e.g.
+ * {@code new CallOptions().setPriority(Priority.BULK).call(() -> api.users().list())}.
+ */
+public class CallOptions {
+	private static final ThreadLocal<CallOptions> CURRENT = new ThreadLocal<>();
+
+	private Priority priority = Priority.DEFAULT;
+	private Long deadlineNanos;
+	private CancellationToken cancellation;
+	private Boolean cache;
+
+	/** Returns the options of the current thread, or the defaults outside of {@link #call}. */
+	public static CallOptions current() {
+		CallOptions options = CURRENT.get();
+		if (options == null) {
+			return new CallOptions();
+		}
+		return options;
+	}
+
+	public Priority getPriority() {
+		return priority;
+	}
+
+	/** Sets the priority of commands, defaults to {@link Priority#DEFAULT}. */
+	public CallOptions setPriority(Priority priority) {
+		this.priority = priority;
+		return this;
+	}
+
+	/** Returns the time left until the deadline, which is negative once it passed. */
+	public Optional<Duration> getRemaining() {
+		if (deadlineNanos == null) {
+			return Optional.empty();
+		}
+		return Optional.of(Duration.ofNanos(deadlineNanos - System.nanoTime()));
+	}
+
+	/**
+	 * Sets a deadline for all commands, including waiting for a process slot and retries. Commands
+	 * still running at the deadline are destroyed and fail with {@link ErrorType#TIMEOUT}.
+	 */
+	public CallOptions setDeadline(Instant deadline) {
+		return setTimeout(Duration.between(Instant.now(), deadline));
+	}
+
+	/** Sets the deadline to the given duration from now, see {@link #setDeadline(Instant)}. */
+	public CallOptions setTimeout(Duration timeout) {
+		this.deadlineNanos = System.nanoTime() + timeout.toNanos();
+		return this;
+	}
+
+	public Optional<CancellationToken> getCancellation() {
+		return Optional.ofNullable(cancellation);
+	}
+
+	/**
+	 * Sets a token for cancelling commands. Cancelled commands are destroyed and fail with
+	 * {@link ErrorType#CANCELLED}.
+	 */
+	public CallOptions setCancellation(CancellationToken cancellation) {
+		this.cancellation = cancellation;
+		return this;
+	}
+
+	public Optional<Boolean> getCache() {
+		return Optional.ofNullable(cache);
+	}
+
+	/**
+	 * Overrides {@link one.password.Config#getCache()} for commands, e.g. in order to compare
+	 * latencies with and without the cache daemon. Pass null in order to use the configuration.
+	 */
+	public CallOptions setCache(Boolean cache) {
+		this.cache = cache;
+		return this;
+	}
+
+	/** Runs the action with these options applying to all commands of the current thread. */
+	public <T, E extends Exception> T call(SupplierWithException<T, E> action) throws E {
+		CallOptions previous = CURRENT.get();
+		CURRENT.set(this);
+		try {
+			return action.get();
+		} finally {
+			if (previous == null) {
+				CURRENT.remove();
+			} else {
+				CURRENT.set(previous);
+			}
+		}
+	}
+
+	/** Throws if the commands have been cancelled or the deadline passed. */
+	void checkActive() throws OpException {
+		OpException failure = failure(null);
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/** Returns the error of cancelled commands or commands past the deadline, null otherwise. */
+	private OpException failure(Throwable cause) {
+		if (cancellation != null && cancellation.isCancelled()) {
+			return new OpException(ErrorType.CANCELLED, null, "Command cancelled", cause);
+		}
+		if (deadlineNanos != null && deadlineNanos - System.nanoTime() <= 0) {
+			return new OpException(ErrorType.TIMEOUT, null, "Command deadline exceeded", cause);
+		}
+		return null;
+	}
+
+	/** Runs the action once on cancellation or at the deadline, until the watch is closed. */
+	Watch watch(Runnable action) {
+		return new Watch(action);
+	}
+
+	/** Watches for cancellation and the deadline of a running command. */
+	class Watch implements AutoCloseable {
+		private final AtomicBoolean fired = new AtomicBoolean();
+		private final CancellationToken.Registration registration;
+		private final ScheduledFuture<?> timer;
+
+		private Watch(Runnable action) {
+			Runnable fire = () -> {
+				if (fired.compareAndSet(false, true)) {
+					action.run();
+				}
+			};
+			registration = cancellation == null ? null : cancellation.onCancel(fire);
+			timer = deadlineNanos == null ? null
+					: Watchdog.EXECUTOR.schedule(fire, deadlineNanos - System.nanoTime(),
+							TimeUnit.NANOSECONDS);
+		}
+
+		/** Returns whether the watch fired, i.e. the command has been destroyed. */
+		boolean hasFired() {
+			return fired.get();
+		}
+
+		/** Throws if the watch fired, i.e. the command has been destroyed. */
+		void checkNotFired(Throwable cause) throws OpException {
+			if (fired.get()) {
+				OpException failure = failure(cause);
+				if (failure == null) {
+					failure = new OpException(ErrorType.CANCELLED, null, "Command cancelled", cause);
+				}
+				throw failure;
+			}
+		}
+
+		@Override
+		public void close() {
+			if (registration != null) {
+				registration.close();
+			}
+			if (timer != null) {
+				timer.cancel(false);
+			}
+		}
+	}
+
+	/** Holder of the timer thread for deadlines and output timeouts, started on first use. */
+	static class Watchdog {
+		static final ScheduledThreadPoolExecutor EXECUTOR =
+				new ScheduledThreadPoolExecutor(1, runnable -> {
+					Thread thread = new Thread(runnable, "op-watchdog");
+					thread.setDaemon(true);
+					return thread;
+				});
+
+		static {
+			EXECUTOR.setRemoveOnCancelPolicy(true);
+		}
+	}
+}
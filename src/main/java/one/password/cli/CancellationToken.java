@@ -0,0 +1,58 @@
+package one.password.cli;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cancels the 1password CLI commands of {@link CallOptions} using this token, e.g. when the request
+ * that triggered them has been abandoned. Running CLI processes are destroyed. A token cannot be
+ * reset once cancelled.
+ */
+public class CancellationToken {
+	private final List<Runnable> callbacks = new ArrayList<>();
+	private boolean cancelled = false;
+
+	/** Cancels all commands using this token, now and in the future. */
+	public void cancel() {
+		List<Runnable> pending;
+		synchronized (this) {
+			if (cancelled) {
+				return;
+			}
+			cancelled = true;
+			pending = new ArrayList<>(callbacks);
+			callbacks.clear();
+		}
+		pending.forEach(Runnable::run);
+	}
+
+	public synchronized boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Registers a callback run once on cancellation, immediately if already cancelled. Closing the
+	 * returned registration removes the callback.
+	 */
+	public Registration onCancel(Runnable callback) {
+		synchronized (this) {
+			if (!cancelled) {
+				callbacks.add(callback);
+				return () -> {
+					synchronized (this) {
+						callbacks.remove(callback);
+					}
+				};
+			}
+		}
+		callback.run();
+		return () -> {
+		};
+	}
+
+	/** Registration of a cancellation callback. */
+	public interface Registration extends AutoCloseable {
+		@Override
+		void close();
+	}
+}
@@ -0,0 +1,61 @@
+package one.password.cli;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** Capabilities of the installed 1password CLI derived from its version. */
+public class Capabilities {
+	private static final Pattern VERSION = Pattern.compile("(\\d+)\\.(\\d+)(?:\\.(\\d+))?.*");
+
+	private final String version;
+	private final int major;
+	private final int minor;
+	private final int patch;
+
+	/** Parses the output of "op --version", e.g. "1.12.5". */
+	public Capabilities(String version) throws IllegalArgumentException {
+		this.version = version.trim();
+		Matcher matcher = VERSION.matcher(this.version);
+		if (!matcher.matches()) {
+			throw new IllegalArgumentException("Unknown 1password CLI version: " + version);
+		}
+
+		major = Integer.parseInt(matcher.group(1));
+		minor = Integer.parseInt(matcher.group(2));
+		patch = matcher.group(3) == null ? 0 : Integer.parseInt(matcher.group(3));
+	}
+
+	public String getVersion() {
+		return version;
+	}
+
+	public int getMajor() {
+		return major;
+	}
+
+	public int getMinor() {
+		return minor;
+	}
+
+	public int getPatch() {
+		return patch;
+	}
+
+	/** Returns whether the version is at least the given one. */
+	public boolean isAtLeast(int major, int minor) {
+		return this.major > major || this.major == major && this.minor >= minor;
+	}
+
+	/**
+	 * Returns whether get commands read the names or uuids of several entities from stdin when
+	 * passing "-", e.g. "op user get -", which was introduced with version 2.
+	 */
+	public boolean isPipedGetSupported() {
+		return isAtLeast(2, 0);
+	}
+
+	@Override
+	public String toString() {
+		return version;
+	}
+}
@@ -0,0 +1,100 @@
+package one.password.cli;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker that fails fast once a number of consecutive transient errors has been observed.
+ * After the open duration a single trial command is let through; if it succeeds the circuit closes
+ * again, otherwise it stays open for another period. May be shared between multiple {@link Op}s.
+ */
+public class CircuitBreaker {
+	/** The state of the circuit. */
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final int failureThreshold;
+	private final long openNanos;
+
+	private State state = State.CLOSED;
+	private int failures = 0;
+	private long openedAt;
+
+	public CircuitBreaker() {
+		this(5, Duration.ofSeconds(30));
+	}
+
+	/**
+	 * Creates a circuit breaker that opens after the given number of consecutive transient errors
+	 * and stays open for the given duration.
+	 */
+	public CircuitBreaker(int failureThreshold, Duration openDuration)
+			throws IllegalArgumentException {
+		if (failureThreshold < 1) {
+			throw new IllegalArgumentException(
+					"The failure threshold must be positive: " + failureThreshold);
+		}
+
+		this.failureThreshold = failureThreshold;
+		this.openNanos = openDuration.toNanos();
+	}
+
+	/** Returns the current state of the circuit. */
+	public synchronized State getState() {
+		return state;
+	}
+
+	/**
+	 * Acquires permission to execute a command. Throws an {@link OpException} of type
+	 * {@link ErrorType#CIRCUIT_OPEN} if the circuit is open.
+	 */
+	public synchronized void acquire() throws OpException {
+		if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+			state = State.HALF_OPEN;
+			return;
+		}
+
+		if (state != State.CLOSED) {
+			throw new OpException(ErrorType.CIRCUIT_OPEN,
+					"The 1password backend is unhealthy, circuit breaker is open");
+		}
+	}
+
+	/** Records a successful command. */
+	public synchronized void onSuccess() {
+		state = State.CLOSED;
+		failures = 0;
+	}
+
+	/**
+	 * Records a command abandoned without an outcome, e.g. cancelled or past its deadline. A
+	 * half-open trial is released without counting a failure, so the next command is let through
+	 * as trial.
+	 */
+	public synchronized void onAbandoned() {
+		if (state == State.HALF_OPEN) {
+			state = State.OPEN;
+			openedAt = System.nanoTime() - openNanos;
+		}
+	}
+
+	/**
+	 * Records a failed command. Only consecutive transient errors count towards opening the
+	 * circuit, other errors prove the backend to be responsive like a success.
+	 */
+	public synchronized void onFailure(ErrorType type) {
+		if (!type.isTransient()) {
+			if (state == State.HALF_OPEN) {
+				state = State.CLOSED;
+			}
+			failures = 0;
+			return;
+		}
+
+		failures++;
+		if (state == State.HALF_OPEN || failures >= failureThreshold) {
+			state = State.OPEN;
+			openedAt = System.nanoTime();
+		}
+	}
+}
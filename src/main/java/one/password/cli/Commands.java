@@ -1,17 +1,37 @@
 package one.password.cli;
 
+import java.util.Arrays;
+import java.util.Optional;
+
 /** 1password CLI commands */
 public enum Commands {
-	VERSION("--version"), SIGNIN, SIGNOUT, GET, LIST, CREATE, EDIT, DELETE, ADD, REMOVE, CONFIRM, REACTIVATE, SUSPEND;
+	VERSION("--version", true), SIGNIN, SIGNOUT, GET(true), LIST(true), CREATE, EDIT, DELETE, ADD, REMOVE, CONFIRM, REACTIVATE, SUSPEND;
 
 	private String name;
+	private boolean idempotent;
 
 	private Commands() {
+		this(false);
+	}
+
+	private Commands(boolean idempotent) {
 		this.name = name().toLowerCase();
+		this.idempotent = idempotent;
 	}
 
-	private Commands(String name) {
+	private Commands(String name, boolean idempotent) {
 		this.name = name;
+		this.idempotent = idempotent;
+	}
+
+	/** Returns whether the command can safely be repeated, e.g. if it failed. */
+	public boolean isIdempotent() {
+		return idempotent;
+	}
+
+	/** Returns the command from its String representation, e.g. "list". */
+	public static Optional<Commands> of(String name) {
+		return Arrays.stream(values()).filter(command -> command.name.equals(name)).findFirst();
 	}
 
 	@Override
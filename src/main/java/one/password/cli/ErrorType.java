@@ -0,0 +1,75 @@
+package one.password.cli;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/** Classification of errors reported by the 1password CLI. */
+public enum ErrorType {
+	/** The session is missing or expired and a new signin is required. */
+	SIGNIN(false, "session expired", "sign in to create a new session",
+			"you are not currently signed in"),
+
+	/** The server rejected the request because too many requests have been sent. */
+	RATE_LIMIT(true, "too many requests", "rate limit", "(429)"),
+
+	/** The server could not be reached or the connection broke down. */
+	NETWORK(true, "connection refused", "connection reset", "no such host",
+			"network is unreachable", "i/o timeout", "tls handshake", "unexpected eof"),
+
+	/** The server failed to process the request. */
+	SERVER(true, "internal server error", "bad gateway", "service unavailable",
+			"gateway timeout", "(500)", "(502)", "(503)", "(504)"),
+
+	/** The CLI process did not finish in time. */
+	TIMEOUT(true, "timeout", "timed out"),
+
+	/** The request has not been executed as the circuit breaker is open. */
+	CIRCUIT_OPEN(false),
+
+	/** The command has been cancelled via its {@link CallOptions}. */
+	CANCELLED(false),
+
+	/** Any other error, e.g. invalid arguments or an entity that does not exist. */
+	UNKNOWN(false);
+
+	private final boolean transientError;
+	private final List<String> messages;
+
+	private ErrorType(boolean transientError, String... messages) {
+		this.transientError = transientError;
+		this.messages = Arrays.asList(messages);
+	}
+
+	/**
+	 * Returns whether the error is expected to be temporary, i.e. repeating the same command later
+	 * may succeed.
+	 */
+	public boolean isTransient() {
+		return transientError;
+	}
+
+	/** Classifies the error message printed by the 1password CLI. */
+	public static ErrorType classify(String message) {
+		if (message == null) {
+			return UNKNOWN;
+		}
+
+		String lowerCaseMessage = message.toLowerCase();
+		return Arrays.stream(values())
+				.filter(type -> type.messages.stream().anyMatch(lowerCaseMessage::contains))
+				.findFirst().orElse(UNKNOWN);
+	}
+
+	/**
+	 * Classifies an exception. Uses the type of {@link OpException}s and falls back to the
+	 * exception message otherwise.
+	 */
+	public static ErrorType classify(IOException exception) {
+		if (exception instanceof OpException) {
+			return ((OpException) exception).getType();
+		}
+
+		return classify(exception.getMessage());
+	}
+}
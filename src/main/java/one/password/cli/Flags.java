@@ -2,7 +2,7 @@ package one.password.cli;
 
 /** Common 1password CLI flags */
 public enum Flags {
-	SHORTHAND, SESSION, RAW, CACHE, CONFIG, NAME, DESCRIPTION, LANGUAGE, ROLE, GROUP, VAULT, ALLOW_ADMINS_TO_MANAGE, ALL;
+	SHORTHAND, SESSION, RAW, CACHE, CONFIG, NAME, DESCRIPTION, LANGUAGE, ROLE, GROUP, VAULT, ALLOW_ADMINS_TO_MANAGE, ALL, FORMAT;
 
 	/**
 	 * Converts the flag to its String representation by converting it to lowercase and prepending
@@ -0,0 +1,17 @@
+package one.password.cli;
+
+import java.util.Optional;
+
+/**
+ * Emits JDK Flight Recorder events for CLI invocations. JFR is not available on Java 8, so this
+ * baseline provides no listener; the Java 21 layer of the multi-release JAR replaces it.
+ */
+final class FlightRecorder {
+	private FlightRecorder() {
+	}
+
+	/** Returns the listener emitting JFR events if supported by the running JVM. */
+	static Optional<OpListener> listener() {
+		return Optional.empty();
+	}
+}
@@ -0,0 +1,162 @@
+package one.password.cli;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalInt;
+
+/** A single invocation of the 1password CLI as reported to {@link OpListener}s. */
+public class Invocation {
+	/** Replacement for redacted arguments. */
+	public static final String REDACTED = "<redacted>";
+
+	/** Position of the secret key in the arguments of {@link Op#signin}. */
+	private static final int SIGNIN_SECRET_KEY = 3;
+
+	private static final List<String> SECRET_FLAGS =
+			Arrays.asList(Flags.SESSION.toString() + "=", "--password", "--secret", "--token");
+
+	private final String command;
+	private final List<String> arguments;
+	private final int attempt;
+	private Priority priority = Priority.DEFAULT;
+	private boolean cached = false;
+	private long queueNanos = -1;
+	private long spawnNanos = -1;
+	private long waitNanos = -1;
+	private long outputSize = -1;
+	private OpException error;
+
+	Invocation(int attempt, String... arguments) {
+		List<String> redacted = redact(arguments);
+		this.command = redacted.isEmpty() ? "" : redacted.get(0);
+		this.arguments = Collections.unmodifiableList(redacted);
+		this.attempt = attempt;
+	}
+
+	/**
+	 * Redacts secrets from CLI arguments, i.e. the secret key passed to signin and values of
+	 * session, password, secret or token flags. Null arguments are dropped after redacting, so
+	 * they do not shift the position of the secret key.
+	 */
+	public static List<String> redact(String... arguments) {
+		boolean signin =
+				arguments.length > 0 && Commands.SIGNIN.toString().equals(arguments[0]);
+		List<String> redacted = new ArrayList<>();
+		for (int i = 0; i < arguments.length; i++) {
+			String argument = arguments[i];
+			if (argument == null) {
+				continue;
+			}
+			if (signin && i == SIGNIN_SECRET_KEY) {
+				argument = REDACTED;
+			}
+
+			for (String flag : SECRET_FLAGS) {
+				int separator = argument.indexOf('=');
+				if (argument.startsWith(flag) && separator > 0) {
+					argument = argument.substring(0, separator + 1) + REDACTED;
+				}
+			}
+			redacted.add(argument);
+		}
+		return redacted;
+	}
+
+	/** Returns the command, e.g. "list". */
+	public String getCommand() {
+		return command;
+	}
+
+	/** Returns all arguments including the command with secrets redacted. */
+	public List<String> getArguments() {
+		return arguments;
+	}
+
+	/** Returns the attempt starting at 1, i.e. a value greater than 1 denotes a retry. */
+	public int getAttempt() {
+		return attempt;
+	}
+
+	public Priority getPriority() {
+		return priority;
+	}
+
+	/** Returns whether the command used the cache daemon of the CLI. */
+	public boolean isCached() {
+		return cached;
+	}
+
+	/**
+	 * Returns the nanoseconds waited for a process slot of the {@link LaneScheduler} or -1 if not
+	 * scheduled.
+	 */
+	public long getQueueNanos() {
+		return queueNanos;
+	}
+
+	/** Returns the nanoseconds it took to start the process or -1 if not started. */
+	public long getSpawnNanos() {
+		return spawnNanos;
+	}
+
+	/**
+	 * Returns the nanoseconds waited for the process output or -1 if not waited. For streamed
+	 * output this only covers waiting for the first line.
+	 */
+	public long getWaitNanos() {
+		return waitNanos;
+	}
+
+	/** Returns the size of the output in characters or -1 if unknown, e.g. for streamed output. */
+	public long getOutputSize() {
+		return outputSize;
+	}
+
+	/** Returns the error if the invocation failed, null otherwise. */
+	public OpException getError() {
+		return error;
+	}
+
+	/** Returns the exit code of the process if known. */
+	public OptionalInt getExitCode() {
+		if (error != null) {
+			return error.getExitCode();
+		}
+
+		if (waitNanos >= 0) {
+			return OptionalInt.of(0);
+		}
+
+		return OptionalInt.empty();
+	}
+
+	void setPriority(Priority priority) {
+		this.priority = priority;
+	}
+
+	void setCached(boolean cached) {
+		this.cached = cached;
+	}
+
+	void setQueueNanos(long queueNanos) {
+		this.queueNanos = queueNanos;
+	}
+
+	void setSpawnNanos(long spawnNanos) {
+		this.spawnNanos = spawnNanos;
+	}
+
+	void setWaitNanos(long waitNanos) {
+		this.waitNanos = waitNanos;
+	}
+
+	void setOutputSize(long outputSize) {
+		this.outputSize = outputSize;
+	}
+
+	void setError(OpException error) {
+		this.error = error;
+	}
+}
@@ -0,0 +1,225 @@
+package one.password.cli;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of concurrently running 1password CLI processes and orders waiting commands
+ * by {@link Priority}. A number of slots is reserved for {@link Priority#INTERACTIVE} commands, so
+ * they never wait behind bulk work filling up all slots. Waiting commands are promoted by one
+ * priority class per aging interval, so bulk work is not starved. The scheduler may be shared
+ * between multiple configurations.
+ */
+public class LaneScheduler {
+	private final int maxConcurrency;
+	private final int reservedInteractive;
+	private final long agingNanos;
+
+	/** Not a monitor, which would pin the carriers of waiting virtual threads. */
+	private final ReentrantLock lock = new ReentrantLock();
+	private final List<Waiter> waiters = new ArrayList<>();
+	private int running = 0;
+	private long arrivals = 0;
+
+	/** Allows 8 processes with 2 reserved for interactive commands and aging after 5 seconds. */
+	public LaneScheduler() {
+		this(8, 2, Duration.ofSeconds(5));
+	}
+
+	public LaneScheduler(int maxConcurrency, int reservedInteractive, Duration aging)
+			throws IllegalArgumentException {
+		if (maxConcurrency < 1) {
+			throw new IllegalArgumentException(
+					"The maximum concurrency must be positive: " + maxConcurrency);
+		}
+		if (reservedInteractive < 0 || reservedInteractive >= maxConcurrency) {
+			throw new IllegalArgumentException(
+					"The reserved interactive slots must be less than the maximum concurrency: "
+							+ reservedInteractive);
+		}
+		this.maxConcurrency = maxConcurrency;
+		this.reservedInteractive = reservedInteractive;
+		this.agingNanos = aging.toNanos();
+	}
+
+	/** Returns the number of commands currently holding a slot. */
+	public int getRunning() {
+		lock.lock();
+		try {
+			return running;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** Returns the number of commands waiting for a slot. */
+	public int getWaiting() {
+		lock.lock();
+		try {
+			return waiters.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** Blocks until a slot for a command of the given priority is available. */
+	public Slot acquire(Priority priority) throws IOException {
+		return acquire(new CallOptions().setPriority(priority));
+	}
+
+	/**
+	 * Blocks until a slot for a command with the given options is available. Fails once the
+	 * options are cancelled or their deadline passed.
+	 */
+	public Slot acquire(CallOptions options) throws IOException {
+		Waiter waiter = enqueue(options.getPriority());
+		CancellationToken.Registration registration = options.getCancellation()
+				.map(token -> token.onCancel(waiter::wakeUp)).orElse(null);
+		try {
+			await(waiter, options);
+			return new Slot();
+		} finally {
+			if (registration != null) {
+				registration.close();
+			}
+		}
+	}
+
+	private Waiter enqueue(Priority priority) {
+		lock.lock();
+		try {
+			Waiter waiter = new Waiter(priority, arrivals++, System.nanoTime());
+			waiters.add(waiter);
+			dispatch();
+			return waiter;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void await(Waiter waiter, CallOptions options) throws IOException {
+		lock.lock();
+		try {
+			while (!waiter.granted) {
+				options.checkActive();
+				Optional<Duration> remaining = options.getRemaining();
+				if (remaining.isPresent()) {
+					waiter.signal.awaitNanos(remaining.get().toNanos());
+				} else {
+					waiter.signal.await();
+				}
+			}
+		} catch (InterruptedException e) {
+			abandon(waiter);
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for a process slot");
+		} catch (OpException e) {
+			abandon(waiter);
+			throw e;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void abandon(Waiter waiter) {
+		if (waiter.granted) {
+			release();
+		} else {
+			waiters.remove(waiter);
+		}
+	}
+
+	private void release() {
+		running--;
+		dispatch();
+	}
+
+	/** Grants free slots to the waiting commands with the highest aged priority. */
+	private void dispatch() {
+		long now = System.nanoTime();
+		while (running < maxConcurrency) {
+			Waiter next = null;
+			for (Waiter waiter : waiters) {
+				if (waiter.priority != Priority.INTERACTIVE
+						&& running >= maxConcurrency - reservedInteractive) {
+					continue;
+				}
+				if (next == null || waiter.compareTo(next, now) < 0) {
+					next = waiter;
+				}
+			}
+			if (next == null) {
+				return;
+			}
+
+			waiters.remove(next);
+			next.granted = true;
+			running++;
+			next.signal.signal();
+		}
+	}
+
+	private class Waiter {
+		private final Priority priority;
+		private final long arrival;
+		private final long since;
+		private final Condition signal = lock.newCondition();
+		private boolean granted = false;
+
+		private Waiter(Priority priority, long arrival, long since) {
+			this.priority = priority;
+			this.arrival = arrival;
+			this.since = since;
+		}
+
+		/** Returns the priority class promoted by the time waited, lower is more urgent. */
+		private long rank(long now) {
+			if (agingNanos <= 0) {
+				return 0;
+			}
+			return Math.max(0, priority.ordinal() - (now - since) / agingNanos);
+		}
+
+		/** Wakes up the waiting command, e.g. to notice its cancellation. */
+		private void wakeUp() {
+			lock.lock();
+			try {
+				signal.signal();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		private int compareTo(Waiter other, long now) {
+			int compare = Long.compare(rank(now), other.rank(now));
+			if (compare != 0) {
+				return compare;
+			}
+			return Long.compare(arrival, other.arrival);
+		}
+	}
+
+	/** A slot held by a running command, must be closed once the process finished. */
+	public class Slot implements AutoCloseable {
+		private boolean closed = false;
+
+		@Override
+		public void close() {
+			lock.lock();
+			try {
+				if (!closed) {
+					closed = true;
+					release();
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+}
@@ -1,17 +1,36 @@
 package one.password.cli;
 
+import java.io.FilterReader;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import one.password.Config;
 import one.password.Entity;
 import one.password.Session;
+import one.password.util.FunctionWithException;
+import one.password.util.Json;
+import one.password.util.Threads;
 import one.password.util.Utils;
 
 /** Porcelain wrapper around the 1password CLI. */
 public class Op {
 	private final Config config;
+	private final Map<String, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+	private volatile Capabilities capabilities;
+	private final CacheDaemon cacheDaemon = new CacheDaemon(this);
 
 	public Op() {
 		this(new Config());
@@ -21,6 +40,11 @@ public class Op {
 		this.config = config;
 	}
 
+	/** Returns the configuration of the CLI. */
+	public Config getConfig() {
+		return config;
+	}
+
 	/** Signs in 1password creating a new session. */
 	public Session signin(String signInAddress, String emailAddress, String secretKey,
 			Supplier<String> password) throws IOException {
@@ -37,11 +61,12 @@ public class Op {
 		if (session != null) {
 			sessionFlag = Flags.SESSION.is(session.getSession());
 		}
-		OpProcess process = OpProcess.start(config, null, Commands.SIGNIN.toString(), signInAddress,
-				emailAddress, secretKey, Flags.SHORTHAND.is(shorthand), sessionFlag,
-				Flags.RAW.toString());
-		process.input(Stream.of(password).map(Supplier::get));
-		return new Session(process.output(), shorthand);
+		String[] arguments = {Commands.SIGNIN.toString(), signInAddress, emailAddress, secretKey,
+				Flags.SHORTHAND.is(shorthand), sessionFlag, Flags.RAW.toString()};
+		return executeOnce(null, process -> {
+			process.input(Stream.of(password).map(Supplier::get));
+			return new Session(process.output(), shorthand);
+		}, 1, arguments);
 	}
 
 	/** Signs out the current session. */
@@ -62,6 +87,19 @@ public class Op {
 				Utils.asArray(Entity.singular(entity), nameOrUuid, arguments));
 	}
 
+	/**
+	 * Gets several items of a given entity type in a single invocation by piping their names or
+	 * uuids to stdin, see {@link Capabilities#isPipedGetSupported()}. Uses the syntax of version 2,
+	 * e.g. "op user get -". Returns the concatenated JSON objects printed by the CLI.
+	 */
+	public String getAll(Session session, Class<? extends Entity> entity,
+			Collection<String> namesOrUuids, String... arguments) throws IOException {
+		String input = Json.serialize(namesOrUuids.stream()
+				.map(id -> Collections.singletonMap("id", id)).collect(Collectors.toList()));
+		return executeWithInput(session, input, Utils.asArray(Entity.singular(entity),
+				Commands.GET.toString(), "-", Utils.asArray(Flags.FORMAT.is("json"), arguments)));
+	}
+
 	/** Creates an item of a given entity type. */
 	public String create(Session session, Class<? extends Entity> entity, String name,
 			String... arguments) throws IOException {
@@ -116,6 +154,28 @@ public class Op {
 		return execute(null, Commands.VERSION);
 	}
 
+	/**
+	 * Returns the capabilities of the installed 1password CLI. Detected on first call via
+	 * {@link #version()} and cached afterwards.
+	 */
+	public Capabilities capabilities() throws IOException {
+		Capabilities detected = capabilities;
+		if (detected == null) {
+			try {
+				detected = new Capabilities(version());
+			} catch (IllegalArgumentException e) {
+				throw new IOException(e.getMessage(), e);
+			}
+			capabilities = detected;
+		}
+		return detected;
+	}
+
+	/** Returns the lifecycle and statistics of the cache daemon of the CLI. */
+	public CacheDaemon cacheDaemon() {
+		return cacheDaemon;
+	}
+
 	/**
 	 * Executes an arbitrary 1password CLI command. The session may be null in order to use a not
 	 * use authentication or manually handle it via {@link Flags#SESSION}.
@@ -125,12 +185,267 @@ public class Op {
 		return execute(session, Utils.asArray(command.toString(), arguments));
 	}
 
-	/** @see #execute(Session, Commands, String...) */
+	/**
+	 * Executes an arbitrary 1password CLI command. Idempotent commands failing with a transient
+	 * error are retried according to {@link Config#getRetryPolicy()}.
+	 *
+	 * @see #execute(Session, Commands, String...)
+	 */
 	public String execute(Session session, String... arguments) throws IOException {
-		return OpProcess.start(config, session, arguments).output();
+		return execute(session, OpProcess::output, arguments);
+	}
+
+	/**
+	 * Executes an arbitrary 1password CLI command writing the input to its stdin, e.g. the items
+	 * of a piped get.
+	 *
+	 * @see #execute(Session, String...)
+	 */
+	public String executeWithInput(Session session, String input, String... arguments)
+			throws IOException {
+		return execute(session, process -> process.input(Stream.of(input)).output(), arguments);
 	}
 
-	private String getShorthand(String signInAddress) throws IOException {
+	/**
+	 * Executes an arbitrary 1password CLI command and returns a reader of its output, which is
+	 * consumed incrementally. The caller must close the reader.
+	 *
+	 * @see #execute(Session, String...)
+	 */
+	public Reader stream(Session session, String... arguments) throws IOException {
+		return execute(session, OpProcess::reader, arguments);
+	}
+
+	/** Lists all items of a given entity type returning a reader of the output. */
+	public <T extends Entity> Reader streamList(Session session, Class<T> entity,
+			String... arguments) throws IOException {
+		return stream(session,
+				Utils.asArray(Commands.LIST.toString(), Entity.plural(entity), arguments));
+	}
+
+	/**
+	 * Executes an arbitrary 1password CLI command and returns a reader of its complete output.
+	 * Output exceeding {@link Config#getSpillThreshold()} is spilled to a temporary file instead of
+	 * the heap. The caller must close the reader.
+	 *
+	 * @see #execute(Session, String...)
+	 */
+	public Reader read(Session session, String... arguments) throws IOException {
+		long threshold = config.getSpillThreshold().orElse(Long.MAX_VALUE);
+		return execute(session, process -> process.buffer(threshold), arguments);
+	}
+
+	/** Lists all items of a given entity type returning a reader of the complete output. */
+	public <T extends Entity> Reader readList(Session session, Class<T> entity,
+			String... arguments) throws IOException {
+		return read(session,
+				Utils.asArray(Commands.LIST.toString(), Entity.plural(entity), arguments));
+	}
+
+	/**
+	 * Executes an arbitrary 1password CLI command asynchronously on {@link Threads#executor()}.
+	 *
+	 * @see #execute(Session, String...)
+	 */
+	public CompletableFuture<String> executeAsync(Session session, String... arguments) {
+		return Threads.async(() -> execute(session, arguments));
+	}
+
+	private <T> T execute(Session session,
+			FunctionWithException<OpProcess, T, IOException> outputHandler, String... arguments)
+			throws IOException {
+		// the command precedes the entity with version 1 and follows it with version 2
+		boolean idempotent = Arrays.stream(arguments).limit(2).map(Commands::of)
+				.filter(Optional::isPresent).findFirst()
+				.map(command -> command.get().isIdempotent()).orElse(false);
+		RetryPolicy retryPolicy = config.getRetryPolicy().orElseGet(RetryPolicy::none);
+		CallOptions options = CallOptions.current();
+
+		for (int attempt = 1;; attempt++) {
+			Duration backoff;
+			try {
+				return executeOnce(session, outputHandler, attempt, arguments);
+			} catch (IOException e) {
+				if (!idempotent || !retryPolicy.shouldRetry(ErrorType.classify(e), attempt)) {
+					throw e;
+				}
+
+				// no retry if the deadline passes while backing off
+				backoff = retryPolicy.backoff(attempt);
+				if (options.getRemaining().map(backoff::compareTo).orElse(-1) >= 0) {
+					throw e;
+				}
+			}
+
+			sleep(backoff);
+		}
+	}
+
+	private <T> T executeOnce(Session session,
+			FunctionWithException<OpProcess, T, IOException> outputHandler, int attempt,
+			String... arguments) throws IOException {
+		CallOptions options = CallOptions.current();
+		options.checkActive();
+
+		Optional<RateLimiter> rateLimiter = rateLimiter(session);
+		if (rateLimiter.isPresent()) {
+			rateLimiter.get().acquire(options);
+		}
+
+		Invocation invocation = new Invocation(attempt, arguments);
+		invocation.setPriority(options.getPriority());
+		boolean cache = options.getCache().orElse(config.getCache());
+		invocation.setCached(cache);
+		Optional<LaneScheduler> scheduler = config.getScheduler();
+		LaneScheduler.Slot slot = null;
+		if (scheduler.isPresent()) {
+			long queued = System.nanoTime();
+			slot = scheduler.get().acquire(options);
+			invocation.setQueueNanos(System.nanoTime() - queued);
+		}
+
+		// acquired last, as a half-open trial must be followed by reporting its outcome
+		Optional<CircuitBreaker> circuitBreaker = config.getCircuitBreaker();
+		if (circuitBreaker.isPresent()) {
+			try {
+				circuitBreaker.get().acquire();
+			} catch (OpException e) {
+				if (slot != null) {
+					slot.close();
+				}
+				throw e;
+			}
+		}
+
+		List<OpListener> listeners = getListeners();
+		listeners.forEach(listener -> listener.onStart(invocation));
+		CallOptions.Watch watch = null;
+		try {
+			long start = System.nanoTime();
+			OpProcess process = OpProcess.start(config, session, cache, arguments);
+			long started = System.nanoTime();
+			invocation.setSpawnNanos(started - start);
+
+			// destroys the process and frees its slot at once on cancellation or deadline
+			LaneScheduler.Slot processSlot = slot;
+			watch = options.watch(() -> {
+				process.destroy();
+				if (processSlot != null) {
+					processSlot.close();
+				}
+			});
+
+			T output;
+			try {
+				output = outputHandler.apply(process);
+			} catch (IOException e) {
+				watch.checkNotFired(e);
+				throw e;
+			}
+			watch.checkNotFired(null);
+			invocation.setWaitNanos(System.nanoTime() - started);
+			if (output instanceof String) {
+				invocation.setOutputSize(((String) output).length());
+			} else if (output instanceof OutputBuffer) {
+				invocation.setOutputSize(((OutputBuffer) output).length());
+			}
+
+			circuitBreaker.ifPresent(CircuitBreaker::onSuccess);
+			rateLimiter.ifPresent(RateLimiter::onSuccess);
+			if (output instanceof Reader && !(output instanceof OutputBuffer)) {
+				output = closeWithReader(output, watch, slot);
+				watch = null;
+				slot = null;
+			}
+			return output;
+		} catch (IOException e) {
+			ErrorType type = ErrorType.classify(e);
+			invocation.setError(e instanceof OpException ? (OpException) e
+					: new OpException(type, null, e.getMessage(), e));
+			// cancelled commands and missed deadlines say nothing about the backend
+			if (watch == null || !watch.hasFired()) {
+				circuitBreaker.ifPresent(breaker -> breaker.onFailure(type));
+			} else {
+				circuitBreaker.ifPresent(CircuitBreaker::onAbandoned);
+			}
+			if (type == ErrorType.RATE_LIMIT) {
+				rateLimiter.ifPresent(RateLimiter::onRateLimited);
+			}
+			throw e;
+		} catch (RuntimeException e) {
+			circuitBreaker.ifPresent(CircuitBreaker::onAbandoned);
+			throw e;
+		} finally {
+			if (watch != null) {
+				watch.close();
+			}
+			if (slot != null) {
+				slot.close();
+			}
+			cacheDaemon.record(invocation);
+			listeners.forEach(listener -> listener.onCommand(invocation));
+		}
+	}
+
+	/**
+	 * Keeps watching for cancellation and holding the scheduler slot of streamed output until the
+	 * reader is closed.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T closeWithReader(T reader, CallOptions.Watch watch,
+			LaneScheduler.Slot slot) {
+		return (T) new FilterReader((Reader) reader) {
+			@Override
+			public void close() throws IOException {
+				try {
+					super.close();
+				} finally {
+					watch.close();
+					if (slot != null) {
+						slot.close();
+					}
+				}
+			}
+		};
+	}
+	/**
+	 * Returns the listeners notified about CLI invocations, i.e. those of the {@link Config} and
+	 * the JDK Flight Recorder if supported.
+	 */
+	public List<OpListener> getListeners() {
+		if (!FlightRecorder.listener().isPresent()) {
+			return config.getListeners();
+		}
+
+		List<OpListener> listeners = new ArrayList<>(config.getListeners());
+		listeners.add(FlightRecorder.listener().get());
+		return listeners;
+	}
+
+	/**
+	 * Returns the adaptive rate limiter for the account of the session if throttling is enabled via
+	 * {@link Config#setRateLimit(RateLimit)}.
+	 */
+	public Optional<RateLimiter> rateLimiter(Session session) {
+		String account = session == null ? "" : session.getShorthand();
+		return config.getRateLimit().map(rateLimit -> rateLimiters.computeIfAbsent(account,
+				key -> new RateLimiter(rateLimit)));
+	}
+
+	private static void sleep(Duration duration) throws IOException {
+		try {
+			Thread.sleep(duration.toMillis());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for retry");
+		}
+	}
+
+	/**
+	 * Returns the account shorthand used for signing in, i.e. the configured one or the one derived
+	 * from the sign in address.
+	 */
+	public String getShorthand(String signInAddress) throws IOException {
 		Optional<String> optionalShorthand = config.getShorthand();
 		if (!optionalShorthand.isPresent()) {
 			optionalShorthand = Utils.getShorthand(signInAddress);
@@ -0,0 +1,36 @@
+package one.password.cli;
+
+import java.io.IOException;
+import java.util.OptionalInt;
+
+/** Exception thrown if the 1password CLI reports an error. */
+public class OpException extends IOException {
+	private static final long serialVersionUID = 1L;
+
+	private final ErrorType type;
+	private final Integer exitCode;
+
+	public OpException(ErrorType type, String message) {
+		this(type, null, message, null);
+	}
+
+	public OpException(ErrorType type, Integer exitCode, String message, Throwable cause) {
+		super(message, cause);
+		this.type = type;
+		this.exitCode = exitCode;
+	}
+
+	/** Returns the classification of the error. */
+	public ErrorType getType() {
+		return type;
+	}
+
+	/** Returns the exit code of the CLI process if known. */
+	public OptionalInt getExitCode() {
+		if (exitCode == null) {
+			return OptionalInt.empty();
+		}
+
+		return OptionalInt.of(exitCode);
+	}
+}
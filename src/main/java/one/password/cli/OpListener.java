@@ -0,0 +1,31 @@
+package one.password.cli;
+
+/**
+ * Listener notified about 1password CLI invocations, e.g. for profiling or logging. Register via
+ * {@link one.password.Config#addListener(OpListener)}. Listeners are invoked synchronously on the
+ * executing thread and should return quickly.
+ */
+public interface OpListener {
+	/** Invoked before the CLI process of a command is started. */
+	default void onStart(Invocation invocation) {
+		// nothing by default
+	}
+
+	/** Invoked after the CLI process of a command finished or failed. */
+	default void onCommand(Invocation invocation) {
+		// nothing by default
+	}
+
+	/** Invoked after signing in, successful or not. */
+	default void onSignin(Signin signin) {
+		// nothing by default
+	}
+
+	/**
+	 * Invoked after the output of a command has been deserialized to the given type, successfully
+	 * or not.
+	 */
+	default void onParse(Class<?> type, long size, long nanos) {
+		// nothing by default
+	}
+}
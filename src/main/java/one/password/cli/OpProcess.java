@@ -1,15 +1,27 @@
 package one.password.cli;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 import com.ongres.process.FluentProcess;
 import com.ongres.process.FluentProcessBuilder;
 import com.ongres.process.Output;
+import com.ongres.process.OutputLine;
 import one.password.Config;
 import one.password.Session;
 import one.password.util.Utils;
@@ -20,42 +32,60 @@ class OpProcess {
 	public static final String OP_EXECUTABLE_FILENAME = executableFileName();
 
 	private final FluentProcess process;
+	private final List<String> command;
+	private final Instant started;
+	private final Duration timeout;
 
 	private static final Pattern CONFIG_LOCATION =
 			Pattern.compile("Using configuration at non-standard location \".+\"\r?\n?");
 
-	private OpProcess(FluentProcess process) {
+	private static final Pattern EXIT_CODE =
+			Pattern.compile("exit(?:ed)? (?:with )?code:? ?(-?\\d+)", Pattern.CASE_INSENSITIVE);
+
+	private OpProcess(FluentProcess process, List<String> command, Instant started,
+			Duration timeout) {
 		this.process = process;
+		this.command = command;
+		this.started = started;
+		this.timeout = timeout;
 	}
 
-	/** Starts the op executable with environment set from the configuration. */
-	public static OpProcess start(Config config, Session session, String... arguments)
-			throws IOException {
+	/**
+	 * Starts the op executable with environment set from the configuration, using the cache daemon
+	 * if requested.
+	 */
+	public static OpProcess start(Config config, Session session, boolean cache,
+			String... arguments) throws IOException {
 		return wrapExceptions(() -> {
 			String executable = getExecutable(config);
 			FluentProcessBuilder builder = FluentProcess.builder(executable);
+			List<String> command = new ArrayList<>();
+			command.add(executable);
 
 			builder.environment("OP_DEVICE", config.getDevice());
 			if (session != null) {
 				builder.environment(session.getEnvironmentVariableName(), session.getSession());
 			}
 
-			Arrays.stream(arguments).filter(Objects::nonNull).forEach(builder::arg);
-			if (config.getCache()) {
-				builder.arg(Flags.CACHE.toString());
+			Arrays.stream(arguments).filter(Objects::nonNull).forEach(command::add);
+			if (cache) {
+				command.add(Flags.CACHE.toString());
 			}
 
 			if (config.getConfigDir().isPresent()) {
-				builder.arg(Flags.CONFIG.is(config.getConfigDir().get().toString()));
+				command.add(Flags.CONFIG.is(config.getConfigDir().get().toString()));
 			}
 
+			command.stream().skip(1).forEach(builder::arg);
 			builder.allowedExitCode(1);
+			Instant started = Instant.now();
 			FluentProcess process = builder.start();
-			if (config.getTimeout().isPresent()) {
-				process = process.withTimeout(config.getTimeout().get());
+			Duration timeout = config.getTimeout().orElse(null);
+			if (timeout != null) {
+				process = process.withTimeout(timeout);
 			}
 
-			return new OpProcess(process);
+			return new OpProcess(process, command, started, timeout);
 		});
 	}
 
@@ -67,7 +97,8 @@ class OpProcess {
 		return executable;
 	}
 
-	private static String getExecutable(Config config) {
+	/** Returns the configured op executable or its filename, which is looked up in the PATH. */
+	static String getExecutable(Config config) {
 		String executable = OP_EXECUTABLE_FILENAME;
 
 		if (config.getExecutable().isPresent()) {
@@ -77,30 +108,238 @@ class OpProcess {
 	}
 
 
+	/**
+	 * Destroys the process and then its descendants, so no orphaned processes keep running. Blocked
+	 * calls to {@link #output()} or the reader return with an error.
+	 */
+	public void destroy() {
+		ProcessTree descendants = ProcessTree.descendants(command, started);
+		try {
+			closeQuietly();
+		} finally {
+			descendants.destroy();
+		}
+	}
+
 	/** Connects a stream of input strings. */
 	public OpProcess input(Stream<String> input) throws IOException {
 		wrapExceptions(() -> process.inputStream(input));
 		return this;
 	}
 
-	/** Returns the process output or throws an {@link IOException} if execution failed. */
+	/**
+	 * Returns the process output or throws an {@link OpException} classifying the error if
+	 * execution failed.
+	 */
 	public String output() throws IOException {
-
 		Output output = process.tryGet();
+		throwIfFailed(output);
+		return output.output().orElseThrow(() -> new IOException("Invalid process output"));
+	}
+
+	/**
+	 * Returns a reader of the process output that is consumed incrementally while reading. The
+	 * first line is read ahead, so errors of the process are thrown as {@link OpException}
+	 * immediately. Closing the reader destroys the process. The timeout only applies until the
+	 * first line is read, as the reader may be consumed slowly, e.g. with backpressure.
+	 */
+	public Reader reader() throws IOException {
+		AtomicBoolean timedOut = new AtomicBoolean();
+		ScheduledFuture<?> timer = null;
+		if (timeout != null) {
+			long remaining = timeout.minus(Duration.between(started, Instant.now())).toNanos();
+			timer = CallOptions.Watchdog.EXECUTOR.schedule(() -> {
+				timedOut.set(true);
+				destroy();
+			}, remaining, TimeUnit.NANOSECONDS);
+		}
+		try {
+			OutputReader reader = new OutputReader(process.withoutTimeout().stream().iterator());
+			reader.readAhead();
+			return reader;
+		} catch (IOException | RuntimeException e) {
+			closeQuietly();
+			if (timedOut.get()) {
+				throw new OpException(ErrorType.TIMEOUT, null,
+						"No output within the timeout of " + timeout, e);
+			}
+			throw e instanceof RuntimeException ? toOpException((RuntimeException) e)
+					: (IOException) e;
+		} finally {
+			if (timer != null) {
+				timer.cancel(false);
+			}
+		}
+	}
+
+	/**
+	 * Waits for the process and returns a reader of its complete output, which is spilled to a
+	 * temporary file if exceeding the given number of characters. Throws an {@link OpException}
+	 * classifying the error if execution failed.
+	 */
+	public Reader buffer(long threshold) throws IOException {
+		try {
+			StdoutLines output = new StdoutLines(process.streamOutputLines().iterator());
+			OutputBuffer buffer = OutputBuffer.of(output, threshold);
+			try {
+				// the process may fail after printing partial output, the error is on stderr
+				throwIfFailed(output.error.toString());
+			} catch (OpException e) {
+				buffer.close();
+				throw e;
+			}
+			return buffer;
+		} catch (RuntimeException e) {
+			process.close();
+			throw toOpException(e);
+		}
+	}
+
+	/** Closes the process, ignoring that it failed as the failure is already being handled. */
+	private void closeQuietly() {
+		try {
+			process.close();
+		} catch (RuntimeException e) {
+			// e.g. the exit code of a destroyed process
+		}
+	}
+
+	private void throwIfFailed(Output output) throws OpException {
 		Optional<String> error = output.error();
 		if (error.isPresent()) {
-			String errorString = CONFIG_LOCATION.matcher(error.get()).replaceAll("");
-			if (!errorString.isEmpty()) {
-				throw new IOException(errorString);
-			}
+			throwIfFailed(error.get());
 		}
 
 		Optional<Exception> exception = output.exception();
 		if (exception.isPresent()) {
-			throw new IOException(exception.get().getMessage(), exception.get());
+			throw toOpException(exception.get());
 		}
+	}
 
-		return output.output().orElseThrow(() -> new IOException("Invalid process output"));
+	/** Throws an {@link OpException} classifying the error output unless it is empty. */
+	private static void throwIfFailed(String error) throws OpException {
+		String errorString = CONFIG_LOCATION.matcher(error).replaceAll("");
+		if (!errorString.isEmpty()) {
+			throw new OpException(ErrorType.classify(errorString), null, errorString, null);
+		}
+	}
+
+	private static OpException toOpException(Exception exception) {
+		String message = exception.getMessage();
+		ErrorType type = ErrorType.classify(message);
+		if (type == ErrorType.UNKNOWN
+				&& exception.getClass().getSimpleName().toLowerCase().contains("timeout")) {
+			type = ErrorType.TIMEOUT;
+		}
+
+		Integer exitCode = null;
+		if (message != null) {
+			Matcher matcher = EXIT_CODE.matcher(message);
+			if (matcher.find()) {
+				exitCode = Integer.valueOf(matcher.group(1));
+			}
+		}
+
+		return new OpException(type, exitCode, message, exception);
+	}
+
+	/**
+	 * Iterator of the stdout lines of the process, collecting the stderr lines. Does not read from
+	 * the process anymore once the end has been reached, as the process is closed then.
+	 */
+	private static class StdoutLines implements Iterator<String> {
+		private final Iterator<OutputLine> lines;
+		private final StringBuilder error = new StringBuilder();
+		private String next = null;
+		private boolean end = false;
+
+		private StdoutLines(Iterator<OutputLine> lines) {
+			this.lines = lines;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (next == null && !end) {
+				if (!lines.hasNext()) {
+					end = true;
+				} else {
+					OutputLine line = lines.next();
+					if (line.isStdout()) {
+						next = line.line();
+					} else {
+						error.append(error.length() == 0 ? "" : "\n").append(line.line());
+					}
+				}
+			}
+			return next != null;
+		}
+
+		@Override
+		public String next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			String line = next;
+			next = null;
+			return line;
+		}
+	}
+
+	/** Reader joining the lines of the process output. */
+	private class OutputReader extends Reader {
+		private final Iterator<String> lines;
+		private String line = null;
+		private int position = 0;
+		private boolean empty = true;
+
+		private OutputReader(Iterator<String> lines) {
+			this.lines = lines;
+		}
+
+		/** Reads the next line if the current one is consumed. Returns false at the end. */
+		private boolean readAhead() throws IOException {
+			if (line != null && position < line.length()) {
+				return true;
+			}
+
+			try {
+				if (!lines.hasNext()) {
+					if (empty) {
+						// the process failed before printing anything, the error is on stderr
+						throwIfFailed(process.tryGet());
+					}
+					return false;
+				}
+
+				line = lines.next() + "\n";
+				position = 0;
+				empty = false;
+				return true;
+			} catch (RuntimeException e) {
+				throw toOpException(e);
+			}
+		}
+
+		@Override
+		public int read(char[] buffer, int offset, int length) throws IOException {
+			if (length == 0) {
+				return 0;
+			}
+
+			if (!readAhead()) {
+				return -1;
+			}
+
+			int count = Math.min(length, line.length() - position);
+			line.getChars(position, position + count, buffer, offset);
+			position += count;
+			return count;
+		}
+
+		@Override
+		public void close() {
+			process.close();
+		}
 	}
 
 	private static <T> T wrapExceptions(Supplier<T> action) throws IOException {
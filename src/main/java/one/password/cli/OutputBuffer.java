@@ -0,0 +1,171 @@
+package one.password.cli;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+
+/**
+ * Reader of the complete output of a finished process, either held as String or spilled to a
+ * temporary file and decoded from a read-only memory-mapped buffer, which is not part of the heap.
+ */
+final class OutputBuffer extends Reader {
+	private final long length;
+	private final ByteBuffer bytes;
+	private final CharsetDecoder decoder;
+	private final CharBuffer chars;
+	private final Path file;
+	private String string;
+	private int position = 0;
+	private boolean flushed = false;
+
+	private OutputBuffer(String string) {
+		this.length = string.length();
+		this.string = string;
+		this.bytes = null;
+		this.decoder = null;
+		this.chars = null;
+		this.file = null;
+	}
+
+	private OutputBuffer(long length, ByteBuffer bytes, Path file) {
+		this.length = length;
+		this.bytes = bytes;
+		this.decoder = StandardCharsets.UTF_8.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.chars = CharBuffer.allocate(8192);
+		this.chars.flip();
+		this.file = file;
+	}
+
+	/**
+	 * Buffers the given lines, spilling them to a temporary file once exceeding the threshold.
+	 */
+	static OutputBuffer of(Iterator<String> lines, long threshold) throws IOException {
+		StringBuilder builder = new StringBuilder();
+		while (lines.hasNext()) {
+			builder.append(lines.next()).append('\n');
+			if (builder.length() > threshold) {
+				return spill(builder, lines);
+			}
+		}
+		return new OutputBuffer(builder.toString());
+	}
+
+	private static OutputBuffer spill(StringBuilder builder, Iterator<String> lines)
+			throws IOException {
+		Path file = Files.createTempFile("op-", ".out");
+		try {
+			long length = builder.length();
+			try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+				writer.append(builder);
+				builder.setLength(0);
+				builder.trimToSize();
+				while (lines.hasNext()) {
+					String line = lines.next();
+					writer.write(line);
+					writer.write('\n');
+					length += line.length() + 1;
+				}
+			}
+
+			ByteBuffer bytes;
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				if (channel.size() > Integer.MAX_VALUE) {
+					throw new IOException("Output too large to map: " + channel.size());
+				}
+				bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			}
+
+			// the mapping stays valid, but some platforms refuse to delete mapped files
+			return new OutputBuffer(length, bytes, deleteIfPossible(file) ? null : file);
+		} catch (IOException | RuntimeException e) {
+			deleteIfPossible(file);
+			throw e;
+		}
+	}
+
+	private static boolean deleteIfPossible(Path file) {
+		try {
+			Files.deleteIfExists(file);
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/** Returns the length of the output in characters. */
+	long length() {
+		return length;
+	}
+
+	/** Returns whether the output has been spilled to a file. */
+	boolean isSpilled() {
+		return bytes != null;
+	}
+
+	@Override
+	public int read(char[] buffer, int offset, int count) throws IOException {
+		if (count == 0) {
+			return 0;
+		}
+
+		if (bytes == null) {
+			if (string == null) {
+				throw new IOException("Reader closed");
+			}
+			if (position >= string.length()) {
+				return -1;
+			}
+			int read = Math.min(count, string.length() - position);
+			string.getChars(position, position + read, buffer, offset);
+			position += read;
+			return read;
+		}
+
+		if (!chars.hasRemaining() && !decode()) {
+			return -1;
+		}
+		int read = Math.min(count, chars.remaining());
+		chars.get(buffer, offset, read);
+		return read;
+	}
+
+	/** Decodes the next chunk of the mapped file. Returns false at the end. */
+	private boolean decode() throws IOException {
+		if (flushed) {
+			return false;
+		}
+
+		chars.clear();
+		CoderResult result = decoder.decode(bytes, chars, true);
+		if (result.isUnderflow()) {
+			result = decoder.flush(chars);
+			flushed = result.isUnderflow();
+		}
+		if (result.isError()) {
+			result.throwException();
+		}
+		chars.flip();
+		return chars.hasRemaining();
+	}
+
+	@Override
+	public void close() throws IOException {
+		string = null;
+		if (file != null && !deleteIfPossible(file)) {
+			file.toFile().deleteOnExit();
+		}
+	}
+}
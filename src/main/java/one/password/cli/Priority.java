@@ -0,0 +1,11 @@
+package one.password.cli;
+
+/** Priority classes of 1password CLI commands, see {@link LaneScheduler}. */
+public enum Priority {
+	/** Commands a user is waiting for, e.g. triggered by a UI. */
+	INTERACTIVE,
+	/** Commands without explicit priority. */
+	DEFAULT,
+	/** Background work like syncs or imports. */
+	BULK;
+}
@@ -0,0 +1,30 @@
+package one.password.cli;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Descendants of a 1password CLI process. Java 8 cannot enumerate processes, so destroying is a
+ * no-op and only the CLI process itself is destroyed; the multi-release layer for Java 21 replaces
+ * this class.
+ */
+final class ProcessTree {
+	private ProcessTree() {
+	}
+
+	/** Captures the descendants of child processes running the command started after the time. */
+	static ProcessTree descendants(List<String> command, Instant startedAfter) {
+		return new ProcessTree();
+	}
+
+	/** Returns whether a cache daemon of the executable is running, which is unknown on Java 8. */
+	static Optional<Boolean> isDaemonRunning(String executable) {
+		return Optional.empty();
+	}
+
+	/** Forcibly destroys the captured processes. */
+	void destroy() {
+		// not supported
+	}
+}
@@ -0,0 +1,102 @@
+package one.password.cli;
+
+import java.time.Duration;
+
+/**
+ * Settings for adaptively throttling 1password CLI commands per account. Commands are limited by a
+ * token bucket whose rate follows additive increase / multiplicative decrease (AIMD): each
+ * successful command increases the rate by a constant, each rate-limit error reported by the
+ * server multiplies it by a factor below 1.
+ */
+public class RateLimit {
+	private double initialRate = 5;
+	private double minRate = 0.2;
+	private double maxRate = 50;
+	private double additiveIncrease = 0.2;
+	private double multiplicativeDecrease = 0.5;
+	private int burst = 5;
+	private Duration decreaseInterval = Duration.ofSeconds(1);
+
+	public double getInitialRate() {
+		return initialRate;
+	}
+
+	/** Sets the initial number of commands per second. */
+	public RateLimit setInitialRate(double initialRate) {
+		this.initialRate = initialRate;
+		return this;
+	}
+
+	public double getMinRate() {
+		return minRate;
+	}
+
+	/** Sets the minimum number of commands per second. Must be positive. */
+	public RateLimit setMinRate(double minRate) throws IllegalArgumentException {
+		if (minRate <= 0) {
+			throw new IllegalArgumentException("The minimum rate must be positive: " + minRate);
+		}
+
+		this.minRate = minRate;
+		return this;
+	}
+
+	public double getMaxRate() {
+		return maxRate;
+	}
+
+	/** Sets the maximum number of commands per second. */
+	public RateLimit setMaxRate(double maxRate) {
+		this.maxRate = maxRate;
+		return this;
+	}
+
+	public double getAdditiveIncrease() {
+		return additiveIncrease;
+	}
+
+	/** Sets the number of commands per second the rate is increased by on success. */
+	public RateLimit setAdditiveIncrease(double additiveIncrease) {
+		this.additiveIncrease = additiveIncrease;
+		return this;
+	}
+
+	public double getMultiplicativeDecrease() {
+		return multiplicativeDecrease;
+	}
+
+	/** Sets the factor between 0 and 1 the rate is multiplied with on rate-limit errors. */
+	public RateLimit setMultiplicativeDecrease(double multiplicativeDecrease)
+			throws IllegalArgumentException {
+		if (multiplicativeDecrease <= 0 || multiplicativeDecrease >= 1) {
+			throw new IllegalArgumentException(
+					"The decrease factor must be between 0 and 1: " + multiplicativeDecrease);
+		}
+
+		this.multiplicativeDecrease = multiplicativeDecrease;
+		return this;
+	}
+
+	public int getBurst() {
+		return burst;
+	}
+
+	/** Sets the number of commands that may be started at once after an idle period. */
+	public RateLimit setBurst(int burst) {
+		this.burst = Math.max(1, burst);
+		return this;
+	}
+
+	public Duration getDecreaseInterval() {
+		return decreaseInterval;
+	}
+
+	/**
+	 * Sets the minimum interval between two decreases, so a burst of rate-limit errors caused by
+	 * the same overload only decreases the rate once.
+	 */
+	public RateLimit setDecreaseInterval(Duration decreaseInterval) {
+		this.decreaseInterval = decreaseInterval;
+		return this;
+	}
+}
@@ -0,0 +1,109 @@
+package one.password.cli;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/** Adaptive token bucket limiting the rate of 1password CLI commands of a single account. */
+public class RateLimiter {
+	private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private final RateLimit settings;
+	private double rate;
+	private double tokens;
+	private long refilledAt;
+	private long decreasedAt;
+
+	RateLimiter(RateLimit settings) {
+		this.settings = settings;
+		this.rate = Math.max(settings.getMinRate(),
+				Math.min(settings.getMaxRate(), settings.getInitialRate()));
+		this.tokens = settings.getBurst();
+		this.refilledAt = System.nanoTime();
+		this.decreasedAt = refilledAt - settings.getDecreaseInterval().toNanos();
+	}
+
+	/** Returns the current number of commands per second. */
+	public synchronized double getRate() {
+		return rate;
+	}
+
+	/**
+	 * Blocks until a command may be started. Waiting stops at the deadline or on cancellation of
+	 * the given options, which fails with {@link ErrorType#TIMEOUT} or
+	 * {@link ErrorType#CANCELLED} and returns the reserved token.
+	 */
+	public void acquire(CallOptions options) throws IOException {
+		long waitNanos = reserve();
+		if (waitNanos <= 0) {
+			return;
+		}
+
+		CountDownLatch cancelled = new CountDownLatch(1);
+		CancellationToken.Registration registration = options.getCancellation()
+				.map(token -> token.onCancel(cancelled::countDown)).orElse(null);
+		try {
+			long remainingNanos = options.getRemaining().map(Duration::toNanos)
+					.orElse(Long.MAX_VALUE);
+			cancelled.await(Math.max(0, Math.min(waitNanos, remainingNanos)),
+					TimeUnit.NANOSECONDS);
+			options.checkActive();
+		} catch (InterruptedException e) {
+			unreserve();
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for rate limit");
+		} catch (OpException e) {
+			unreserve();
+			throw e;
+		} finally {
+			if (registration != null) {
+				registration.close();
+			}
+		}
+	}
+
+	/** Takes a token and returns the nanoseconds to wait until it becomes valid. */
+	synchronized long reserve() {
+		refill();
+		tokens -= 1;
+		if (tokens >= 0) {
+			return 0;
+		}
+
+		return (long) (-tokens / rate * NANOS_PER_SECOND);
+	}
+
+	/** Returns a token reserved by a command that is not started. */
+	private synchronized void unreserve() {
+		refill();
+		tokens = Math.min(settings.getBurst(), tokens + 1);
+	}
+
+	/** Additively increases the rate after a successful command. */
+	public synchronized void onSuccess() {
+		refill();
+		rate = Math.min(settings.getMaxRate(), rate + settings.getAdditiveIncrease());
+	}
+
+	/** Multiplicatively decreases the rate after the server reported a rate-limit error. */
+	public synchronized void onRateLimited() {
+		refill();
+		long now = System.nanoTime();
+		if (now - decreasedAt < settings.getDecreaseInterval().toNanos()) {
+			return;
+		}
+
+		decreasedAt = now;
+		rate = Math.max(settings.getMinRate(), rate * settings.getMultiplicativeDecrease());
+		tokens = Math.min(tokens, 0);
+	}
+
+	private void refill() {
+		long now = System.nanoTime();
+		tokens = Math.min(settings.getBurst(),
+				tokens + (now - refilledAt) * rate / NANOS_PER_SECOND);
+		refilledAt = now;
+	}
+}
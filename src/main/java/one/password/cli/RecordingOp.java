@@ -0,0 +1,93 @@
+package one.password.cli;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import one.password.Session;
+import one.password.util.SupplierWithException;
+
+/**
+ * Decorates an {@link Op} and records the redacted arguments, stdin input, output, error and
+ * latency of each invocation into a {@link Transcript}, which can be served later by
+ * {@link ReplayOp}. Session tokens returned by signin are not recorded. Streamed output is buffered
+ * in order to record it.
+ */
+public class RecordingOp extends Op implements Closeable {
+	private final Op delegate;
+	private final Transcript.Recorder recorder;
+
+	public RecordingOp(Op delegate, Path transcript) throws IOException {
+		super(delegate.getConfig());
+		this.delegate = delegate;
+		this.recorder = new Transcript.Recorder(transcript);
+	}
+
+	@Override
+	public Session signin(String signInAddress, String emailAddress, String secretKey,
+			Supplier<String> password, Session session) throws IOException {
+		String[] arguments = {Commands.SIGNIN.toString(), signInAddress, emailAddress, secretKey};
+		return record(arguments, null,
+				() -> delegate.signin(signInAddress, emailAddress, secretKey, password, session),
+				newSession -> Invocation.REDACTED);
+	}
+
+	@Override
+	public String execute(Session session, String... arguments) throws IOException {
+		return record(arguments, null, () -> delegate.execute(session, arguments),
+				output -> output);
+	}
+
+	@Override
+	public String executeWithInput(Session session, String input, String... arguments)
+			throws IOException {
+		return record(arguments, input,
+				() -> delegate.executeWithInput(session, input, arguments), output -> output);
+	}
+
+	@Override
+	public Reader stream(Session session, String... arguments) throws IOException {
+		String output = record(arguments, null, () -> {
+			try (Reader reader = delegate.stream(session, arguments)) {
+				StringBuilder builder = new StringBuilder();
+				char[] buffer = new char[8192];
+				for (int read; (read = reader.read(buffer)) >= 0;) {
+					builder.append(buffer, 0, read);
+				}
+				return builder.toString();
+			}
+		}, recorded -> recorded);
+		return new StringReader(output);
+	}
+
+	@Override
+	public Reader read(Session session, String... arguments) throws IOException {
+		return new StringReader(execute(session, arguments));
+	}
+
+	private <T> T record(String[] arguments, String input,
+			SupplierWithException<T, IOException> action, Function<T, String> recordedOutput)
+			throws IOException {
+		long start = System.nanoTime();
+		try {
+			T result = action.get();
+			recorder.record(new Transcript.Entry(Invocation.redact(arguments), input,
+					recordedOutput.apply(result), null, System.nanoTime() - start));
+			return result;
+		} catch (IOException e) {
+			OpException error = e instanceof OpException ? (OpException) e
+					: new OpException(ErrorType.classify(e), e.getMessage());
+			recorder.record(new Transcript.Entry(Invocation.redact(arguments), input, null,
+					error, System.nanoTime() - start));
+			throw e;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		recorder.close();
+	}
+}
@@ -0,0 +1,116 @@
+package one.password.cli;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import one.password.Config;
+import one.password.Session;
+
+/**
+ * {@link Op} serving invocations from a {@link Transcript} recorded by {@link RecordingOp} instead
+ * of running the 1password CLI. Invocations are matched by their redacted arguments and stdin
+ * input; if the same invocation was recorded multiple times, the recorded results are served
+ * round-robin, so a transcript may be replayed with more concurrency or repetitions than recorded.
+ * The recorded latency is divided by the speed factor; a speed of 0 serves without delay.
+ */
+public class ReplayOp extends Op {
+	private static final Session SESSION = new Session(Invocation.REDACTED, "replay");
+
+	private final Map<List<?>, Recorded> recordings = new HashMap<>();
+	private final double speed;
+
+	public ReplayOp(Path transcript, double speed) throws IOException {
+		this(new Config(), Transcript.read(transcript), speed);
+	}
+
+	public ReplayOp(Config config, List<Transcript.Entry> entries, double speed)
+			throws IllegalArgumentException {
+		super(config);
+		if (speed < 0) {
+			throw new IllegalArgumentException("The speed must not be negative: " + speed);
+		}
+
+		this.speed = speed;
+		for (Transcript.Entry entry : entries) {
+			recordings.computeIfAbsent(Arrays.asList(entry.getArguments(), entry.getInput()),
+					key -> new Recorded()).entries.add(entry);
+		}
+	}
+
+	@Override
+	public Session signin(String signInAddress, String emailAddress, String secretKey,
+			Supplier<String> password, Session session) throws IOException {
+		replay(null, Commands.SIGNIN.toString(), signInAddress, emailAddress, secretKey);
+		return SESSION;
+	}
+
+	@Override
+	public String execute(Session session, String... arguments) throws IOException {
+		return replay(null, arguments);
+	}
+
+	@Override
+	public String executeWithInput(Session session, String input, String... arguments)
+			throws IOException {
+		return replay(input, arguments);
+	}
+
+	@Override
+	public Reader stream(Session session, String... arguments) throws IOException {
+		return new StringReader(replay(null, arguments));
+	}
+
+	@Override
+	public Reader read(Session session, String... arguments) throws IOException {
+		return new StringReader(replay(null, arguments));
+	}
+
+	private String replay(String input, String... arguments) throws IOException {
+		List<String> redacted = Invocation.redact(arguments);
+		Recorded recorded = recordings.get(Arrays.asList(redacted, input));
+		if (recorded == null) {
+			throw new OpException(ErrorType.UNKNOWN, "No recorded invocation for: " + redacted
+					+ (input == null ? "" : " with input " + input));
+		}
+
+		Transcript.Entry entry = recorded.next();
+		delay(entry.getNanos());
+		if (entry.getError() != null) {
+			throw entry.getError();
+		}
+		return entry.getOutput();
+	}
+
+	private void delay(long nanos) throws InterruptedIOException {
+		if (speed == 0) {
+			return;
+		}
+
+		try {
+			TimeUnit.NANOSECONDS.sleep((long) (nanos / speed));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while replaying");
+		}
+	}
+
+	/** Recorded entries for the same arguments. */
+	private static class Recorded {
+		private final List<Transcript.Entry> entries = new ArrayList<>();
+		private final AtomicInteger next = new AtomicInteger();
+
+		private Transcript.Entry next() {
+			return entries.get(Math.floorMod(next.getAndIncrement(), entries.size()));
+		}
+	}
+}
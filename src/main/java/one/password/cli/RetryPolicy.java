@@ -0,0 +1,113 @@
+package one.password.cli;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Policy for retrying idempotent 1password CLI commands that failed with a transient error. The
+ * delay between attempts grows exponentially and is randomized by a jitter factor. Timeouts are not
+ * retried by default, as each attempt may take the whole process timeout.
+ */
+public class RetryPolicy {
+	private int maxAttempts = 3;
+	private Duration initialBackoff = Duration.ofMillis(200);
+	private Duration maxBackoff = Duration.ofSeconds(5);
+	private double multiplier = 2;
+	private double jitter = 0.5;
+	private Set<ErrorType> retryOn =
+			EnumSet.of(ErrorType.RATE_LIMIT, ErrorType.NETWORK, ErrorType.SERVER);
+
+	/** Returns a policy that never retries. */
+	public static RetryPolicy none() {
+		return new RetryPolicy().setMaxAttempts(1);
+	}
+
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	/** Sets the maximum number of attempts including the first one. */
+	public RetryPolicy setMaxAttempts(int maxAttempts) throws IllegalArgumentException {
+		if (maxAttempts < 1) {
+			throw new IllegalArgumentException("At least one attempt is required: " + maxAttempts);
+		}
+
+		this.maxAttempts = maxAttempts;
+		return this;
+	}
+
+	public Duration getInitialBackoff() {
+		return initialBackoff;
+	}
+
+	public RetryPolicy setInitialBackoff(Duration initialBackoff) {
+		this.initialBackoff = initialBackoff;
+		return this;
+	}
+
+	public Duration getMaxBackoff() {
+		return maxBackoff;
+	}
+
+	public RetryPolicy setMaxBackoff(Duration maxBackoff) {
+		this.maxBackoff = maxBackoff;
+		return this;
+	}
+
+	public double getMultiplier() {
+		return multiplier;
+	}
+
+	/** Sets the factor the backoff grows with on each attempt. */
+	public RetryPolicy setMultiplier(double multiplier) throws IllegalArgumentException {
+		if (multiplier < 1) {
+			throw new IllegalArgumentException("The multiplier must not be less than 1");
+		}
+
+		this.multiplier = multiplier;
+		return this;
+	}
+
+	public double getJitter() {
+		return jitter;
+	}
+
+	/**
+	 * Sets the jitter factor between 0 and 1. A jitter of 0.5 randomizes the backoff between 50%
+	 * and 100% of the exponential value, 0 disables randomization.
+	 */
+	public RetryPolicy setJitter(double jitter) throws IllegalArgumentException {
+		if (jitter < 0 || jitter > 1) {
+			throw new IllegalArgumentException("The jitter must be between 0 and 1: " + jitter);
+		}
+
+		this.jitter = jitter;
+		return this;
+	}
+
+	/**
+	 * Sets the error types that are retried, by default {@link ErrorType#RATE_LIMIT},
+	 * {@link ErrorType#NETWORK} and {@link ErrorType#SERVER}.
+	 */
+	public RetryPolicy setRetryOn(ErrorType... types) {
+		this.retryOn = EnumSet.noneOf(ErrorType.class);
+		this.retryOn.addAll(Arrays.asList(types));
+		return this;
+	}
+
+	/** Returns whether a command that failed in the given attempt (starting at 1) is retried. */
+	public boolean shouldRetry(ErrorType type, int attempt) {
+		return attempt < maxAttempts && retryOn.contains(type);
+	}
+
+	/** Returns the delay before the next attempt after the given attempt (starting at 1) failed. */
+	public Duration backoff(int attempt) {
+		double exponential = initialBackoff.toNanos() * Math.pow(multiplier, attempt - 1);
+		double capped = Math.min(exponential, maxBackoff.toNanos());
+		double randomized = capped * (1 - jitter * ThreadLocalRandom.current().nextDouble());
+		return Duration.ofNanos((long) randomized);
+	}
+}
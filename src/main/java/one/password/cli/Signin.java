@@ -0,0 +1,53 @@
+package one.password.cli;
+
+/** A signin as reported to {@link OpListener}s. */
+public class Signin {
+	/** The reason for signing in. */
+	public enum Cause {
+		/** First signin as no session existed. */
+		INITIAL,
+
+		/** Signin because the session expired or was signed out. */
+		EXPIRED,
+
+		/** Signin requested explicitly by the API user. */
+		EXPLICIT
+	}
+
+	private final String shorthand;
+	private final Cause cause;
+	private final String reason;
+	private final long nanos;
+	private final boolean successful;
+
+	public Signin(String shorthand, Cause cause, String reason, long nanos, boolean successful) {
+		this.shorthand = shorthand;
+		this.cause = cause;
+		this.reason = reason;
+		this.nanos = nanos;
+		this.successful = successful;
+	}
+
+	/** Returns the account shorthand or null if not known. */
+	public String getShorthand() {
+		return shorthand;
+	}
+
+	public Cause getCause() {
+		return cause;
+	}
+
+	/** Returns the error message that caused an {@link Cause#EXPIRED} signin, null otherwise. */
+	public String getReason() {
+		return reason;
+	}
+
+	/** Returns the nanoseconds the signin took. */
+	public long getNanos() {
+		return nanos;
+	}
+
+	public boolean isSuccessful() {
+		return successful;
+	}
+}
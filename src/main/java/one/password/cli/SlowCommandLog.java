@@ -0,0 +1,269 @@
+package one.password.cli;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import one.password.util.Json;
+
+/**
+ * {@link OpListener} reporting a structured {@link Record} for each CLI invocation that took at
+ * least a threshold, and for a sample of faster ones. Register via
+ * {@link one.password.Config#addListener(OpListener)}. Arguments are redacted as by
+ * {@link Invocation#redact(String...)}, so records contain no session tokens or secret keys;
+ * passwords are piped to the CLI and never part of the arguments.
+ *
+ * <p>
+ * A record covers the invocation and, if the output is deserialized on the same thread by the
+ * high-level commands, the parsing. It also reports a signin preceding the invocation on the same
+ * thread, e.g. a re-signin after the session expired, and the entity command that invoked the
+ * CLI, e.g. "UserCommand.suspend".
+ */
+public class SlowCommandLog implements OpListener {
+	private static final String COMMAND_CLASS_PREFIX = "one.password.OnePasswordBase$";
+	private static final String QUEUE_CLASS = "one.password.MutationQueue";
+	private static final List<String> PARSED_COMMANDS = Arrays.asList(Commands.GET.toString(),
+			Commands.LIST.toString(), Commands.CREATE.toString());
+
+	private final long thresholdNanos;
+	private final Consumer<Record> sink;
+	private final ThreadLocal<Pending> pending = ThreadLocal.withInitial(Pending::new);
+	private double sampleRate = 0;
+
+	/** Reports invocations taking at least the threshold to the given sink, e.g. a logger. */
+	public SlowCommandLog(Duration threshold, Consumer<Record> sink) {
+		this.thresholdNanos = threshold.toNanos();
+		this.sink = sink;
+	}
+
+	/**
+	 * Sets the fraction between 0 and 1 of invocations faster than the threshold that are reported
+	 * nonetheless, defaults to 0.
+	 */
+	public SlowCommandLog setSampleRate(double sampleRate) {
+		if (sampleRate < 0 || sampleRate > 1) {
+			throw new IllegalArgumentException("The sample rate must be between 0 and 1");
+		}
+		this.sampleRate = sampleRate;
+		return this;
+	}
+
+	@Override
+	public void onStart(Invocation invocation) {
+		// the output of the previous invocation was not parsed on this thread
+		flush(pending.get());
+	}
+
+	@Override
+	public void onCommand(Invocation invocation) {
+		Pending state = pending.get();
+		flush(state);
+		Record record = new Record(invocation, state.signin);
+		state.signin = null;
+		// sampled once per invocation, before parsing may make it slow
+		record.reported = isSlow(record) || (sampleRate > 0
+				&& ThreadLocalRandom.current().nextDouble() < sampleRate);
+
+		if (invocation.getError() == null && invocation.getOutputSize() > 0
+				&& PARSED_COMMANDS.contains(invocation.getCommand())) {
+			if (!record.reported) {
+				// reported only if parsing makes it slow, which looks up the caller then
+				state.record = record;
+				return;
+			}
+
+			record.caller = caller(new Throwable().getStackTrace());
+			if (record.caller != null) {
+				// high-level commands parse the output on this thread, even if that fails
+				state.record = record;
+				return;
+			}
+			report(record, false);
+			return;
+		}
+		report(record, true);
+	}
+
+	@Override
+	public void onSignin(Signin signin) {
+		pending.get().signin = signin;
+	}
+
+	@Override
+	public void onParse(Class<?> type, long size, long nanos) {
+		Pending state = pending.get();
+		if (state.record != null) {
+			state.record.parseNanos = nanos;
+			flush(state, true);
+		}
+	}
+
+	private void flush(Pending state) {
+		flush(state, false);
+	}
+
+	private void flush(Pending state, boolean lookupCaller) {
+		if (state.record != null) {
+			Record record = state.record;
+			state.record = null;
+			report(record, lookupCaller);
+		}
+	}
+
+	private boolean isSlow(Record record) {
+		return record.getTotalNanos() >= thresholdNanos;
+	}
+
+	/** Reports slow or sampled records, looking up the caller only for those. */
+	private void report(Record record, boolean lookupCaller) {
+		boolean slow = isSlow(record);
+		if (!slow && !record.reported) {
+			return;
+		}
+
+		record.sampled = !slow;
+		if (lookupCaller && record.caller == null) {
+			record.caller = caller(new Throwable().getStackTrace());
+		}
+		sink.accept(record);
+	}
+
+	/**
+	 * Returns the outermost high-level command on the stack, e.g. "UserCommand.suspend", or null if
+	 * the CLI was not invoked by one.
+	 */
+	static String caller(StackTraceElement[] stack) {
+		for (int i = stack.length - 1; i >= 0; i--) {
+			String type = stack[i].getClassName();
+			String method = stack[i].getMethodName();
+			if (method.startsWith("lambda$") || type.matches(".*\\$\\d+$")) {
+				continue;
+			}
+			if (type.startsWith(COMMAND_CLASS_PREFIX)) {
+				return type.substring(COMMAND_CLASS_PREFIX.length()) + "." + method;
+			}
+			if (type.equals(QUEUE_CLASS)) {
+				return "MutationQueue." + method;
+			}
+		}
+		return null;
+	}
+
+	/** Per-thread state of invocations awaiting their parsing and of signins. */
+	private static class Pending {
+		private Record record;
+		private Signin signin;
+	}
+
+	/** A reported CLI invocation, serialized as JSON object by {@link #toString()}. */
+	public static class Record {
+		private final String command;
+		private final List<String> arguments;
+		private String caller;
+		private final int attempt;
+		private final ErrorType error;
+		private final Signin.Cause signin;
+		private final long signinNanos;
+		private final long queueNanos;
+		private final long spawnNanos;
+		private final long runNanos;
+		private long parseNanos = -1;
+		private final long outputSize;
+		private boolean sampled;
+		/** Whether the invocation is reported regardless of parsing, i.e. slow or sampled. */
+		private transient boolean reported;
+
+		private Record(Invocation invocation, Signin signin) {
+			this.command = invocation.getCommand();
+			this.arguments = invocation.getArguments();
+			this.attempt = invocation.getAttempt();
+			this.error = invocation.getError() == null ? null : invocation.getError().getType();
+			this.signin = signin == null ? null : signin.getCause();
+			this.signinNanos = signin == null ? -1 : signin.getNanos();
+			this.queueNanos = invocation.getQueueNanos();
+			this.spawnNanos = invocation.getSpawnNanos();
+			this.runNanos = invocation.getWaitNanos();
+			this.outputSize = invocation.getOutputSize();
+		}
+
+		/** Returns the command, e.g. "list". */
+		public String getCommand() {
+			return command;
+		}
+
+		/** Returns all arguments including the command with secrets redacted. */
+		public List<String> getArguments() {
+			return arguments;
+		}
+
+		/** Returns the high-level command that invoked the CLI or null if not known. */
+		public String getCaller() {
+			return caller;
+		}
+
+		/** Returns the attempt starting at 1, i.e. a value greater than 1 denotes a retry. */
+		public int getAttempt() {
+			return attempt;
+		}
+
+		/** Returns the type of the error if the invocation failed, null otherwise. */
+		public ErrorType getError() {
+			return error;
+		}
+
+		/**
+		 * Returns the cause of a signin preceding the invocation on the same thread, e.g.
+		 * {@link Signin.Cause#EXPIRED} for a re-signin, or null if none.
+		 */
+		public Signin.Cause getSignin() {
+			return signin;
+		}
+
+		/** Returns the nanoseconds of the preceding signin or -1 if none. */
+		public long getSigninNanos() {
+			return signinNanos;
+		}
+
+		/** Returns the nanoseconds waited for a process slot or -1 if not scheduled. */
+		public long getQueueNanos() {
+			return queueNanos;
+		}
+
+		/** Returns the nanoseconds it took to start the process or -1 if not started. */
+		public long getSpawnNanos() {
+			return spawnNanos;
+		}
+
+		/** Returns the nanoseconds the process ran until its output was read or -1 if unknown. */
+		public long getRunNanos() {
+			return runNanos;
+		}
+
+		/** Returns the nanoseconds it took to deserialize the output or -1 if not parsed. */
+		public long getParseNanos() {
+			return parseNanos;
+		}
+
+		/** Returns the sum of all known durations except the signin. */
+		public long getTotalNanos() {
+			return Math.max(queueNanos, 0) + Math.max(spawnNanos, 0) + Math.max(runNanos, 0)
+					+ Math.max(parseNanos, 0);
+		}
+
+		/** Returns the size of the output in characters or -1 if unknown. */
+		public long getOutputSize() {
+			return outputSize;
+		}
+
+		/** Returns whether the invocation was faster than the threshold and sampled. */
+		public boolean isSampled() {
+			return sampled;
+		}
+
+		@Override
+		public String toString() {
+			return Json.serialize(this);
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package one.password.cli;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import one.password.util.Json;
+
+/**
+ * Transcript of recorded 1password CLI invocations. Stored as one JSON object per line, gzip
+ * compressed if the file name ends with ".gz".
+ */
+public class Transcript {
+	private Transcript() {
+	}
+
+	/** A single recorded invocation. */
+	public static class Entry {
+		private final List<String> arguments;
+		private final String input;
+		private final String output;
+		private final String error;
+		private final ErrorType errorType;
+		private final long nanos;
+
+		Entry(List<String> arguments, String input, String output, OpException error,
+				long nanos) {
+			this.arguments = arguments;
+			this.input = input;
+			this.output = output;
+			this.error = error == null ? null : error.getMessage();
+			this.errorType = error == null ? null : error.getType();
+			this.nanos = nanos;
+		}
+
+		/** Returns the arguments including the command with secrets redacted. */
+		public List<String> getArguments() {
+			return arguments;
+		}
+
+		/** Returns the input written to stdin, null if none. */
+		public String getInput() {
+			return input;
+		}
+
+		/** Returns the output of a successful invocation, null otherwise. */
+		public String getOutput() {
+			return output;
+		}
+
+		/** Returns the error of a failed invocation, null otherwise. */
+		public OpException getError() {
+			if (errorType == null) {
+				return null;
+			}
+
+			return new OpException(errorType, error);
+		}
+
+		/** Returns the recorded latency in nanoseconds. */
+		public long getNanos() {
+			return nanos;
+		}
+	}
+
+	/** Reads all entries of a transcript file. */
+	public static List<Entry> read(Path path) throws IOException {
+		List<Entry> entries = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(open(path), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (!line.isEmpty()) {
+					entries.add(Json.deserialize(line, Entry.class));
+				}
+			}
+		}
+		return entries;
+	}
+
+	private static InputStream open(Path path) throws IOException {
+		InputStream stream = Files.newInputStream(path);
+		if (isCompressed(path)) {
+			return new GZIPInputStream(stream);
+		}
+		return stream;
+	}
+
+	private static boolean isCompressed(Path path) {
+		return path.getFileName().toString().endsWith(".gz");
+	}
+
+	/** Appends entries to a transcript file. Thread-safe. */
+	static class Recorder implements Closeable {
+		private final Writer writer;
+
+		Recorder(Path path) throws IOException {
+			OutputStream stream = Files.newOutputStream(path, StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+			if (isCompressed(path)) {
+				stream = new GZIPOutputStream(stream);
+			}
+			writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+		}
+
+		synchronized void record(Entry entry) throws IOException {
+			writer.write(Json.serialize(entry));
+			writer.write('\n');
+		}
+
+		@Override
+		public synchronized void close() throws IOException {
+			writer.close();
+		}
+	}
+}
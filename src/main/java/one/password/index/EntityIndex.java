@@ -0,0 +1,98 @@
+package one.password.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import one.password.Entity;
+
+/**
+ * Immutable in-memory snapshot of entities, e.g. the result of {@code groups().list()}, with hash
+ * indexes on the id and the case-insensitive secondary id (name or email). Rebuild the index to
+ * pick up changes.
+ */
+public class EntityIndex<E extends Entity.Base> {
+	/** The indexed entities, the position in this list is the key of all indexes. */
+	protected final List<E> entities;
+
+	private final Map<String, Integer> byId;
+	private final Map<String, BitSet> bySecondaryId;
+
+	public EntityIndex(E[] entities) {
+		this(Arrays.asList(entities));
+	}
+
+	public EntityIndex(Collection<? extends E> entities) {
+		this.entities = Collections.unmodifiableList(new ArrayList<>(entities));
+		this.byId = new HashMap<>(capacity(entities.size()));
+		this.bySecondaryId = new HashMap<>(capacity(entities.size()));
+		for (int i = 0; i < this.entities.size(); i++) {
+			E entity = this.entities.get(i);
+			byId.put(entity.getId(), i);
+			add(bySecondaryId, normalize(entity.getSecondaryId()), i);
+		}
+	}
+
+	/** Returns the number of indexed entities. */
+	public int size() {
+		return entities.size();
+	}
+
+	/** Returns all indexed entities. */
+	public List<E> all() {
+		return entities;
+	}
+
+	/** Returns the entity with the given uuid. */
+	public Optional<E> get(String id) {
+		Integer position = byId.get(id);
+		if (position == null) {
+			return Optional.empty();
+		}
+		return Optional.of(entities.get(position));
+	}
+
+	/**
+	 * Returns the entities with the given secondary id, e.g. the name of a group or vault, ignoring
+	 * case.
+	 */
+	public List<E> getBySecondaryId(String secondaryId) {
+		return select(bySecondaryId.get(normalize(secondaryId)));
+	}
+
+	/** Returns the entities at the set positions. */
+	protected List<E> select(BitSet positions) {
+		if (positions == null) {
+			return Collections.emptyList();
+		}
+
+		List<E> selected = new ArrayList<>(positions.cardinality());
+		positions.stream().forEach(position -> selected.add(entities.get(position)));
+		return selected;
+	}
+
+	/** Sets the position in the bitset of the given key, creating it if needed. */
+	protected static void add(Map<String, BitSet> index, String key, int position) {
+		if (key != null) {
+			index.computeIfAbsent(key, k -> new BitSet()).set(position);
+		}
+	}
+
+	/** Normalizes a key for case-insensitive lookups. */
+	protected static String normalize(String key) {
+		if (key == null) {
+			return null;
+		}
+		return key.toLowerCase(Locale.ROOT);
+	}
+
+	private static int capacity(int size) {
+		return (int) (size / 0.75f) + 1;
+	}
+}
@@ -0,0 +1,220 @@
+package one.password.index;
+
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import one.password.User;
+
+/**
+ * Immutable in-memory snapshot of users, e.g. the result of {@code users().list()}, with bitset
+ * indexes on state, type, email domain and language and a sorted index on the last
+ * authentication. Filters are answered via {@link #query()} without scanning all users.
+ */
+public class UserIndex extends EntityIndex<User> {
+	/** The indexed states of a user. */
+	public enum State {
+		ACTIVE(User::isActive), //
+		SUSPENDED(User::isSuspended), //
+		INVITED(User::isInvited), //
+		PENDING_CONFIRMATION(User::isPendingConfirmation), //
+		GUEST(User::isGuest);
+
+		private final Predicate<User> predicate;
+
+		private State(Predicate<User> predicate) {
+			this.predicate = predicate;
+		}
+	}
+
+	private final Map<State, BitSet> byState = new EnumMap<>(State.class);
+	private final Map<String, BitSet> byName = new HashMap<>();
+	private final Map<String, BitSet> byDomain = new HashMap<>();
+	private final Map<String, BitSet> byLanguage = new HashMap<>();
+
+	/** Marker for users that never authenticated. */
+	private static final long NEVER = Long.MIN_VALUE;
+
+	/** Epoch milliseconds of the last authentication of each user, or {@link #NEVER}. */
+	private final long[] lastAuthAtByPosition;
+	/** Epoch milliseconds of the last authentication in ascending order. */
+	private final long[] lastAuthAt;
+	/** Positions of the users in the order of {@link #lastAuthAt}. */
+	private final int[] lastAuthAtPositions;
+
+	public UserIndex(User[] users) {
+		this(Arrays.asList(users));
+	}
+
+	public UserIndex(Collection<User> users) {
+		super(users);
+		for (State state : State.values()) {
+			byState.put(state, new BitSet(size()));
+		}
+
+		for (int i = 0; i < size(); i++) {
+			User user = entities.get(i);
+			for (State state : State.values()) {
+				if (state.predicate.test(user)) {
+					byState.get(state).set(i);
+				}
+			}
+			add(byName, normalize(user.getName()), i);
+			add(byDomain, domain(user.getEmail()), i);
+			add(byLanguage, normalize(user.getLanguage()), i);
+		}
+
+		lastAuthAtByPosition = new long[size()];
+		for (int i = 0; i < size(); i++) {
+			ZonedDateTime time = entities.get(i).getLastAuthAt();
+			lastAuthAtByPosition[i] = time == null ? NEVER : time.toInstant().toEpochMilli();
+		}
+		lastAuthAtPositions = IntStream.range(0, size())
+				.filter(i -> lastAuthAtByPosition[i] != NEVER).boxed()
+				.sorted((a, b) -> Long.compare(lastAuthAtByPosition[a], lastAuthAtByPosition[b]))
+				.mapToInt(Integer::intValue).toArray();
+		lastAuthAt = Arrays.stream(lastAuthAtPositions).mapToLong(i -> lastAuthAtByPosition[i])
+				.toArray();
+	}
+
+	private static String domain(String email) {
+		if (email == null) {
+			return null;
+		}
+		return normalize(email.substring(email.lastIndexOf('@') + 1));
+	}
+
+	/** Returns the user with the given email, ignoring case. */
+	public Optional<User> getByEmail(String email) {
+		return getBySecondaryId(email).stream().findFirst();
+	}
+
+	/** Returns the users with the given name, ignoring case. */
+	public List<User> getByName(String name) {
+		return select(byName.get(normalize(name)));
+	}
+
+	/** Starts a query matching all users. */
+	public Query query() {
+		BitSet all = new BitSet(size());
+		all.set(0, size());
+		return new Query(all);
+	}
+
+	/** Returns the first position in {@link #lastAuthAt} not before the given time. */
+	private int lowerBound(long millis) {
+		int low = 0;
+		int high = lastAuthAt.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (lastAuthAt[middle] < millis) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/** Filter over the users of the index, each method narrows the result. */
+	public class Query {
+		private final BitSet matches;
+
+		private Query(BitSet matches) {
+			this.matches = matches;
+		}
+
+		/** Keeps users in the given state. */
+		public Query is(State state) {
+			matches.and(byState.get(state));
+			return this;
+		}
+
+		/** Keeps users not in the given state. */
+		public Query isNot(State state) {
+			matches.andNot(byState.get(state));
+			return this;
+		}
+
+		/** Keeps users with an email address of the given domain, ignoring case. */
+		public Query domain(String domain) {
+			return and(byDomain.get(normalize(domain)));
+		}
+
+		/** Keeps users with the given language, ignoring case. */
+		public Query language(String language) {
+			return and(byLanguage.get(normalize(language)));
+		}
+
+		/**
+		 * Keeps users that last authenticated in the given range, the start is inclusive and the
+		 * end exclusive. Either may be null for an open range. Users that never authenticated are
+		 * not matched.
+		 */
+		public Query lastAuthBetween(ZonedDateTime from, ZonedDateTime to) {
+			long start = from == null ? Long.MIN_VALUE : from.toInstant().toEpochMilli();
+			long end = to == null ? Long.MAX_VALUE : to.toInstant().toEpochMilli();
+			return lastAuthIn(start, end, false);
+		}
+
+		/** Keeps users that did not authenticate since the given time, including never. */
+		public Query lastAuthBefore(ZonedDateTime time) {
+			return lastAuthIn(Long.MIN_VALUE, time.toInstant().toEpochMilli(), true);
+		}
+
+		/**
+		 * Keeps users with a last authentication in [start, end) and optionally those that never
+		 * authenticated. Either walks the sorted index or checks the current matches, whichever
+		 * touches fewer users.
+		 */
+		private Query lastAuthIn(long start, long end, boolean never) {
+			int first = lowerBound(start);
+			int last = lowerBound(end);
+			if (!never && last - first < matches.cardinality()) {
+				return and(rangeOf(first, last));
+			}
+
+			for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+				long millis = lastAuthAtByPosition[i];
+				if (millis == NEVER ? !never : millis < start || millis >= end) {
+					matches.clear(i);
+				}
+			}
+			return this;
+		}
+
+		private BitSet rangeOf(int first, int last) {
+			BitSet range = new BitSet(size());
+			for (int i = first; i < last; i++) {
+				range.set(lastAuthAtPositions[i]);
+			}
+			return range;
+		}
+
+		private Query and(BitSet positions) {
+			if (positions == null) {
+				matches.clear();
+			} else {
+				matches.and(positions);
+			}
+			return this;
+		}
+
+		/** Returns the number of matching users. */
+		public int count() {
+			return matches.cardinality();
+		}
+
+		/** Returns the matching users in index order. */
+		public List<User> list() {
+			return select(matches);
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package one.password.report;
+
+import one.password.Entity;
+
+/** A single finding of a {@link HygieneReport}. */
+public class Finding {
+	/** The kinds of findings. */
+	public enum Kind {
+		/** Active user that did not authenticate for a long time. */
+		INACTIVE_USER,
+		/** Invitation that has not been accepted for a long time. */
+		PENDING_INVITATION,
+		/** Guest user. */
+		GUEST,
+		/** Group without members. */
+		EMPTY_GROUP,
+		/** Vault without a user in the manager role. */
+		VAULT_WITHOUT_MANAGER
+	}
+
+	private final Kind kind;
+	private final String entity;
+	private final String id;
+	private final String name;
+	private final String detail;
+
+	public Finding(Kind kind, Entity.Base entity, String detail) {
+		this.kind = kind;
+		this.entity = Entity.singular(entity.getClass());
+		this.id = entity.getId();
+		this.name = entity.getSecondaryId();
+		this.detail = detail;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	/** Returns the singular name of the entity type, e.g. "user". */
+	public String getEntity() {
+		return entity;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	/** Returns the email of users or the name of groups and vaults. */
+	public String getName() {
+		return name;
+	}
+
+	/** Returns additional information, e.g. the last authentication, or null. */
+	public String getDetail() {
+		return detail;
+	}
+}
@@ -0,0 +1,238 @@
+package one.password.report;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+import one.password.Group;
+import one.password.OnePasswordBase;
+import one.password.Role;
+import one.password.User;
+import one.password.Vault;
+import one.password.util.FunctionWithException;
+
+/**
+ * Account hygiene report: inactive users, long-pending invitations, guests, empty groups and vaults
+ * without a managing user. The data is gathered with a bounded number of parallel CLI calls into a
+ * {@link Snapshot} that only keeps the users and per group and vault aggregates. The findings are
+ * then computed in parallel on the common fork/join pool and streamed to a {@link ReportWriter}.
+ */
+public class HygieneReport {
+	private final OnePasswordBase api;
+	private Duration inactiveAfter = Duration.ofDays(90);
+	private Duration invitationPendingAfter = Duration.ofDays(14);
+	private int parallelism = 4;
+	private Clock clock = Clock.systemUTC();
+
+	public HygieneReport(OnePasswordBase api) {
+		this.api = api;
+	}
+
+	/** Sets after which duration without authentication an active user is inactive. */
+	public HygieneReport setInactiveAfter(Duration inactiveAfter) {
+		this.inactiveAfter = inactiveAfter;
+		return this;
+	}
+
+	/** Sets after which duration an invitation that has not been accepted is reported. */
+	public HygieneReport setInvitationPendingAfter(Duration invitationPendingAfter) {
+		this.invitationPendingAfter = invitationPendingAfter;
+		return this;
+	}
+
+	/** Sets the maximum number of parallel CLI calls while gathering data, defaults to 4. */
+	public HygieneReport setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("The parallelism must be positive");
+		}
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/** Sets the clock findings are computed against. */
+	public HygieneReport setClock(Clock clock) {
+		this.clock = clock;
+		return this;
+	}
+
+	/**
+	 * Gathers the data, streams the findings to the writer and closes it. Returns the number of
+	 * findings per kind.
+	 */
+	public Map<Finding.Kind, Long> generate(ReportWriter writer) throws IOException {
+		try {
+			return evaluate(gather(), writer);
+		} finally {
+			writer.close();
+		}
+	}
+
+	/** Gathers the data of the report with bounded parallel CLI calls. */
+	public Snapshot gather() throws IOException {
+		CompletableFuture<User[]> users = api.async(base -> base.users().list());
+		CompletableFuture<Group[]> groups = api.async(base -> base.groups().list());
+		CompletableFuture<Vault[]> vaults = api.async(base -> base.vaults().list());
+
+		Map<Group, Integer> members = forEach(join(groups),
+				group -> api.users().listGrantedAccessTo(group).length);
+		Map<Vault, Boolean> managed = forEach(join(vaults),
+				vault -> api.users().listGrantedRolesTo(vault).containsValue(Role.MANAGER));
+		return new Snapshot(join(users), members, managed);
+	}
+
+	/**
+	 * Applies the function to all items with at most {@link #parallelism} calls in flight,
+	 * returning the results in the order of the items.
+	 */
+	private <T, R> Map<T, R> forEach(T[] items, FunctionWithException<T, R, IOException> function)
+			throws IOException {
+		Semaphore permits = new Semaphore(parallelism);
+		Map<T, R> results = new ConcurrentHashMap<>();
+		List<CompletableFuture<R>> futures = new ArrayList<>();
+		for (T item : items) {
+			try {
+				permits.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			}
+
+			if (futures.stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+				permits.release();
+				break;
+			}
+
+			futures.add(api.async(base -> {
+				try {
+					R result = function.apply(item);
+					results.put(item, result);
+					return result;
+				} finally {
+					permits.release();
+				}
+			}));
+		}
+
+		join(CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])));
+		Map<T, R> ordered = new LinkedHashMap<>();
+		Arrays.stream(items).forEach(item -> ordered.put(item, results.get(item)));
+		return ordered;
+	}
+
+	private static <T> T join(CompletableFuture<T> future) throws IOException {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Computes the findings of a snapshot in parallel and streams them to the writer in the order
+	 * of the snapshot. Returns the number of findings per kind.
+	 */
+	public Map<Finding.Kind, Long> evaluate(Snapshot snapshot, ReportWriter writer)
+			throws IOException {
+		Instant now = clock.instant();
+		Map<Finding.Kind, Long> counts = new EnumMap<>(Finding.Kind.class);
+		write(Arrays.stream(snapshot.getUsers()).parallel()
+				.flatMap(user -> userFindings(user, now).stream()), writer, counts);
+		write(snapshot.getGroupMembers().entrySet().stream().parallel()
+				.filter(entry -> entry.getValue() == 0)
+				.map(entry -> new Finding(Finding.Kind.EMPTY_GROUP, entry.getKey(), null)), writer,
+				counts);
+		write(snapshot.getVaultManaged().entrySet().stream().parallel()
+				.filter(entry -> !entry.getValue()).map(entry -> new Finding(
+						Finding.Kind.VAULT_WITHOUT_MANAGER, entry.getKey(), null)),
+				writer, counts);
+		return counts;
+	}
+
+	private static void write(Stream<Finding> findings, ReportWriter writer,
+			Map<Finding.Kind, Long> counts) throws IOException {
+		try {
+			findings.forEachOrdered(finding -> {
+				counts.merge(finding.getKind(), 1L, Long::sum);
+				try {
+					writer.write(finding);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	private List<Finding> userFindings(User user, Instant now) {
+		List<Finding> findings = new ArrayList<>(1);
+		if (user.isInvited() && before(user.getCreatedAt(), now.minus(invitationPendingAfter))) {
+			findings.add(new Finding(Finding.Kind.PENDING_INVITATION, user,
+					user.getCreatedAt().toString()));
+		}
+
+		ZonedDateTime lastActivity = user.getLastAuthAt();
+		if (lastActivity == null) {
+			lastActivity = user.getCreatedAt();
+		}
+		if (user.isActive() && before(lastActivity, now.minus(inactiveAfter))) {
+			findings.add(new Finding(Finding.Kind.INACTIVE_USER, user,
+					user.getLastAuthAt() == null ? "never" : user.getLastAuthAt().toString()));
+		}
+
+		if (user.isGuest()) {
+			findings.add(new Finding(Finding.Kind.GUEST, user, null));
+		}
+		return findings;
+	}
+
+	private static boolean before(ZonedDateTime time, Instant threshold) {
+		return time != null && time.toInstant().isBefore(threshold);
+	}
+
+	/** The data a report is computed from. */
+	public static class Snapshot {
+		private final User[] users;
+		private final Map<Group, Integer> groupMembers;
+		private final Map<Vault, Boolean> vaultManaged;
+
+		public Snapshot(User[] users, Map<Group, Integer> groupMembers,
+				Map<Vault, Boolean> vaultManaged) {
+			this.users = users;
+			this.groupMembers = Collections.unmodifiableMap(groupMembers);
+			this.vaultManaged = Collections.unmodifiableMap(vaultManaged);
+		}
+
+		public User[] getUsers() {
+			return users;
+		}
+
+		/** Returns the number of direct members per group. */
+		public Map<Group, Integer> getGroupMembers() {
+			return groupMembers;
+		}
+
+		/** Returns per vault whether a user has the manager role. */
+		public Map<Vault, Boolean> getVaultManaged() {
+			return vaultManaged;
+		}
+	}
+}
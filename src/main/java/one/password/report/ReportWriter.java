@@ -0,0 +1,73 @@
+package one.password.report;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import one.password.util.Json;
+
+/** Streams findings of a report to an output, closing the underlying writer on close. */
+public interface ReportWriter extends Closeable {
+	/** Writes a single finding. */
+	void write(Finding finding) throws IOException;
+
+	/** Writes findings as CSV with a header line. */
+	public static ReportWriter csv(Writer writer) {
+		return new ReportWriter() {
+			private boolean header = true;
+
+			@Override
+			public void write(Finding finding) throws IOException {
+				if (header) {
+					writer.write("kind,entity,id,name,detail\n");
+					header = false;
+				}
+				writer.write(Arrays
+						.asList(finding.getKind().name(), finding.getEntity(), finding.getId(),
+								finding.getName(), finding.getDetail())
+						.stream().map(ReportWriter::escapeCsv).collect(Collectors.joining(",")));
+				writer.write('\n');
+			}
+
+			@Override
+			public void close() throws IOException {
+				writer.close();
+			}
+		};
+	}
+
+	/** Writes findings as a JSON array with one finding per line. */
+	public static ReportWriter json(Writer writer) {
+		return new ReportWriter() {
+			private String separator = "[\n";
+
+			@Override
+			public void write(Finding finding) throws IOException {
+				writer.write(separator);
+				writer.write(Json.serialize(finding));
+				separator = ",\n";
+			}
+
+			@Override
+			public void close() throws IOException {
+				try {
+					writer.write(separator.equals("[\n") ? "[]\n" : "\n]\n");
+				} finally {
+					writer.close();
+				}
+			}
+		};
+	}
+
+	/** Quotes a CSV value if needed. */
+	static String escapeCsv(String value) {
+		if (value == null) {
+			return "";
+		}
+		if (value.chars().anyMatch(c -> ",\"\r\n".indexOf(c) >= 0)) {
+			return '"' + value.replace("\"", "\"\"") + '"';
+		}
+		return value;
+	}
+}
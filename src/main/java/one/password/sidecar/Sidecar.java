@@ -0,0 +1,566 @@
+package one.password.sidecar;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Pattern;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import one.password.Entity;
+import one.password.Group;
+import one.password.OnePasswordBase;
+import one.password.Role;
+import one.password.User;
+import one.password.Vault;
+import one.password.cache.EntityCache;
+import one.password.cache.InvalidationBus;
+import one.password.cli.OpException;
+import one.password.util.Json;
+import one.password.util.Threads;
+import one.password.util.Utils;
+
+/**
+ * Local HTTP server sharing one {@link OnePasswordBase} with other processes on the host, e.g.
+ * services not written in Java, so they share its session, an {@link EntityCache} and the process
+ * limits of its {@link one.password.Config}. Reads are cached, mutations evict the affected
+ * entries, as do invalidations of other nodes if the configuration has an {@link InvalidationBus}.
+ * Requests beyond {@link #setMaxConcurrentRequests(int)} are rejected with status 503.
+ *
+ * <p>
+ * Each start generates a random token, see {@link #getToken()} and {@link #setTokenFile(Path)},
+ * that requests must pass as {@code Authorization: Bearer <token>}, otherwise they are rejected
+ * with status 401. Requests with a Host header other than a loopback address or the address the
+ * sidecar is bound to are rejected with status 403, so web pages cannot reach the sidecar by
+ * rebinding their domain. The protocol mirrors the entity commands, entities are serialized as by
+ * the CLI:
+ *
+ * <pre>
+ * GET    /{users|groups|vaults}                      list
+ * GET    /{users|groups|vaults}?{user|group|vault}=uuid
+ *                                                    list granted access to or accessible by
+ * GET    /{users|groups|vaults}/{nameOrUuid}         get
+ * POST   /{users|groups|vaults}                      create {email, name, description, language}
+ * PUT    /{users|groups|vaults}/{uuid}               edit {name, description}
+ * DELETE /{users|groups|vaults}/{uuid}               delete
+ * POST   /users/{uuid}/{confirm|suspend|reactivate}  change the state of a user
+ * PUT    /{users|groups}/{uuid}/{groups|vaults}/{uuid}[?role=manager]
+ *                                                    grant access
+ * DELETE /{users|groups}/{uuid}/{groups|vaults}/{uuid}
+ *                                                    revoke access
+ * </pre>
+ *
+ * Errors are returned as {@code {"error": message, "type": ErrorType}}, with status 502 for
+ * failures of the CLI.
+ */
+public class Sidecar implements Closeable {
+	private static final Map<String, Class<? extends Entity.Base>> TYPES = new HashMap<>();
+	private static final int TOKEN_LENGTH = 52;
+	private static final Pattern PORT = Pattern.compile(":\\d*$");
+
+	static {
+		for (Class<? extends Entity.Base> type : Arrays.asList(User.class, Group.class,
+				Vault.class)) {
+			TYPES.put(Entity.plural(type), type);
+			TYPES.put(Entity.singular(type), type);
+		}
+	}
+
+	private final OnePasswordBase api;
+	private EntityCache cache = new EntityCache(Duration.ofMinutes(1));
+	private Semaphore permits = new Semaphore(16);
+	private Path tokenFile;
+	private HttpServer server;
+	private String token;
+	private InetAddress bound;
+	private InvalidationBus.Subscription subscription;
+
+	public Sidecar(OnePasswordBase api) {
+		this.api = api;
+	}
+
+	/** Sets the cache of got and listed entities, defaults to a time to live of one minute. */
+	public Sidecar setCache(EntityCache cache) {
+		this.cache = cache;
+		return this;
+	}
+
+	/** Returns the cache of got and listed entities. */
+	public EntityCache getCache() {
+		return cache;
+	}
+
+	/** Sets the maximum number of requests handled concurrently, defaults to 16. */
+	public Sidecar setMaxConcurrentRequests(int maxConcurrentRequests) {
+		if (maxConcurrentRequests < 1) {
+			throw new IllegalArgumentException("The maximum concurrent requests must be positive");
+		}
+		this.permits = new Semaphore(maxConcurrentRequests);
+		return this;
+	}
+
+	/**
+	 * Sets a file the token is written to on start, readable only by the owner where supported,
+	 * so other processes of the user can authenticate. The file is deleted on close.
+	 */
+	public Sidecar setTokenFile(Path tokenFile) {
+		this.tokenFile = tokenFile;
+		return this;
+	}
+
+	/** Starts serving on an ephemeral port of the loopback interface. */
+	public Sidecar start() throws IOException {
+		return start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+	}
+
+	/** Starts serving on the given address. */
+	public synchronized Sidecar start(InetSocketAddress address) throws IOException {
+		if (server != null) {
+			throw new IllegalStateException("The sidecar is already started");
+		}
+		token = Utils.randomBase32(TOKEN_LENGTH);
+		if (tokenFile != null) {
+			writeToken(tokenFile, token);
+		}
+		server = HttpServer.create(address, 0);
+		server.createContext("/", this::handle);
+		server.setExecutor(Threads.executor());
+		bound = server.getAddress().getAddress();
+		server.start();
+		subscription = api.op().getConfig().getInvalidationBus()
+				.map(bus -> bus.subscribe(invalidation -> cache.invalidate(invalidation)))
+				.orElse(null);
+		return this;
+	}
+
+	/** Returns the address the sidecar is serving on. */
+	public InetSocketAddress getAddress() {
+		if (server == null) {
+			throw new IllegalStateException("The sidecar is not started");
+		}
+		return server.getAddress();
+	}
+
+	/** Returns the token requests must pass, which is generated on each start. */
+	public synchronized String getToken() {
+		if (server == null) {
+			throw new IllegalStateException("The sidecar is not started");
+		}
+		return token;
+	}
+
+	/** Stops serving, requests being handled are cut off. */
+	@Override
+	public synchronized void close() {
+		if (server != null) {
+			server.stop(0);
+			server = null;
+		}
+		if (subscription != null) {
+			subscription.close();
+			subscription = null;
+		}
+		if (tokenFile != null) {
+			try {
+				Files.deleteIfExists(tokenFile);
+			} catch (IOException e) {
+				// the token is worthless once stopped
+			}
+		}
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			if (!isAllowedHost(exchange.getRequestHeaders().getFirst("Host"))) {
+				respond(exchange, 403, error("Host not allowed", null));
+				return;
+			}
+			if (!isAuthorized(exchange.getRequestHeaders().getFirst("Authorization"))) {
+				exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+				respond(exchange, 401, error("Missing or invalid bearer token", null));
+				return;
+			}
+			if (!permits.tryAcquire()) {
+				respond(exchange, 503, error("Too many concurrent requests", null));
+				return;
+			}
+			try {
+				Object result = route(exchange.getRequestMethod(),
+						segments(exchange.getRequestURI().getRawPath()),
+						query(exchange.getRequestURI().getRawQuery()),
+						read(exchange.getRequestBody()));
+				respond(exchange, result == null ? 204 : 200, result);
+			} finally {
+				permits.release();
+			}
+		} catch (RequestException e) {
+			respond(exchange, e.status, error(e.getMessage(), null));
+		} catch (OpException e) {
+			respond(exchange, 502, error(e.getMessage(), e.getType().name()));
+		} catch (IOException e) {
+			respond(exchange, 502, error(e.getMessage(), null));
+		} catch (RuntimeException e) {
+			respond(exchange, 500, error(String.valueOf(e.getMessage()), null));
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Returns whether the Host header names a loopback address or the address the sidecar is bound
+	 * to. Host names other than "localhost" are not resolved.
+	 */
+	private boolean isAllowedHost(String header) {
+		if (header == null) {
+			return false;
+		}
+		String host = PORT.matcher(header.trim()).replaceFirst("").toLowerCase(Locale.ROOT);
+		if (host.startsWith("[") && host.endsWith("]")) {
+			host = host.substring(1, host.length() - 1);
+		}
+		if (host.equals("localhost")) {
+			return true;
+		}
+		if (!host.matches("[0-9.]+|[0-9a-f:.]*:[0-9a-f:.]*")) {
+			return false;
+		}
+
+		try {
+			InetAddress address = InetAddress.getByName(host);
+			return address.isLoopbackAddress()
+					|| !bound.isAnyLocalAddress() && address.equals(bound);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private boolean isAuthorized(String header) {
+		String expected = "Bearer " + token;
+		return header != null && MessageDigest.isEqual(header.getBytes(StandardCharsets.UTF_8),
+				expected.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void writeToken(Path file, String token) throws IOException {
+		FileAttribute<?>[] ownerOnly = new FileAttribute<?>[0];
+		if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+			ownerOnly = new FileAttribute<?>[] {PosixFilePermissions
+					.asFileAttribute(PosixFilePermissions.fromString("rw-------"))};
+		}
+
+		// recreated, as the permissions only apply to new files
+		Files.deleteIfExists(file);
+		try (SeekableByteChannel channel = Files.newByteChannel(file,
+				EnumSet.of(StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), ownerOnly)) {
+			ByteBuffer bytes = ByteBuffer.wrap(token.getBytes(StandardCharsets.UTF_8));
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+		}
+	}
+
+	private Object route(String method, List<String> path, Map<String, String> query, String body)
+			throws IOException {
+		if (path.isEmpty() || path.size() > 4) {
+			throw new RequestException(404, "Unknown resource");
+		}
+		Class<? extends Entity.Base> type = type(path.get(0));
+		String id = path.size() > 1 ? path.get(1) : null;
+
+		if (path.size() == 3) {
+			if (method.equals("POST") && type == User.class) {
+				return changeState(id, path.get(2));
+			}
+			throw new RequestException(404, "Unknown resource");
+		} else if (path.size() == 4) {
+			Class<? extends Entity.Base> accessibleType = type(path.get(2));
+			if (method.equals("PUT")) {
+				return access(type, id, accessibleType, path.get(3), true, query.get("role"));
+			}
+			if (method.equals("DELETE")) {
+				return access(type, id, accessibleType, path.get(3), false, null);
+			}
+		} else if (id == null) {
+			if (method.equals("GET")) {
+				return list(type, query);
+			}
+			if (method.equals("POST")) {
+				return create(type, body(body));
+			}
+		} else if (method.equals("GET")) {
+			return get(type, id);
+		} else if (method.equals("PUT")) {
+			return edit(type, id, body(body));
+		} else if (method.equals("DELETE")) {
+			return delete(type, id);
+		}
+		throw new RequestException(405, "Unsupported method " + method);
+	}
+
+	private <E extends Entity.Base> E get(Class<E> type, String nameOrUuid) throws IOException {
+		return cache.get(type, nameOrUuid, () -> command(type).get(nameOrUuid));
+	}
+
+	private <E extends Entity.Base> Object delete(Class<E> type, String id) throws IOException {
+		command(type).delete(stub(type, id));
+		cache.invalidate(type, id);
+		return null;
+	}
+
+	private Object list(Class<? extends Entity.Base> type, Map<String, String> query)
+			throws IOException {
+		if (query.isEmpty()) {
+			return cache.list(type, null, () -> command(type).list());
+		}
+		if (query.size() > 1) {
+			throw new RequestException(400, "Only a single related entity is supported");
+		}
+
+		Map.Entry<String, String> filter = query.entrySet().iterator().next();
+		Class<? extends Entity.Base> relatedType = type(filter.getKey());
+		Entity.Base related = stub(relatedType, filter.getValue());
+		return cache.list(type, related.getId(), () -> {
+			if (type == User.class && related instanceof Entity.UserAccessible) {
+				return api.users().listGrantedAccessTo((Entity.UserAccessible) related);
+			}
+			if (type == Group.class && related instanceof User) {
+				return api.groups().listAccessibleBy((User) related);
+			}
+			if (type == Group.class && related instanceof Vault) {
+				return api.groups().listGrantedAccessTo((Vault) related);
+			}
+			if (type == Vault.class && related instanceof Entity.UserOrGroup) {
+				return api.vaults().listAccessibleBy((Entity.UserOrGroup) related);
+			}
+			throw new RequestException(400, "Cannot list " + Entity.plural(type) + " related to "
+					+ Entity.singular(relatedType));
+		});
+	}
+
+	private Entity create(Class<? extends Entity.Base> type, Body body) throws IOException {
+		Entity created;
+		if (type == User.class) {
+			created = api.users().create(body.email, body.name, body.language);
+		} else if (type == Group.class) {
+			created = api.groups().create(body.name, body.description);
+		} else {
+			created = api.vaults().create(body.name, body.description);
+		}
+		cache.invalidate(type, created.getId());
+		return created;
+	}
+
+	private <E extends Entity.Base> Object edit(Class<E> type, String id, Body body)
+			throws IOException {
+		E entity = stub(type, id);
+		if (body.name != null) {
+			if (entity instanceof User) {
+				((User) entity).setName(body.name);
+			} else {
+				((Entity.Named) entity).setName(body.name);
+			}
+		}
+		if (body.description != null) {
+			if (!(entity instanceof Group)) {
+				throw new RequestException(400, "Only groups support editing the description");
+			}
+			((Group) entity).setDescription(body.description);
+		}
+		command(type).edit(entity);
+		cache.invalidate(type, id);
+		return null;
+	}
+
+	private Object changeState(String id, String command) throws IOException {
+		User user = stub(User.class, id);
+		if ("confirm".equals(command)) {
+			api.users().confirm(user);
+		} else if ("suspend".equals(command)) {
+			api.users().suspend(user);
+		} else if ("reactivate".equals(command)) {
+			api.users().reactivate(user);
+		} else {
+			throw new RequestException(404, "Unknown user command " + command);
+		}
+		cache.invalidate(User.class, id);
+		return null;
+	}
+
+	private Object access(Class<? extends Entity.Base> accessorType, String accessorId,
+			Class<? extends Entity.Base> accessibleType, String accessibleId, boolean grant,
+			String role) throws IOException {
+		Entity.Base accessor = stub(accessorType, accessorId);
+		Entity.Base accessible = stub(accessibleType, accessibleId);
+		if (!(accessible instanceof Entity.UserAccessible)
+				|| !(accessor instanceof Entity.UserOrGroup)) {
+			throw new RequestException(404, "Unknown resource");
+		}
+
+		if (accessor instanceof User) {
+			OnePasswordBase.UserCommand users = api.users();
+			if (!grant) {
+				users.revokeAccessTo((User) accessor, (Entity.UserAccessible) accessible);
+			} else if (role == null) {
+				users.grantAccessTo((User) accessor, (Entity.UserAccessible) accessible);
+			} else {
+				users.grantAccessTo((User) accessor, (Entity.UserAccessible) accessible,
+						role(role));
+			}
+		} else if (accessible instanceof Vault) {
+			if (grant) {
+				api.groups().grantAccessTo((Group) accessor, (Vault) accessible);
+			} else {
+				api.groups().revokeAccessTo((Group) accessor, (Vault) accessible);
+			}
+		} else {
+			throw new RequestException(404, "Unknown resource");
+		}
+
+		cache.invalidate(accessorType, accessorId);
+		cache.invalidate(accessibleType, accessibleId);
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <E extends Entity.Base> OnePasswordBase.EntityCommand<E> command(Class<E> type) {
+		if (type == User.class) {
+			return (OnePasswordBase.EntityCommand<E>) api.users();
+		}
+		if (type == Group.class) {
+			return (OnePasswordBase.EntityCommand<E>) api.groups();
+		}
+		return (OnePasswordBase.EntityCommand<E>) api.vaults();
+	}
+
+	private static Class<? extends Entity.Base> type(String name) throws RequestException {
+		Class<? extends Entity.Base> type = TYPES.get(name);
+		if (type == null) {
+			throw new RequestException(404, "Unknown entity type " + name);
+		}
+		return type;
+	}
+
+	/** Creates an entity only known by its uuid, e.g. for access commands. */
+	private static <E extends Entity.Base> E stub(Class<E> type, String id) throws IOException {
+		JsonObject json = new JsonObject();
+		json.addProperty("uuid", id);
+		return Json.deserialize(json, type);
+	}
+
+	private static Body body(String json) throws RequestException {
+		try {
+			Body body = Json.deserialize(json, Body.class);
+			return body == null ? new Body() : body;
+		} catch (IOException e) {
+			throw new RequestException(400, "Invalid request body: " + e.getMessage());
+		}
+	}
+
+	private static Role role(String role) throws RequestException {
+		try {
+			return Role.valueOf(role.toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new RequestException(400, "Unknown role " + role);
+		}
+	}
+
+	/** Splits the path into decoded segments. */
+	private static List<String> segments(String path) throws UnsupportedEncodingException {
+		List<String> segments = new ArrayList<>();
+		for (String segment : path.split("/")) {
+			if (!segment.isEmpty()) {
+				segments.add(URLDecoder.decode(segment, "UTF-8"));
+			}
+		}
+		return segments;
+	}
+
+	private static Map<String, String> query(String query) throws UnsupportedEncodingException {
+		Map<String, String> parameters = new HashMap<>();
+		if (query == null) {
+			return parameters;
+		}
+		for (String parameter : query.split("&")) {
+			int separator = parameter.indexOf('=');
+			if (separator > 0) {
+				parameters.put(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"),
+						URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+			}
+		}
+		return parameters;
+	}
+
+	private static String read(InputStream input) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		for (int read; (read = input.read(buffer)) != -1;) {
+			bytes.write(buffer, 0, read);
+		}
+		return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static Map<String, String> error(String message, String type) {
+		Map<String, String> error = new HashMap<>();
+		error.put("error", message);
+		error.put("type", type);
+		return error;
+	}
+
+	private static void respond(HttpExchange exchange, int status, Object body)
+			throws IOException {
+		if (body == null) {
+			exchange.sendResponseHeaders(status, -1);
+			return;
+		}
+		byte[] bytes = Json.serialize(body).getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream output = exchange.getResponseBody()) {
+			output.write(bytes);
+		}
+	}
+
+	/** Fields of create and edit requests. */
+	private static class Body {
+		private String email;
+		private String name;
+		private String description;
+		private String language;
+	}
+
+	/** Failure of a request with an HTTP status. */
+	private static class RequestException extends IOException {
+		private static final long serialVersionUID = 1L;
+
+		private final int status;
+
+		private RequestException(int status, String message) {
+			super(message);
+			this.status = status;
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package one.password.snapshot;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import one.password.Group;
+import one.password.OnePasswordBase;
+import one.password.Role;
+import one.password.User;
+import one.password.Vault;
+import one.password.util.SupplierWithException;
+
+/** Users, groups and vaults of an account including who has access to which group or vault. */
+public class AccountSnapshot {
+	private final User[] users;
+	private final Group[] groups;
+	private final Vault[] vaults;
+	private final List<Edge> edges;
+
+	public AccountSnapshot(User[] users, Group[] groups, Vault[] vaults, List<Edge> edges) {
+		this.users = users;
+		this.groups = groups;
+		this.vaults = vaults;
+		this.edges = Collections.unmodifiableList(edges);
+	}
+
+	/**
+	 * Captures the account with at most the given number of parallel CLI calls: one listing per
+	 * entity type and the members of each group and vault.
+	 */
+	public static AccountSnapshot capture(OnePasswordBase api, int parallelism)
+			throws IOException {
+		CompletableFuture<User[]> users = api.async(base -> base.users().list());
+		CompletableFuture<Group[]> groups = api.async(base -> base.groups().list());
+		CompletableFuture<Vault[]> vaults = api.async(base -> base.vaults().list());
+
+		List<SupplierWithException<List<Edge>, IOException>> tasks = new ArrayList<>();
+		for (Group group : join(groups)) {
+			tasks.add(() -> edges(Edge.Kind.USER_GROUP, group.getId(),
+					api.users().listGrantedRolesTo(group)));
+		}
+		for (Vault vault : join(vaults)) {
+			tasks.add(() -> edges(Edge.Kind.USER_VAULT, vault.getId(),
+					api.users().listGrantedRolesTo(vault)));
+			tasks.add(() -> {
+				List<Edge> edges = new ArrayList<>();
+				for (Group group : api.groups().listGrantedAccessTo(vault)) {
+					edges.add(new Edge(Edge.Kind.GROUP_VAULT, group.getId(), vault.getId(), null));
+				}
+				return edges;
+			});
+		}
+
+		List<Edge> edges = new ArrayList<>();
+		for (List<Edge> part : run(api, tasks, parallelism)) {
+			edges.addAll(part);
+		}
+		return new AccountSnapshot(join(users), join(groups), join(vaults), edges);
+	}
+
+	private static List<Edge> edges(Edge.Kind kind, String to, Map<User, Role> roles) {
+		List<Edge> edges = new ArrayList<>(roles.size());
+		roles.forEach((user, role) -> edges.add(new Edge(kind, user.getId(), to, role)));
+		return edges;
+	}
+
+	/**
+	 * Runs the tasks on the given number of workers, each taking the next pending task, and
+	 * returns the results in the order of the tasks.
+	 */
+	private static <T> List<T> run(OnePasswordBase api,
+			List<SupplierWithException<T, IOException>> tasks, int parallelism)
+			throws IOException {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("The parallelism must be positive");
+		}
+
+		Object[] results = new Object[tasks.size()];
+		AtomicInteger next = new AtomicInteger();
+		CompletableFuture<?>[] workers = new CompletableFuture<?>[parallelism];
+		for (int i = 0; i < parallelism; i++) {
+			workers[i] = api.async(base -> {
+				try {
+					for (int task; (task = next.getAndIncrement()) < tasks.size();) {
+						results[task] = tasks.get(task).get();
+					}
+					return null;
+				} catch (IOException | RuntimeException e) {
+					// the other workers stop after their current task
+					next.set(tasks.size());
+					throw e;
+				}
+			});
+		}
+		join(CompletableFuture.allOf(workers));
+
+		@SuppressWarnings("unchecked")
+		List<T> list = (List<T>) Arrays.asList(results);
+		return list;
+	}
+
+	private static <T> T join(CompletableFuture<T> future) throws IOException {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	public User[] getUsers() {
+		return users;
+	}
+
+	public Group[] getGroups() {
+		return groups;
+	}
+
+	public Vault[] getVaults() {
+		return vaults;
+	}
+
+	public List<Edge> getEdges() {
+		return edges;
+	}
+}
@@ -0,0 +1,91 @@
+package one.password.snapshot;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Change of an entity or access edge between two points in time, with the serialized fields before
+ * and after the change. Edges are identified by kind, accessor and accessible; their role is an
+ * attribute, so role changes are modifications.
+ */
+public final class Change {
+	/** What changed. */
+	public enum Target {
+		USER, GROUP, VAULT, EDGE
+	}
+
+	/** The type of a change. */
+	public enum Type {
+		ADDED, REMOVED, MODIFIED
+	}
+
+	private final Target target;
+	private final String id;
+	private final Map<String, String> before;
+	private final Map<String, String> after;
+
+	Change(Target target, String id, Map<String, String> before, Map<String, String> after) {
+		this.target = target;
+		this.id = id;
+		this.before = before;
+		this.after = after;
+	}
+
+	public Target getTarget() {
+		return target;
+	}
+
+	/** Returns the uuid of the entity or "kind from to" of an edge. */
+	public String getId() {
+		return id;
+	}
+
+	public Type getType() {
+		if (before == null) {
+			return Type.ADDED;
+		}
+		if (after == null) {
+			return Type.REMOVED;
+		}
+		return Type.MODIFIED;
+	}
+
+	/** Returns the fields before the change, empty if added. */
+	public Map<String, String> getBefore() {
+		return before == null ? Collections.emptyMap() : Collections.unmodifiableMap(before);
+	}
+
+	/** Returns the fields after the change, empty if removed. */
+	public Map<String, String> getAfter() {
+		return after == null ? Collections.emptyMap() : Collections.unmodifiableMap(after);
+	}
+
+	Map<String, String> before() {
+		return before;
+	}
+
+	Map<String, String> after() {
+		return after;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof Change)) {
+			return false;
+		}
+		Change change = (Change) other;
+		return target == change.target && id.equals(change.id)
+				&& Objects.equals(before, change.before) && Objects.equals(after, change.after);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(target, id, before, after);
+	}
+
+	@Override
+	public String toString() {
+		return getType() + " " + target + " " + id;
+	}
+}
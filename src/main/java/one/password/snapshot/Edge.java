@@ -0,0 +1,68 @@
+package one.password.snapshot;
+
+import java.util.Objects;
+import one.password.Role;
+
+/** Access of a user or group to a group or vault, identified by uuids. */
+public final class Edge {
+	/** The kinds of access, i.e. the accessor and accessible entity types. */
+	public enum Kind {
+		/** Membership of a user in a group, with role. */
+		USER_GROUP,
+		/** Access of a user to a vault, with role. */
+		USER_VAULT,
+		/** Access of a group to a vault, without role. */
+		GROUP_VAULT
+	}
+
+	private final Kind kind;
+	private final String from;
+	private final String to;
+	private final Role role;
+
+	public Edge(Kind kind, String from, String to, Role role) {
+		this.kind = kind;
+		this.from = from;
+		this.to = to;
+		this.role = role;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	/** Returns the uuid of the user or group having access. */
+	public String getFrom() {
+		return from;
+	}
+
+	/** Returns the uuid of the group or vault accessed. */
+	public String getTo() {
+		return to;
+	}
+
+	/** Returns the role or null for {@link Kind#GROUP_VAULT}. */
+	public Role getRole() {
+		return role;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof Edge)) {
+			return false;
+		}
+		Edge edge = (Edge) other;
+		return kind == edge.kind && from.equals(edge.from) && to.equals(edge.to)
+				&& role == edge.role;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(kind, from, to, role);
+	}
+
+	@Override
+	public String toString() {
+		return kind + " " + from + " -> " + to + (role == null ? "" : " (" + role + ")");
+	}
+}
@@ -0,0 +1,292 @@
+package one.password.snapshot;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import one.password.Entity;
+import one.password.Group;
+import one.password.Role;
+import one.password.User;
+import one.password.Vault;
+import one.password.util.Json;
+
+/**
+ * Local history of {@link AccountSnapshot}s, recorded at most once per day. The first recording and
+ * then every {@link #setBaseInterval(int) n-th} one is stored as full base, all others only as
+ * changes to the previous day. Both are gzipped JSON lines of {@link Change}s named after the date.
+ * Reconstructing a day replays the deltas since the latest base, while diffs between days only
+ * read the deltas in between.
+ */
+public class HistoryStore {
+	private static final String BASE_SUFFIX = ".base.gz";
+	private static final String DELTA_SUFFIX = ".delta.gz";
+
+	private final Path directory;
+	private int baseInterval = 30;
+
+	public HistoryStore(Path directory) throws IOException {
+		this.directory = Files.createDirectories(directory);
+	}
+
+	/** Sets after how many deltas a full base is stored, defaults to 30. */
+	public HistoryStore setBaseInterval(int baseInterval) {
+		if (baseInterval < 1) {
+			throw new IllegalArgumentException("The base interval must be positive");
+		}
+		this.baseInterval = baseInterval;
+		return this;
+	}
+
+	/** Returns the recorded days in ascending order. */
+	public NavigableSet<LocalDate> getDates() throws IOException {
+		TreeSet<LocalDate> dates = new TreeSet<>(dates(DELTA_SUFFIX));
+		dates.addAll(dates(BASE_SUFFIX));
+		return dates;
+	}
+
+	/**
+	 * Records the snapshot of a day, which must be later than all recorded days. Returns the
+	 * changes to the previously recorded day.
+	 */
+	public synchronized List<Change> record(LocalDate date, AccountSnapshot snapshot)
+			throws IOException {
+		NavigableSet<LocalDate> dates = getDates();
+		if (!dates.isEmpty() && !date.isAfter(dates.last())) {
+			throw new IllegalArgumentException(
+					"Snapshots must be recorded after the last day " + dates.last() + ": " + date);
+		}
+
+		State current = State.of(snapshot);
+		if (dates.isEmpty()) {
+			write(file(date, BASE_SUFFIX), new State().diff(current));
+			return new ArrayList<>();
+		}
+
+		List<Change> changes = reconstruct(dates.last()).diff(current);
+		write(file(date, DELTA_SUFFIX), changes);
+		if (dates.tailSet(dates(BASE_SUFFIX).last(), false).size() + 1 >= baseInterval) {
+			write(file(date, BASE_SUFFIX), new State().diff(current));
+		}
+		return changes;
+	}
+
+	/** Returns the account as recorded on the given day or the latest day before. */
+	public Optional<AccountSnapshot> at(LocalDate date) throws IOException {
+		if (dates(BASE_SUFFIX).floor(date) == null) {
+			return Optional.empty();
+		}
+		return Optional.of(reconstruct(date).materialize());
+	}
+
+	/**
+	 * Returns who had access to the group or vault with the given uuid on the given day, without
+	 * deserializing the entities.
+	 */
+	public List<Edge> accessTo(String id, LocalDate date) throws IOException {
+		if (dates(BASE_SUFFIX).floor(date) == null) {
+			return new ArrayList<>();
+		}
+		return reconstruct(date).edges().stream().filter(edge -> edge.getTo().equals(id))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Returns the net changes from the state on the first day to the state on the second day, only
+	 * reading the deltas in between. Entities changed forth and back are omitted.
+	 */
+	public List<Change> diff(LocalDate from, LocalDate to) throws IOException {
+		Map<String, Change> net = new LinkedHashMap<>();
+		for (LocalDate date : dates(DELTA_SUFFIX).subSet(from, false, to, true)) {
+			for (Change change : read(file(date, DELTA_SUFFIX))) {
+				String key = change.getTarget() + " " + change.getId();
+				Change first = net.get(key);
+				net.put(key, new Change(change.getTarget(), change.getId(),
+						first == null ? change.before() : first.before(), change.after()));
+			}
+		}
+		return net.values().stream()
+				.filter(change -> !Objects.equals(change.before(), change.after()))
+				.collect(Collectors.toList());
+	}
+
+	/** Replays the deltas since the latest base up to the given day. */
+	private State reconstruct(LocalDate date) throws IOException {
+		LocalDate base = dates(BASE_SUFFIX).floor(date);
+		State state = new State();
+		read(file(base, BASE_SUFFIX)).forEach(state::apply);
+		for (LocalDate delta : dates(DELTA_SUFFIX).subSet(base, false, date, true)) {
+			read(file(delta, DELTA_SUFFIX)).forEach(state::apply);
+		}
+		return state;
+	}
+
+	private Path file(LocalDate date, String suffix) {
+		return directory.resolve(date + suffix);
+	}
+
+	private NavigableSet<LocalDate> dates(String suffix) throws IOException {
+		TreeSet<LocalDate> dates = new TreeSet<>();
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				String name = file.getFileName().toString();
+				if (name.endsWith(suffix)) {
+					try {
+						dates.add(LocalDate.parse(
+								name.substring(0, name.length() - suffix.length())));
+					} catch (DateTimeParseException e) {
+						// not written by this store
+					}
+				}
+			}
+		}
+		return dates;
+	}
+
+	/** Writes the changes atomically. */
+	private static void write(Path file, List<Change> changes) throws IOException {
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+				new GZIPOutputStream(Files.newOutputStream(temporary)), StandardCharsets.UTF_8))) {
+			for (Change change : changes) {
+				writer.write(Json.serialize(change));
+				writer.write('\n');
+			}
+		}
+		Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static List<Change> read(Path file) throws IOException {
+		List<Change> changes = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+			for (String line; (line = reader.readLine()) != null;) {
+				changes.add(Json.deserialize(line, Change.class));
+			}
+		}
+		return changes;
+	}
+
+	/** Serialized fields of all entities and edges by target and id. */
+	private static class State {
+		private final Map<Change.Target, Map<String, Map<String, String>>> targets =
+				new EnumMap<>(Change.Target.class);
+
+		private State() {
+			for (Change.Target target : Change.Target.values()) {
+				targets.put(target, new LinkedHashMap<>());
+			}
+		}
+
+		private static State of(AccountSnapshot snapshot) {
+			State state = new State();
+			put(state.targets.get(Change.Target.USER), snapshot.getUsers());
+			put(state.targets.get(Change.Target.GROUP), snapshot.getGroups());
+			put(state.targets.get(Change.Target.VAULT), snapshot.getVaults());
+			for (Edge edge : snapshot.getEdges()) {
+				Map<String, String> fields = new HashMap<>();
+				fields.put("kind", edge.getKind().name());
+				fields.put("from", edge.getFrom());
+				fields.put("to", edge.getTo());
+				if (edge.getRole() != null) {
+					fields.put("role", edge.getRole().name());
+				}
+				state.targets.get(Change.Target.EDGE).put(
+						edge.getKind() + " " + edge.getFrom() + " " + edge.getTo(), fields);
+			}
+			return state;
+		}
+
+		private static void put(Map<String, Map<String, String>> target, Entity.Base[] entities) {
+			for (Entity.Base entity : entities) {
+				Map<String, String> fields = new HashMap<>();
+				for (Map.Entry<String, JsonElement> field : Json.toTree(entity).getAsJsonObject()
+						.entrySet()) {
+					if (field.getValue().isJsonPrimitive()) {
+						fields.put(field.getKey(), field.getValue().getAsString());
+					}
+				}
+				target.put(entity.getId(), fields);
+			}
+		}
+
+		/** Returns the changes from this state to the given newer one. */
+		private List<Change> diff(State newer) {
+			List<Change> changes = new ArrayList<>();
+			for (Change.Target target : Change.Target.values()) {
+				Map<String, Map<String, String>> before = targets.get(target);
+				Map<String, Map<String, String>> after = newer.targets.get(target);
+				before.forEach((id, fields) -> {
+					Map<String, String> updated = after.get(id);
+					if (!fields.equals(updated)) {
+						changes.add(new Change(target, id, fields, updated));
+					}
+				});
+				after.forEach((id, fields) -> {
+					if (!before.containsKey(id)) {
+						changes.add(new Change(target, id, null, fields));
+					}
+				});
+			}
+			return changes;
+		}
+
+		private void apply(Change change) {
+			Map<String, Map<String, String>> target = targets.get(change.getTarget());
+			if (change.after() == null) {
+				target.remove(change.getId());
+			} else {
+				target.put(change.getId(), change.after());
+			}
+		}
+
+		private List<Edge> edges() {
+			return targets.get(Change.Target.EDGE).values().stream()
+					.map(fields -> new Edge(Edge.Kind.valueOf(fields.get("kind")),
+							fields.get("from"), fields.get("to"),
+							fields.containsKey("role") ? Role.valueOf(fields.get("role")) : null))
+					.collect(Collectors.toList());
+		}
+
+		private AccountSnapshot materialize() throws IOException {
+			return new AccountSnapshot(
+					entities(Change.Target.USER, User.class).toArray(new User[0]),
+					entities(Change.Target.GROUP, Group.class).toArray(new Group[0]),
+					entities(Change.Target.VAULT, Vault.class).toArray(new Vault[0]), edges());
+		}
+
+		private <E> List<E> entities(Change.Target target, Class<E> type) throws IOException {
+			List<E> entities = new ArrayList<>();
+			for (Map<String, String> fields : targets.get(target).values()) {
+				JsonObject json = new JsonObject();
+				fields.forEach(json::addProperty);
+				entities.add(Json.deserialize(json, type));
+			}
+			return entities;
+		}
+	}
+}
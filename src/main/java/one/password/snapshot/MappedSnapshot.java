@@ -0,0 +1,261 @@
+package one.password.snapshot;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import com.google.gson.JsonObject;
+import one.password.Entity;
+import one.password.Group;
+import one.password.Role;
+import one.password.User;
+import one.password.Vault;
+import one.password.util.Json;
+
+/**
+ * Read-only view of a file written by {@link SnapshotFile}, which is memory-mapped. Opening decodes
+ * the varint columns, while dictionary strings and edges are read from the mapped buffer on access.
+ * Timestamps have millisecond precision and are materialized in UTC.
+ */
+public class MappedSnapshot {
+	private final ByteBuffer buffer;
+	private final int[] stringOffsets;
+	private final int[] stringLengths;
+	private final String[] strings;
+	private final Map<Schema, Table> tables = new EnumMap<>(Schema.class);
+	private final Map<Edge.Kind, Edges> edges = new EnumMap<>(Edge.Kind.class);
+
+	private MappedSnapshot(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if (buffer.getInt() != SnapshotFile.MAGIC || buffer.get() != SnapshotFile.VERSION) {
+			throw new IOException("Not a snapshot file of version " + SnapshotFile.VERSION);
+		}
+
+		int count = (int) varint();
+		stringOffsets = new int[count];
+		stringLengths = new int[count];
+		strings = new String[count];
+		for (int i = 0; i < count; i++) {
+			stringLengths[i] = (int) varint();
+			stringOffsets[i] = buffer.position();
+			buffer.position(buffer.position() + stringLengths[i]);
+		}
+
+		for (Schema schema : Schema.values()) {
+			tables.put(schema, new Table(schema));
+		}
+		for (Edge.Kind kind : Edge.Kind.values()) {
+			edges.put(kind, new Edges(kind));
+		}
+	}
+
+	/** Maps and opens a snapshot file. */
+	public static MappedSnapshot open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Snapshot too large to map: " + channel.size());
+			}
+			return new MappedSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			throw new IOException("Corrupt snapshot file: " + file, e);
+		}
+	}
+
+	private long varint() {
+		long value = 0;
+		for (int shift = 0;; shift += 7) {
+			byte next = buffer.get();
+			value |= (long) (next & 0x7f) << shift;
+			if (next >= 0) {
+				return value;
+			}
+		}
+	}
+
+	/** Returns a dictionary string, decoding it from the mapped buffer on first access. */
+	private String string(int reference) {
+		if (reference == 0) {
+			return null;
+		}
+
+		int index = reference - 1;
+		String string = strings[index];
+		if (string == null) {
+			byte[] bytes = new byte[stringLengths[index]];
+			ByteBuffer view = buffer.duplicate();
+			view.position(stringOffsets[index]);
+			view.get(bytes);
+			string = new String(bytes, StandardCharsets.UTF_8);
+			strings[index] = string;
+		}
+		return string;
+	}
+
+	public Table getUsers() {
+		return tables.get(Schema.USERS);
+	}
+
+	public Table getGroups() {
+		return tables.get(Schema.GROUPS);
+	}
+
+	public Table getVaults() {
+		return tables.get(Schema.VAULTS);
+	}
+
+	/** Returns the edges of the given kind, whose rows refer to the respective tables. */
+	public Edges getEdges(Edge.Kind kind) {
+		return edges.get(kind);
+	}
+
+	/** Deserializes all entities and edges. */
+	public AccountSnapshot materialize() throws IOException {
+		List<Edge> materialized = new ArrayList<>();
+		for (Edges ofKind : edges.values()) {
+			Table from = tables.get(Schema.from(ofKind.kind));
+			Table to = tables.get(Schema.to(ofKind.kind));
+			for (int i = 0; i < ofKind.size(); i++) {
+				materialized.add(new Edge(ofKind.kind, from.getId(ofKind.getFrom(i)),
+						to.getId(ofKind.getTo(i)), ofKind.getRole(i)));
+			}
+		}
+		return new AccountSnapshot(getUsers().materialize(User[]::new),
+				getGroups().materialize(Group[]::new), getVaults().materialize(Vault[]::new),
+				materialized);
+	}
+
+	/** Columns of a table of entities. */
+	public class Table {
+		private final Schema schema;
+		private final int size;
+		private final int[][] references;
+		private final long[][] timestamps;
+
+		private Table(Schema schema) {
+			this.schema = schema;
+			this.size = (int) varint();
+			this.references = new int[schema.strings.size()][size];
+			this.timestamps = new long[schema.timestamps.size()][size];
+			for (int[] column : references) {
+				for (int row = 0; row < size; row++) {
+					column[row] = (int) varint();
+				}
+			}
+			for (long[] column : timestamps) {
+				long previous = 0;
+				for (int row = 0; row < size; row++) {
+					long value = varint();
+					if (value == 0) {
+						column[row] = Long.MIN_VALUE;
+					} else {
+						previous += SnapshotFile.unzigzag(value - 1);
+						column[row] = previous;
+					}
+				}
+			}
+		}
+
+		public int size() {
+			return size;
+		}
+
+		/** Returns the names of the string columns, e.g. "uuid" and "name". */
+		public List<String> getStringColumns() {
+			return schema.strings;
+		}
+
+		/** Returns the names of the timestamp columns, e.g. "createdAt". */
+		public List<String> getTimestampColumns() {
+			return schema.timestamps;
+		}
+
+		/** Returns the uuid of an entity. */
+		public String getId(int row) {
+			return string(references[0][row]);
+		}
+
+		/** Returns the value of a string column, null if not set. */
+		public String getString(String column, int row) {
+			return string(references[index(schema.strings, column)][row]);
+		}
+
+		/** Returns the value of a timestamp column, null if not set. */
+		public Instant getTimestamp(String column, int row) {
+			long millis = timestamps[index(schema.timestamps, column)][row];
+			return millis == Long.MIN_VALUE ? null : Instant.ofEpochMilli(millis);
+		}
+
+		private int index(List<String> columns, String column) {
+			int index = columns.indexOf(column);
+			if (index < 0) {
+				throw new IllegalArgumentException("Unknown column: " + column);
+			}
+			return index;
+		}
+
+		private <E extends Entity.Base> E[] materialize(IntFunction<E[]> array)
+				throws IOException {
+			E[] entities = array.apply(size);
+			for (int row = 0; row < size; row++) {
+				JsonObject json = new JsonObject();
+				for (int column = 0; column < references.length; column++) {
+					json.addProperty(schema.strings.get(column), string(references[column][row]));
+				}
+				for (int column = 0; column < timestamps.length; column++) {
+					long millis = timestamps[column][row];
+					if (millis != Long.MIN_VALUE) {
+						json.addProperty(schema.timestamps.get(column), millis);
+					}
+				}
+				@SuppressWarnings("unchecked")
+				E entity = (E) Json.deserialize(json, schema.type);
+				entities[row] = entity;
+			}
+			return entities;
+		}
+	}
+
+	/** Edges of one kind as pairs of table rows, read in place from the mapped buffer. */
+	public class Edges {
+		private final Edge.Kind kind;
+		private final int size;
+		private final int pairs;
+		private final int roles;
+
+		private Edges(Edge.Kind kind) {
+			this.kind = kind;
+			this.size = (int) varint();
+			this.pairs = buffer.position();
+			this.roles = pairs + size * 8;
+			buffer.position(roles + size);
+		}
+
+		public int size() {
+			return size;
+		}
+
+		/** Returns the row of the user or group having access. */
+		public int getFrom(int index) {
+			return buffer.getInt(pairs + index * 8);
+		}
+
+		/** Returns the row of the group or vault accessed. */
+		public int getTo(int index) {
+			return buffer.getInt(pairs + index * 8 + 4);
+		}
+
+		/** Returns the role, null for {@link Edge.Kind#GROUP_VAULT}. */
+		public Role getRole(int index) {
+			return SnapshotFile.role(buffer.get(roles + index));
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package one.password.snapshot;
+
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import one.password.Entity;
+import one.password.Group;
+import one.password.User;
+import one.password.Vault;
+
+/**
+ * Tables of a snapshot file with their string and timestamp columns, named after the serialized
+ * fields of the entities. Timestamps are taken from the getters, as parsing them is expensive.
+ */
+enum Schema {
+	USERS(User.class, AccountSnapshot::getUsers,
+			Arrays.asList("uuid", "email", "name", "firstName", "lastName", "language", "state",
+					"type"),
+			Arrays.asList("createdAt", "updatedAt", "lastAuthAt"),
+			Arrays.asList(user -> ((User) user).getCreatedAt(),
+					user -> ((User) user).getUpdatedAt(), user -> ((User) user).getLastAuthAt())),
+	GROUPS(Group.class, AccountSnapshot::getGroups, Arrays.asList("uuid", "name", "desc"),
+			Arrays.asList("createdAt", "updatedAt"),
+			Arrays.asList(group -> ((Group) group).getCreatedAt(),
+					group -> ((Group) group).getUpdatedAt().orElse(null))),
+	VAULTS(Vault.class, AccountSnapshot::getVaults, Arrays.asList("uuid", "name", "desc"),
+			Collections.emptyList(), Collections.emptyList());
+
+	final Class<? extends Entity.Base> type;
+	final Function<AccountSnapshot, Entity.Base[]> entities;
+	final List<String> strings;
+	final List<String> timestamps;
+	final List<Function<Entity.Base, ZonedDateTime>> timestampGetters;
+
+	private Schema(Class<? extends Entity.Base> type,
+			Function<AccountSnapshot, Entity.Base[]> entities, List<String> strings,
+			List<String> timestamps, List<Function<Entity.Base, ZonedDateTime>> timestampGetters) {
+		this.type = type;
+		this.entities = entities;
+		this.strings = strings;
+		this.timestamps = timestamps;
+		this.timestampGetters = timestampGetters;
+	}
+
+	/** Returns the table of the entities having access. */
+	static Schema from(Edge.Kind kind) {
+		return kind == Edge.Kind.GROUP_VAULT ? GROUPS : USERS;
+	}
+
+	/** Returns the table of the entities accessed. */
+	static Schema to(Edge.Kind kind) {
+		return kind == Edge.Kind.USER_GROUP ? GROUPS : VAULTS;
+	}
+}
@@ -0,0 +1,230 @@
+package one.password.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import one.password.Entity;
+import one.password.Role;
+import one.password.util.Json;
+
+/**
+ * Writes an {@link AccountSnapshot} in a compact columnar binary format, which is read by
+ * {@link MappedSnapshot}. All strings are stored once in a dictionary and referenced by index,
+ * timestamps as epoch milliseconds delta-encoded within their column and edges as fixed-width int
+ * pairs of table rows, so they can be accessed in place. Integers are unsigned LEB128 varints
+ * unless noted otherwise:
+ *
+ * <pre>
+ * file       = magic:int32 version:int8 dictionary table{users, groups, vaults} edges{kinds}
+ * dictionary = count (length utf8-bytes){count}
+ * table      = rows string-column{rows}... timestamp-column{rows}...
+ * string     = 0 for null, else dictionary index + 1
+ * timestamp  = 0 for null, else zigzag(millis - previous millis of the column) + 1
+ * edges      = count (from-row:int32 to-row:int32){count} role:int8{count}
+ * </pre>
+ */
+public final class SnapshotFile {
+	static final int MAGIC = 0x4f50534e;
+	static final byte VERSION = 1;
+
+	private SnapshotFile() {
+	}
+
+	/** Writes the snapshot to a file, replacing an existing one. */
+	public static void write(AccountSnapshot snapshot, Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			write(snapshot, channel);
+		}
+	}
+
+	/** Writes the snapshot to a channel, which is not closed. */
+	public static void write(AccountSnapshot snapshot, WritableByteChannel channel)
+			throws IOException {
+		Map<String, Integer> dictionary = new LinkedHashMap<>();
+		Map<Schema, Columns> tables = new EnumMap<>(Schema.class);
+		for (Schema schema : Schema.values()) {
+			tables.put(schema, new Columns(schema, schema.entities.apply(snapshot), dictionary));
+		}
+
+		Output output = new Output(channel);
+		output.putInt(MAGIC);
+		output.putByte(VERSION);
+		output.putVarint(dictionary.size());
+		for (String string : dictionary.keySet()) {
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			output.putVarint(bytes.length);
+			output.putBytes(bytes);
+		}
+
+		for (Columns columns : tables.values()) {
+			columns.write(output);
+		}
+
+		for (Edge.Kind kind : Edge.Kind.values()) {
+			writeEdges(output, kind, snapshot.getEdges(), tables.get(Schema.from(kind)),
+					tables.get(Schema.to(kind)));
+		}
+		output.flush();
+	}
+
+	private static void writeEdges(Output output, Edge.Kind kind, List<Edge> edges, Columns from,
+			Columns to) throws IOException {
+		List<Edge> ofKind = new ArrayList<>();
+		for (Edge edge : edges) {
+			if (edge.getKind() == kind) {
+				ofKind.add(edge);
+			}
+		}
+
+		output.putVarint(ofKind.size());
+		for (Edge edge : ofKind) {
+			output.putInt(from.row(edge.getFrom()));
+			output.putInt(to.row(edge.getTo()));
+		}
+		for (Edge edge : ofKind) {
+			output.putByte(edge.getRole() == null ? 0 : (byte) (edge.getRole().ordinal() + 1));
+		}
+	}
+
+	/** Returns the role stored for an edge. */
+	static Role role(byte role) {
+		return role == 0 ? null : Role.values()[role - 1];
+	}
+
+	/** Encodes a signed value so small magnitudes result in short varints. */
+	static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	/** Decodes a value encoded with {@link #zigzag(long)}. */
+	static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/** The columns of a table, with strings replaced by dictionary references. */
+	private static class Columns {
+		private final int rows;
+		private final int[][] strings;
+		private final long[][] timestamps;
+		private final Map<String, Integer> rowsById = new HashMap<>();
+
+		private Columns(Schema schema, Entity.Base[] entities, Map<String, Integer> dictionary) {
+			this.rows = entities.length;
+			this.strings = new int[schema.strings.size()][rows];
+			this.timestamps = new long[schema.timestamps.size()][rows];
+			for (int row = 0; row < rows; row++) {
+				JsonObject json = Json.toTree(entities[row]).getAsJsonObject();
+				for (int column = 0; column < strings.length; column++) {
+					String value = string(json, schema.strings.get(column));
+					strings[column][row] = value == null ? 0
+							: dictionary.computeIfAbsent(value, key -> dictionary.size()) + 1;
+				}
+				for (int column = 0; column < timestamps.length; column++) {
+					ZonedDateTime value = schema.timestampGetters.get(column).apply(entities[row]);
+					timestamps[column][row] =
+							value == null ? Long.MIN_VALUE : value.toInstant().toEpochMilli();
+				}
+				rowsById.put(entities[row].getId(), row);
+			}
+		}
+
+		private static String string(JsonObject json, String field) {
+			JsonElement value = json.get(field);
+			return value == null || value.isJsonNull() ? null : value.getAsString();
+		}
+
+		private int row(String id) throws IOException {
+			Integer row = rowsById.get(id);
+			if (row == null) {
+				throw new IOException("Edge references an entity not in the snapshot: " + id);
+			}
+			return row;
+		}
+
+		private void write(Output output) throws IOException {
+			output.putVarint(rows);
+			for (int[] column : strings) {
+				for (int value : column) {
+					output.putVarint(value);
+				}
+			}
+			for (long[] column : timestamps) {
+				long previous = 0;
+				for (long value : column) {
+					if (value == Long.MIN_VALUE) {
+						output.putVarint(0);
+					} else {
+						output.putVarint(zigzag(value - previous) + 1);
+						previous = value;
+					}
+				}
+			}
+		}
+	}
+
+	/** Buffered output to a channel. */
+	private static class Output {
+		private final WritableByteChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+
+		private Output(WritableByteChannel channel) {
+			this.channel = channel;
+		}
+
+		private void ensure(int bytes) throws IOException {
+			if (buffer.remaining() < bytes) {
+				flush();
+			}
+		}
+
+		private void putByte(byte value) throws IOException {
+			ensure(1);
+			buffer.put(value);
+		}
+
+		private void putInt(int value) throws IOException {
+			ensure(4);
+			buffer.putInt(value);
+		}
+
+		private void putVarint(long value) throws IOException {
+			ensure(10);
+			while ((value & ~0x7fL) != 0) {
+				buffer.put((byte) ((value & 0x7f) | 0x80));
+				value >>>= 7;
+			}
+			buffer.put((byte) value);
+		}
+
+		private void putBytes(byte[] bytes) throws IOException {
+			for (int offset = 0; offset < bytes.length;) {
+				ensure(1);
+				int count = Math.min(buffer.remaining(), bytes.length - offset);
+				buffer.put(bytes, offset, count);
+				offset += count;
+			}
+		}
+
+		private void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+	}
+}
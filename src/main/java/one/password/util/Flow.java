@@ -0,0 +1,41 @@
+package one.password.util;
+
+/**
+ * Interfaces for reactive streams with backpressure. Mirrors {@code java.util.concurrent.Flow} of
+ * Java 9 and later method by method, so implementations can be adapted with method references.
+ */
+public final class Flow {
+	private Flow() {
+	}
+
+	/** Producer of items received by subscribers according to their demand. */
+	@FunctionalInterface
+	public static interface Publisher<T> {
+		/** Adds the subscriber, which first receives {@link Subscriber#onSubscribe}. */
+		public void subscribe(Subscriber<? super T> subscriber);
+	}
+
+	/** Receiver of items. */
+	public static interface Subscriber<T> {
+		/** Invoked before any other method with the subscription used to request items. */
+		public void onSubscribe(Subscription subscription);
+
+		/** Invoked with the next item, never more often than requested. */
+		public void onNext(T item);
+
+		/** Invoked on an unrecoverable error. No further methods are invoked. */
+		public void onError(Throwable throwable);
+
+		/** Invoked when all items have been published. No further methods are invoked. */
+		public void onComplete();
+	}
+
+	/** Link between a publisher and a subscriber. */
+	public static interface Subscription {
+		/** Adds demand for n more items. Requests with n <= 0 signal an error. */
+		public void request(long n);
+
+		/** Stops publishing items and releases resources. */
+		public void cancel();
+	}
+}
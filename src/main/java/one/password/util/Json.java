@@ -1,12 +1,29 @@
 package one.password.util;
 
+import java.io.Closeable;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
 import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.SerializedName;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 
 /** Utilities for converting Java objects from/to Json. */
@@ -19,30 +36,237 @@ public class Json {
 					out.value(value.toString());
 				}
 
+				/** Reads ISO-8601 strings or, e.g. from snapshot files, epoch milliseconds. */
 				@Override
 				public ZonedDateTime read(JsonReader in) throws IOException {
+					if (in.peek() == JsonToken.NUMBER) {
+						return Instant.ofEpochMilli(in.nextLong()).atZone(ZoneOffset.UTC);
+					}
 					return ZonedDateTime.parse(in.nextString());
 				}
 
 			};
 
+	private static final TypeAdapter<LazyDateTime> LAZY_DATE_TIME_ADAPTER =
+			new TypeAdapter<LazyDateTime>() {
 
-	private static final Gson GSON = new GsonBuilder()
-			.registerTypeAdapter(ZonedDateTime.class, ZONED_DATE_TIME_ADAPTER).create();
+				@Override
+				public void write(JsonWriter out, LazyDateTime value) throws IOException {
+					out.value(value.raw());
+				}
+
+				/** Keeps the raw token, see {@link #ZONED_DATE_TIME_ADAPTER} for the formats. */
+				@Override
+				public LazyDateTime read(JsonReader in) throws IOException {
+					if (in.peek() == JsonToken.NUMBER) {
+						return LazyDateTime.ofEpochMilli(in.nextLong());
+					}
+					return LazyDateTime.of(in.nextString());
+				}
+
+			};
+
+	/** Holder of the Gson instances, initialized on first use. */
+	private static class Holder {
+		private static final Gson GSON = new GsonBuilder()
+				.registerTypeAdapter(ZonedDateTime.class, ZONED_DATE_TIME_ADAPTER.nullSafe())
+				.registerTypeAdapter(LazyDateTime.class, LAZY_DATE_TIME_ADAPTER.nullSafe())
+				.create();
+
+		/** Gson instances by projected fields, each caching its own adapters. */
+		private static final Map<Set<String>, Gson> PROJECTIONS = new ConcurrentHashMap<>();
+
+		private static Gson projection(Set<String> fields) {
+			return PROJECTIONS.computeIfAbsent(fields,
+					key -> GSON.newBuilder().addDeserializationExclusionStrategy(
+							new ExclusionStrategy() {
+								@Override
+								public boolean shouldSkipField(FieldAttributes field) {
+									SerializedName name = field.getAnnotation(SerializedName.class);
+									return !key.contains(
+											name == null ? field.getName() : name.value());
+								}
+
+								@Override
+								public boolean shouldSkipClass(Class<?> clazz) {
+									return false;
+								}
+							}).create());
+		}
+	}
+
+	/**
+	 * Creates and caches the Gson adapters of the given types, so the first deserialization does
+	 * not pay for reflection.
+	 */
+	public static void prime(Class<?>... types) {
+		for (Class<?> type : types) {
+			Holder.GSON.getAdapter(type);
+		}
+	}
 
 	/**
 	 * Deserializes a JSON String to a Java Object.
 	 */
 	public static <T> T deserialize(String json, Class<T> clazz) throws IOException {
 		try {
-			return GSON.fromJson(json, clazz);
+			return Holder.GSON.fromJson(json, clazz);
 		} catch (JsonParseException e) {
 			throw new IOException(e.getMessage() + "\nJson:\n" + json, e);
 		}
 	}
 
+	/** Deserializes JSON read from a reader to a Java Object. The reader is not closed. */
+	public static <T> T deserialize(Reader json, Class<T> clazz) throws IOException {
+		try {
+			return Holder.GSON.fromJson(json, clazz);
+		} catch (JsonParseException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Deserializes JSON read from a reader to a Java Object, only reading the fields with the given
+	 * serialized names and skipping all other values while parsing. The reader is not closed.
+	 */
+	public static <T> T deserialize(Reader json, Class<T> clazz, Set<String> fields)
+			throws IOException {
+		try {
+			return Holder.projection(fields).fromJson(json, clazz);
+		} catch (JsonParseException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Deserializes a JSON String to a Java Object, only reading the fields with the given
+	 * serialized names.
+	 */
+	public static <T> T deserialize(String json, Class<T> clazz, Set<String> fields)
+			throws IOException {
+		try {
+			return Holder.projection(fields).fromJson(json, clazz);
+		} catch (JsonParseException e) {
+			throw new IOException(e.getMessage() + "\nJson:\n" + json, e);
+		}
+	}
+
+	/**
+	 * Deserializes a sequence of concatenated JSON values, e.g. printed by CLI commands for several
+	 * entities. Arrays in the sequence are flattened.
+	 */
+	public static <T> List<T> deserializeAll(String json, Class<T> clazz) throws IOException {
+		List<T> values = new ArrayList<>();
+		if (json.trim().isEmpty()) {
+			return values;
+		}
+
+		try (JsonReader reader = new JsonReader(new StringReader(json))) {
+			reader.setLenient(true);
+			while (reader.peek() != JsonToken.END_DOCUMENT) {
+				if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+					values.add(Holder.GSON.fromJson(reader, clazz));
+					continue;
+				}
+
+				reader.beginArray();
+				while (reader.hasNext()) {
+					values.add(Holder.GSON.fromJson(reader, clazz));
+				}
+				reader.endArray();
+			}
+		} catch (JsonParseException | IllegalStateException e) {
+			throw new IOException(e.getMessage() + "\nJson:\n" + json, e);
+		}
+		return values;
+	}
+
+	/**
+	 * Returns a parser for a JSON array that deserializes one element after the other from the
+	 * reader. A missing or null array is treated as empty.
+	 */
+	public static <T> ArrayParser<T> parseArray(Reader reader, Class<T> clazz) {
+		return new ArrayParser<>(new JsonReader(reader), clazz);
+	}
+
+	/** Deserializes a JSON tree to a Java Object. */
+	public static <T> T deserialize(JsonElement json, Class<T> clazz) throws IOException {
+		try {
+			return Holder.GSON.fromJson(json, clazz);
+		} catch (JsonParseException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+	}
+
+	/** Converts a Java Object to a JSON tree, e.g. for accessing the serialized fields. */
+	public static JsonElement toTree(Object object) {
+		return Holder.GSON.toJsonTree(object);
+	}
+
 	/** Serializes a Java Object to Json. */
 	public static String serialize(Object object) {
-		return GSON.toJson(object);
+		return Holder.GSON.toJson(object);
+	}
+
+	/** Incremental parser of JSON arrays. Closing the parser closes the underlying reader. */
+	public static class ArrayParser<T> implements Closeable {
+		private final JsonReader reader;
+		private final Class<T> clazz;
+		private boolean started = false;
+		private boolean empty = false;
+
+		private ArrayParser(JsonReader reader, Class<T> clazz) {
+			this.reader = reader;
+			this.clazz = clazz;
+		}
+
+		/** Returns whether another element is available, reading ahead if necessary. */
+		public boolean hasNext() throws IOException {
+			try {
+				if (!started) {
+					started = true;
+					begin();
+				}
+
+				return !empty && reader.hasNext();
+			} catch (IllegalStateException e) {
+				throw new IOException(e.getMessage(), e);
+			}
+		}
+
+		private void begin() throws IOException {
+			JsonToken token;
+			try {
+				token = reader.peek();
+			} catch (EOFException e) {
+				empty = true;
+				return;
+			}
+
+			if (token == JsonToken.NULL) {
+				empty = true;
+				return;
+			}
+
+			reader.beginArray();
+		}
+
+		/** Deserializes the next element. */
+		public T next() throws IOException {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			try {
+				return Holder.GSON.fromJson(reader, clazz);
+			} catch (JsonParseException e) {
+				throw new IOException(e.getMessage(), e);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			reader.close();
+		}
 	}
 }
@@ -0,0 +1,137 @@
+package one.password.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the elements of a JSON array read from a source, e.g. the output of a 1password CLI
+ * process. Elements are parsed only as demanded by the subscriber, so a slow subscriber slows down
+ * reading instead of buffering. Each subscription opens the source anew. Items are delivered on
+ * {@link Threads#executor()}.
+ */
+public class JsonArrayPublisher<T> implements Flow.Publisher<T> {
+	private final SupplierWithException<Reader, IOException> source;
+	private final Class<T> type;
+
+	public JsonArrayPublisher(SupplierWithException<Reader, IOException> source, Class<T> type) {
+		this.source = source;
+		this.type = type;
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super T> subscriber) {
+		Objects.requireNonNull(subscriber);
+		subscriber.onSubscribe(new ArraySubscription(subscriber));
+	}
+
+	private class ArraySubscription implements Flow.Subscription {
+		private final Flow.Subscriber<? super T> subscriber;
+		private final AtomicLong demand = new AtomicLong();
+		private final AtomicInteger pendingDrains = new AtomicInteger();
+		private volatile boolean cancelled = false;
+		private volatile Throwable invalidRequest;
+
+		/** Only accessed while draining. */
+		private Json.ArrayParser<T> parser;
+		private boolean done = false;
+
+		private ArraySubscription(Flow.Subscriber<? super T> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				invalidRequest =
+						new IllegalArgumentException("Requested non-positive number of items: " + n);
+			} else {
+				demand.accumulateAndGet(n, (current, added) -> {
+					long sum = current + added;
+					return sum < 0 ? Long.MAX_VALUE : sum;
+				});
+			}
+
+			scheduleDrain();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			scheduleDrain();
+		}
+
+		private void scheduleDrain() {
+			if (pendingDrains.getAndIncrement() == 0) {
+				Threads.executor().execute(this::drain);
+			}
+		}
+
+		private void drain() {
+			int missed = 1;
+			do {
+				drainOnce();
+				missed = pendingDrains.addAndGet(-missed);
+			} while (missed != 0);
+		}
+
+		private void drainOnce() {
+			if (done) {
+				return;
+			}
+
+			try {
+				if (invalidRequest != null) {
+					finish();
+					subscriber.onError(invalidRequest);
+					return;
+				}
+
+				if (cancelled) {
+					finish();
+					return;
+				}
+
+				if (parser == null) {
+					parser = Json.parseArray(source.get(), type);
+				}
+
+				while (demand.get() > 0 && !cancelled) {
+					if (!parser.hasNext()) {
+						finish();
+						subscriber.onComplete();
+						return;
+					}
+
+					T element = parser.next();
+					if (demand.get() != Long.MAX_VALUE) {
+						demand.decrementAndGet();
+					}
+					subscriber.onNext(element);
+				}
+
+				if (cancelled) {
+					finish();
+				}
+			} catch (IOException | RuntimeException e) {
+				if (!done) {
+					finish();
+					subscriber.onError(e);
+				}
+			}
+		}
+
+		private void finish() {
+			done = true;
+			if (parser != null) {
+				try {
+					parser.close();
+				} catch (IOException e) {
+					// nothing left to report to
+				}
+			}
+		}
+	}
+}
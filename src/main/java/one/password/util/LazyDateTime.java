@@ -0,0 +1,60 @@
+package one.password.util;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * Timestamp of an entity that keeps its raw JSON value and parses it on first access, as most
+ * callers of list commands never read timestamps. Serialization writes the raw value back.
+ */
+public final class LazyDateTime {
+	private final String raw;
+	private final long millis;
+	private ZonedDateTime parsed;
+
+	private LazyDateTime(String raw, long millis) {
+		this.raw = raw;
+		this.millis = millis;
+	}
+
+	/** Creates a timestamp from an ISO-8601 string. */
+	static LazyDateTime of(String raw) {
+		return new LazyDateTime(raw, 0);
+	}
+
+	/** Creates a timestamp from epoch milliseconds, e.g. from snapshot files. */
+	static LazyDateTime ofEpochMilli(long millis) {
+		return new LazyDateTime(null, millis);
+	}
+
+	/** Returns the parsed timestamp, null if the given one is null. */
+	public static ZonedDateTime resolve(LazyDateTime timestamp) {
+		return timestamp == null ? null : timestamp.get();
+	}
+
+	/** Returns the parsed timestamp. */
+	public ZonedDateTime get() {
+		// racy, but parsing is idempotent and ZonedDateTime immutable
+		ZonedDateTime result = parsed;
+		if (result == null) {
+			if (raw == null) {
+				result = Instant.ofEpochMilli(millis).atZone(ZoneOffset.UTC);
+			} else {
+				result = ZonedDateTime.parse(raw);
+			}
+			parsed = result;
+		}
+		return result;
+	}
+
+	/** Returns the value as serialized. */
+	String raw() {
+		return raw == null ? get().toString() : raw;
+	}
+
+	@Override
+	public String toString() {
+		return raw();
+	}
+}
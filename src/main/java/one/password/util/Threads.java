@@ -0,0 +1,54 @@
+package one.password.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads for executing blocking 1password CLI commands asynchronously. Uses a cached pool of
+ * daemon platform threads; on Java 21 and later the multi-release layer replaces this class with
+ * one using virtual threads.
+ */
+public final class Threads {
+	private static final AtomicInteger COUNTER = new AtomicInteger();
+
+	private static final ThreadFactory THREAD_FACTORY = runnable -> {
+		Thread thread = new Thread(runnable, "op-" + COUNTER.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	};
+
+	private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(THREAD_FACTORY);
+
+	private Threads() {
+	}
+
+	/** Returns whether blocking commands are executed on virtual threads. */
+	public static boolean isVirtual() {
+		return false;
+	}
+
+	/** Returns the shared executor for blocking commands. */
+	public static ExecutorService executor() {
+		return EXECUTOR;
+	}
+
+	/**
+	 * Executes the action asynchronously on the shared executor. The returned future completes
+	 * exceptionally with the original exception if the action fails.
+	 */
+	public static <T, E extends Exception> CompletableFuture<T> async(
+			SupplierWithException<T, E> action) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		EXECUTOR.execute(() -> {
+			try {
+				future.complete(action.get());
+			} catch (Throwable e) {
+				future.completeExceptionally(e);
+			}
+		});
+		return future;
+	}
+}
@@ -0,0 +1,157 @@
+package one.password.cli;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Emits JDK Flight Recorder events for CLI invocations. Java 21 variant of the multi-release JAR:
+ * commands are recorded as duration events spanning the CLI process, so they line up with thread
+ * states, GC and lock contention of the same recording.
+ */
+final class FlightRecorder {
+	private static final OpListener LISTENER = new JfrListener();
+
+	private FlightRecorder() {
+	}
+
+	/** Returns the listener emitting JFR events if supported by the running JVM. */
+	static Optional<OpListener> listener() {
+		return Optional.of(LISTENER);
+	}
+
+	@Name("one.password.Command")
+	@Label("1Password CLI Command")
+	@Category("1Password")
+	@Description("Invocation of the 1password CLI")
+	static class CommandEvent extends Event {
+		@Label("Command")
+		String command;
+
+		@Label("Arguments")
+		@Description("Arguments with secrets redacted")
+		String arguments;
+
+		@Label("Attempt")
+		int attempt;
+
+		@Label("Spawn Duration")
+		@Timespan(Timespan.NANOSECONDS)
+		long spawnDuration;
+
+		@Label("Wait Duration")
+		@Timespan(Timespan.NANOSECONDS)
+		long waitDuration;
+
+		@Label("Output Characters")
+		long outputSize;
+
+		@Label("Exit Code")
+		int exitCode;
+
+		@Label("Error Type")
+		String errorType;
+	}
+
+	@Name("one.password.Signin")
+	@Label("1Password Signin")
+	@Category("1Password")
+	static class SigninEvent extends Event {
+		@Label("Shorthand")
+		String shorthand;
+
+		@Label("Cause")
+		String cause;
+
+		@Label("Reason")
+		String reason;
+
+		@Label("Signin Duration")
+		@Timespan(Timespan.NANOSECONDS)
+		long signinDuration;
+
+		@Label("Successful")
+		boolean successful;
+	}
+
+	@Name("one.password.Parse")
+	@Label("1Password Output Parsing")
+	@Category("1Password")
+	static class ParseEvent extends Event {
+		@Label("Type")
+		Class<?> type;
+
+		@Label("Characters")
+		long size;
+
+		@Label("Parse Duration")
+		@Timespan(Timespan.NANOSECONDS)
+		long parseDuration;
+	}
+
+	private static class JfrListener implements OpListener {
+		private final Map<Invocation, CommandEvent> running = new ConcurrentHashMap<>();
+
+		@Override
+		public void onStart(Invocation invocation) {
+			CommandEvent event = new CommandEvent();
+			if (event.isEnabled()) {
+				event.begin();
+				running.put(invocation, event);
+			}
+		}
+
+		@Override
+		public void onCommand(Invocation invocation) {
+			CommandEvent event = running.remove(invocation);
+			if (event == null) {
+				return;
+			}
+
+			event.end();
+			if (event.shouldCommit()) {
+				event.command = invocation.getCommand();
+				event.arguments = String.join(" ", invocation.getArguments());
+				event.attempt = invocation.getAttempt();
+				event.spawnDuration = invocation.getSpawnNanos();
+				event.waitDuration = invocation.getWaitNanos();
+				event.outputSize = invocation.getOutputSize();
+				event.exitCode = invocation.getExitCode().orElse(-1);
+				if (invocation.getError() != null) {
+					event.errorType = invocation.getError().getType().name();
+				}
+				event.commit();
+			}
+		}
+
+		@Override
+		public void onSignin(Signin signin) {
+			SigninEvent event = new SigninEvent();
+			if (event.shouldCommit()) {
+				event.shorthand = signin.getShorthand();
+				event.cause = signin.getCause().name();
+				event.reason = signin.getReason();
+				event.signinDuration = signin.getNanos();
+				event.successful = signin.isSuccessful();
+				event.commit();
+			}
+		}
+
+		@Override
+		public void onParse(Class<?> type, long size, long nanos) {
+			ParseEvent event = new ParseEvent();
+			if (event.shouldCommit()) {
+				event.type = type;
+				event.size = size;
+				event.parseDuration = nanos;
+				event.commit();
+			}
+		}
+	}
+}
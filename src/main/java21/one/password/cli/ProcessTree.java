@@ -0,0 +1,93 @@
+package one.password.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Descendants of a 1password CLI process. Java 21 variant of the multi-release JAR: child processes
+ * of this JVM are matched by executable, arguments and start time, so their descendants can be
+ * captured before the CLI process is destroyed and destroyed afterwards, once they have been
+ * reparented. Commands with the same arguments started at the same time cannot be told apart.
+ */
+final class ProcessTree {
+	/** Tolerance for the start time reported by the operating system, which may be truncated. */
+	private static final Duration START_TOLERANCE = Duration.ofSeconds(1);
+
+	private final List<ProcessHandle> descendants;
+
+	private ProcessTree(List<ProcessHandle> descendants) {
+		this.descendants = descendants;
+	}
+
+	/**
+	 * Captures the descendants of child processes running the command started after the time. The
+	 * cache daemon the command may have spawned is spared, as it is shared by all commands.
+	 */
+	static ProcessTree descendants(List<String> command, Instant startedAfter) {
+		Path executable = resolve(command.get(0));
+		return new ProcessTree(ProcessHandle.current().children()
+				.filter(child -> matches(child.info(), executable, command, startedAfter))
+				.flatMap(ProcessHandle::descendants)
+				.filter(descendant -> !isDaemon(descendant.info(), executable)).toList());
+	}
+
+	/** Returns whether a cache daemon of the executable is running, if known. */
+	static Optional<Boolean> isDaemonRunning(String executable) {
+		Path resolved = resolve(executable);
+		return Optional.of(ProcessHandle.allProcesses()
+				.anyMatch(process -> isDaemon(process.info(), resolved)));
+	}
+
+	private static boolean isDaemon(ProcessHandle.Info info, Path executable) {
+		return info.command().map(Paths::get).map(ProcessTree::resolve).filter(executable::equals)
+				.isPresent()
+				&& info.arguments().map(Arrays::asList)
+						.filter(arguments -> arguments.contains(CacheDaemon.COMMAND)).isPresent();
+	}
+
+	private static boolean matches(ProcessHandle.Info info, Path executable, List<String> command,
+			Instant startedAfter) {
+		if (!info.command().map(Paths::get).map(ProcessTree::resolve).filter(executable::equals)
+				.isPresent()) {
+			return false;
+		}
+		if (info.arguments().isPresent() && !Arrays.asList(info.arguments().get())
+				.equals(command.subList(1, command.size()))) {
+			return false;
+		}
+		return info.startInstant()
+				.map(start -> !start.isBefore(startedAfter.minus(START_TOLERANCE))).orElse(true);
+	}
+
+	/** Resolves an executable via the PATH and symbolic links, as the OS reports real paths. */
+	private static Path resolve(String executable) {
+		Path path = Paths.get(executable);
+		if (path.getParent() == null) {
+			path = Arrays.stream(System.getenv().getOrDefault("PATH", "").split(File.pathSeparator))
+					.map(directory -> Paths.get(directory, executable)).filter(Files::isExecutable)
+					.findFirst().orElse(path);
+		}
+		return resolve(path);
+	}
+
+	private static Path resolve(Path path) {
+		try {
+			return path.toRealPath();
+		} catch (IOException e) {
+			return path.toAbsolutePath();
+		}
+	}
+
+	/** Forcibly destroys the captured processes. */
+	void destroy() {
+		descendants.forEach(ProcessHandle::destroyForcibly);
+	}
+}
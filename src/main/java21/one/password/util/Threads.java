@@ -0,0 +1,45 @@
+package one.password.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Threads for executing blocking 1password CLI commands asynchronously. Java 21 variant of the
+ * multi-release JAR: each command runs on its own virtual thread, so waiting for a CLI process
+ * does not block a platform thread.
+ */
+public final class Threads {
+	private static final ExecutorService EXECUTOR =
+			Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("op-", 1).factory());
+
+	private Threads() {
+	}
+
+	/** Returns whether blocking commands are executed on virtual threads. */
+	public static boolean isVirtual() {
+		return true;
+	}
+
+	/** Returns the shared executor for blocking commands. */
+	public static ExecutorService executor() {
+		return EXECUTOR;
+	}
+
+	/**
+	 * Executes the action asynchronously on the shared executor. The returned future completes
+	 * exceptionally with the original exception if the action fails.
+	 */
+	public static <T, E extends Exception> CompletableFuture<T> async(
+			SupplierWithException<T, E> action) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		EXECUTOR.execute(() -> {
+			try {
+				future.complete(action.get());
+			} catch (Throwable e) {
+				future.completeExceptionally(e);
+			}
+		});
+		return future;
+	}
+}
@@ -0,0 +1,181 @@
+package one.password;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import one.password.cli.ErrorType;
+import one.password.cli.OpException;
+import one.password.cli.OpMock;
+import one.password.cli.RetryPolicy;
+import one.password.util.Json;
+
+public class MutationQueueTest {
+	@Test
+	void testWriteBehind(@TempDir Path directory) throws IOException {
+		OnePasswordMock api = new OnePasswordMock();
+		User user = Json.deserialize("{\"uuid\":\"u1\",\"state\":\"A\"}", User.class);
+		Group group = Json.deserialize("{\"uuid\":\"g1\",\"name\":\"Team\"}", Group.class);
+
+		try (MutationQueue queue = new MutationQueue(api, directory.resolve("queue"))) {
+			MutationQueue.Handle grant = queue.grantAccessTo(user, group);
+			MutationQueue.Handle suspend = queue.suspend(user);
+			Assertions.assertThat(suspend.getSequence()).isGreaterThan(grant.getSequence());
+			suspend.completed().join();
+			Assertions.assertThat(grant.durable()).isDone();
+		}
+
+		Assertions.assertThat(user.isSuspended()).isTrue();
+		Assertions.assertThat(api.getCommands()).containsExactly(
+				Arrays.asList("add", "user", "u1", "g1"), Arrays.asList("suspend", "u1"));
+		Assertions.assertThat(Files.size(directory.resolve("queue"))).isZero();
+	}
+
+	@Test
+	void testEditModified(@TempDir Path directory) throws IOException {
+		OnePasswordMock api = new OnePasswordMock();
+		User user = Json.deserialize("{\"uuid\":\"u1\",\"name\":\"Alice\"}", User.class);
+
+		try (MutationQueue queue = new MutationQueue(api, directory.resolve("queue"))) {
+			Assertions.assertThat(queue.edit(user).completed()).isDone();
+			user.setName("Bob");
+			queue.edit(user).completed().join();
+		}
+
+		Assertions.assertThat(user.isModified()).isFalse();
+		Assertions.assertThat(api.getElidedEdits()).isEqualTo(1);
+		Assertions.assertThat(api.getCommands())
+				.containsExactly(Arrays.asList("edit", "user", "u1", "--name=Bob"));
+	}
+
+	@Test
+	void testEditWhileSaving(@TempDir Path directory) throws IOException {
+		CountDownLatch release = new CountDownLatch(1);
+		OnePasswordMock api = new OnePasswordMock(new OpMock() {
+			@Override
+			public String execute(Session session, String... arguments) throws IOException {
+				if (arguments[0].equals("edit")) {
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return super.execute(session, arguments);
+			}
+		});
+		User user = Json.deserialize("{\"uuid\":\"u1\",\"name\":\"Alice\"}", User.class);
+
+		try (MutationQueue queue = new MutationQueue(api, directory.resolve("queue"))) {
+			user.setName("Bob");
+			MutationQueue.Handle first = queue.edit(user);
+			user.setName("Carol");
+			release.countDown();
+			first.completed().join();
+			Assertions.assertThat(user.getModifiedFields()).containsExactly("name");
+
+			queue.edit(user).completed().join();
+			user.setName("Bob");
+			Assertions.assertThat(user.getModifiedFields()).as("Bob has been saved before")
+					.containsExactly("name");
+		}
+
+		Assertions.assertThat(api.getCommands()).containsExactly(
+				Arrays.asList("edit", "user", "u1", "--name=Bob"),
+				Arrays.asList("edit", "user", "u1", "--name=Carol"));
+	}
+
+	@Test
+	void testResume(@TempDir Path directory) throws IOException {
+		Path file = directory.resolve("queue");
+		Files.write(file, ("{\"sequence\":1,\"key\":\"user:u1\",\"arguments\":[\"suspend\",\"u1\"]}\n"
+				+ "{\"sequence\":2,\"key\":\"user:u1\",\"arguments\":[\"reactivate\",\"u1\"]}\n"
+				+ "{\"sequence\":1,\"done\":true}\n" + "{\"sequence\":3,\"key\":")
+						.getBytes(StandardCharsets.UTF_8));
+
+		OnePasswordMock api = new OnePasswordMock();
+		try (MutationQueue queue = new MutationQueue(api, file)) {
+			Assertions.assertThat(queue.getRecovered()).hasSize(1);
+			queue.getRecovered().get(0).completed().join();
+		}
+		Assertions.assertThat(api.getCommands())
+				.containsExactly(Arrays.asList("reactivate", "u1"));
+	}
+
+	@Test
+	void testCompaction(@TempDir Path directory) throws IOException, InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		OnePasswordMock api = new OnePasswordMock(new OpMock() {
+			@Override
+			public String execute(Session session, String... arguments) throws IOException {
+				if (arguments[0].equals("confirm")) {
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return super.execute(session, arguments);
+			}
+		});
+		User pending = Json.deserialize("{\"uuid\":\"u1\"}", User.class);
+		User user = Json.deserialize("{\"uuid\":\"u2\",\"state\":\"A\"}", User.class);
+		Path file = directory.resolve("queue");
+
+		try (MutationQueue queue = new MutationQueue(api, file).setCompactThreshold(4)) {
+			MutationQueue.Handle confirm = queue.confirm(pending);
+			confirm.durable().join();
+			for (int i = 0; i < 20; i++) {
+				queue.suspend(user).completed().join();
+				queue.reactivate(user).completed().join();
+			}
+
+			List<String> lines = Files.readAllLines(file);
+			Assertions.assertThat(lines.size()).isLessThan(10);
+			Assertions.assertThat(lines.get(0)).contains("confirm");
+			release.countDown();
+			confirm.completed().join();
+		}
+		Assertions.assertThat(api.getCommands()).hasSize(41);
+	}
+
+	@Test
+	void testRetryOnlyNotExecuted(@TempDir Path directory) throws IOException {
+		Deque<ErrorType> errors =
+				new ArrayDeque<>(Arrays.asList(ErrorType.RATE_LIMIT, ErrorType.TIMEOUT));
+		OnePasswordMock api = new OnePasswordMock(new OpMock() {
+			@Override
+			public String execute(Session session, String... arguments) throws IOException {
+				super.execute(session, arguments);
+				ErrorType error = errors.poll();
+				if (error != null) {
+					throw new OpException(error, error.toString());
+				}
+				return "";
+			}
+		});
+		User user = Json.deserialize("{\"uuid\":\"u1\",\"state\":\"A\"}", User.class);
+		RetryPolicy retryPolicy = new RetryPolicy().setInitialBackoff(Duration.ZERO)
+				.setRetryOn(ErrorType.RATE_LIMIT, ErrorType.TIMEOUT);
+
+		try (MutationQueue queue =
+				new MutationQueue(api, directory.resolve("queue"), retryPolicy)) {
+			Assertions.assertThat(queue.suspend(user).completed())
+					.failsWithin(Duration.ofSeconds(5)).withThrowableOfType(ExecutionException.class)
+					.withCauseInstanceOf(OpException.class);
+		}
+		Assertions.assertThat(api.getCommands()).containsExactly(Arrays.asList("suspend", "u1"),
+				Arrays.asList("suspend", "u1"));
+		Assertions.assertThat(user.isSuspended()).isFalse();
+	}
+}
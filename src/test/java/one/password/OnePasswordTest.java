@@ -1,18 +1,30 @@
 package one.password;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import one.password.cli.CallOptions;
 import one.password.cli.OpTest;
+import one.password.cli.Priority;
 import org.assertj.core.api.Assertions;
 import org.assertj.core.api.Assumptions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import one.password.Entity.UserOrGroup;
@@ -24,6 +36,9 @@ import one.password.cli.OpMock;
 import one.password.test.TestConfig;
 import one.password.test.TestCredentials;
 import one.password.test.TestUtils;
+import one.password.util.Flow;
+import one.password.util.Json;
+import one.password.util.Threads;
 import one.password.util.Utils;
 
 class OnePasswordTest {
@@ -82,6 +97,185 @@ class OnePasswordTest {
 		Assertions.assertThat(mock.getCommands()).containsExactly(Arrays.asList("list", "users"));
 	}
 
+	@Test
+	void concurrentAutoSigninOnce() {
+		CountDownLatch expired = new CountDownLatch(2);
+		OnePasswordMock mock = new OnePasswordMock(new OpMock() {
+			private int signins = 0;
+
+			@Override
+			public Session signin(String signInAddress, String emailAddress, String secretKey,
+					Supplier<String> password, Session session) throws IOException {
+				super.signin(signInAddress, emailAddress, secretKey, password, session);
+				signins++;
+				return new Session("session" + signins, "shorthand");
+			}
+
+			@Override
+			public String execute(Session session, String... arguments) throws IOException {
+				if (session.getSession().equals("session1")) {
+					expired.countDown();
+					try {
+						expired.await(5, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						throw new InterruptedIOException();
+					}
+					throw new IOException("You are not currently signed in.");
+				}
+
+				return "[]";
+			}
+		});
+
+		CompletableFuture.allOf(Threads.async(() -> mock.users().list()),
+				Threads.async(() -> mock.users().list())).join();
+		Assertions.assertThat(mock.getSignins()).as("initial and a single renewal").hasSize(2);
+	}
+
+	@Test
+	void sharedSessionStore(@TempDir Path directory) throws IOException {
+		Config config = new Config().setShorthand("shorthand")
+				.setSessionStore(new SessionStore(directory.resolve("sessions")));
+		try (OnePasswordMock first = new OnePasswordMock(new OpMock(config));
+				OnePasswordMock second = new OnePasswordMock(new OpMock(config))) {
+			first.users().list();
+			second.users().list();
+			Assertions.assertThat(first.getSignins()).hasSize(1);
+			Assertions.assertThat(second.getSignins()).isEmpty();
+			Assertions.assertThat(second.session().getSession())
+					.isEqualTo(first.session().getSession());
+		}
+	}
+
+	@Test
+	void publishWithBackpressure() throws InterruptedException {
+		OnePasswordMock mock = new OnePasswordMock(new OpMock() {
+			@Override
+			public String execute(Session session, String... arguments) throws IOException {
+				super.execute(session, arguments);
+				return "[{\"uuid\": \"1\"}, {\"uuid\": \"2\"}, {\"uuid\": \"3\"}]";
+			}
+		});
+
+		BlockingQueue<Object> signals = new LinkedBlockingQueue<>();
+		AtomicReference<Flow.Subscription> subscription = new AtomicReference<>();
+		mock.users().publish().subscribe(new Flow.Subscriber<User>() {
+			@Override
+			public void onSubscribe(Flow.Subscription s) {
+				subscription.set(s);
+			}
+
+			@Override
+			public void onNext(User user) {
+				signals.add(user.getId());
+			}
+
+			@Override
+			public void onError(Throwable throwable) {
+				signals.add(throwable);
+			}
+
+			@Override
+			public void onComplete() {
+				signals.add("complete");
+			}
+		});
+
+		Assertions.assertThat(mock.getCommands()).isEmpty();
+		subscription.get().request(1);
+		Assertions.assertThat(signals.poll(5, TimeUnit.SECONDS)).isEqualTo("1");
+		Assertions.assertThat(signals.poll(100, TimeUnit.MILLISECONDS)).isNull();
+		subscription.get().request(5);
+		Assertions.assertThat(signals.poll(5, TimeUnit.SECONDS)).isEqualTo("2");
+		Assertions.assertThat(signals.poll(5, TimeUnit.SECONDS)).isEqualTo("3");
+		Assertions.assertThat(signals.poll(5, TimeUnit.SECONDS)).isEqualTo("complete");
+		Assertions.assertThat(mock.getCommands()).containsExactly(Arrays.asList("list", "users"));
+	}
+
+	@Test
+	void publishWithCallOptions() throws InterruptedException {
+		BlockingQueue<Priority> priorities = new LinkedBlockingQueue<>();
+		OnePasswordMock mock = new OnePasswordMock(new OpMock() {
+			@Override
+			public String execute(Session session, String... arguments) throws IOException {
+				priorities.add(CallOptions.current().getPriority());
+				return "[]";
+			}
+		});
+
+		Flow.Publisher<User> publisher = new CallOptions().setPriority(Priority.BULK)
+				.call(() -> mock.users().publish());
+		publisher.subscribe(new Flow.Subscriber<User>() {
+			@Override
+			public void onSubscribe(Flow.Subscription s) {
+				s.request(1);
+			}
+
+			@Override
+			public void onNext(User user) {
+			}
+
+			@Override
+			public void onError(Throwable throwable) {
+			}
+
+			@Override
+			public void onComplete() {
+			}
+		});
+
+		Assertions.assertThat(priorities.poll(5, TimeUnit.SECONDS)).isEqualTo(Priority.BULK);
+	}
+
+	@Test
+	void getAllWithoutPipedGet() throws IOException {
+		OnePasswordMock mock = new OnePasswordMock(new OpMock() {
+			@Override
+			public String execute(Session session, String... arguments) throws IOException {
+				super.execute(session, arguments);
+				if (arguments[0].equals("--version")) {
+					return "1.12.5";
+				}
+				if (arguments[2].equals("unknown")) {
+					throw new IOException("No user found: unknown");
+				}
+				return "{\"uuid\": \"" + arguments[2] + "\"}";
+			}
+		});
+
+		BatchResult<User> result = mock.users().getAll(Arrays.asList("1", "2", "unknown"));
+		Assertions.assertThat(result.getEntities().keySet()).containsExactly("1", "2");
+		Assertions.assertThat(result.getEntities().get("2").getId()).isEqualTo("2");
+		Assertions.assertThat(result.getErrors().keySet()).containsExactly("unknown");
+		Assertions.assertThat(result.isComplete()).isFalse();
+		Assertions.assertThat(mock.getCommands()).hasSize(4);
+	}
+
+	@Test
+	void editOnlyModifiedFields() throws IOException {
+		OnePasswordMock mock = new OnePasswordMock();
+		Group group = Json.deserialize("{\"uuid\":\"g1\",\"name\":\"Team\",\"desc\":\"\"}",
+				Group.class);
+		mock.groups().edit(group);
+		group.setName("Team");
+		mock.groups().edit(group);
+		Assertions.assertThat(mock.getCommands()).isEmpty();
+		Assertions.assertThat(mock.getElidedEdits()).isEqualTo(2);
+
+		group.setDescription("Everyone");
+		Assertions.assertThat(group.getModifiedFields()).containsExactly("desc");
+		mock.groups().edit(group);
+		Assertions.assertThat(mock.getCommands())
+				.containsExactly(Arrays.asList("edit", "group", "g1", "--description=Everyone"));
+		Assertions.assertThat(group.isModified()).isFalse();
+
+		group.setName("Other");
+		group.setName("Team");
+		mock.groups().edit(group);
+		Assertions.assertThat(mock.getCommands()).isEmpty();
+		Assertions.assertThat(mock.getElidedEdits()).isEqualTo(3);
+	}
+
 	@Test
 	void withoutConfig(TestCredentials credentials) {
 		Assumptions.assumeThat(OpTest.isOpOnPath()).isFalse();
@@ -168,6 +362,7 @@ class OnePasswordTest {
 			Assertions.assertThat(editedUser.getLastName()).isEmpty();
 			Assertions.assertThat(editedUser.getUpdatedAt()).isAfter(user.getUpdatedAt());
 			command.delete(editedUser);
+			editedUser.setName("deleted name");
 			Assertions.assertThatIOException().isThrownBy(() -> command.edit(editedUser));
 		}
 
@@ -614,6 +809,7 @@ class OnePasswordTest {
 			Assertions.assertThat(command.get(entity.getId()).getName())
 					.isEqualTo(secondaryId("edited"));
 			command.delete(entity);
+			entity.setName(secondaryId("deleted"));
 			Assertions.assertThatIOException().isThrownBy(() -> command.edit(entity));
 		}
 
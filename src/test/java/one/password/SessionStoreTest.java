@@ -0,0 +1,50 @@
+package one.password;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.assertj.core.api.Assertions;
+import org.assertj.core.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import one.password.util.Utils;
+
+public class SessionStoreTest {
+	@Test
+	void testRefreshOnlySignsInIfStoredSessionExpired(@TempDir Path directory)
+			throws IOException {
+		SessionStore store = new SessionStore(directory.resolve("sessions"));
+		Assertions.assertThat(store.load("foo")).isEmpty();
+
+		AtomicInteger signins = new AtomicInteger();
+		Session first = store.refresh("foo", null,
+				() -> new Session("token" + signins.incrementAndGet(), "foo"));
+		Assertions.assertThat(first.getSession()).isEqualTo("token1");
+		Assertions.assertThat(store.load("foo")).get().usingRecursiveComparison()
+				.isEqualTo(first);
+		Assertions.assertThat(store.load("bar")).isEmpty();
+
+		Session outdated = new Session("token0", "foo");
+		Assertions.assertThat(store.refresh("foo", outdated,
+				() -> new Session("token" + signins.incrementAndGet(), "foo")).getSession())
+				.isEqualTo("token1");
+		Assertions.assertThat(signins).hasValue(1);
+
+		Assertions.assertThat(store.refresh("foo", first,
+				() -> new Session("token" + signins.incrementAndGet(), "foo")).getSession())
+				.isEqualTo("token2");
+		Assertions.assertThat(new SessionStore(directory.resolve("sessions")).load("foo")).get()
+				.extracting(Session::getSession).isEqualTo("token2");
+	}
+
+	@Test
+	void testOwnerOnlyPermissions(@TempDir Path directory) throws IOException {
+		Assumptions.assumeThat(Utils.isWindowsOs()).isFalse();
+		Path file = directory.resolve("sessions");
+		new SessionStore(file).load("foo");
+		Assertions.assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(file)))
+				.isEqualTo("rw-------");
+	}
+}
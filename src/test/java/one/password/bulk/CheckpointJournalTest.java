@@ -0,0 +1,45 @@
+package one.password.bulk;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CheckpointJournalTest {
+	@Test
+	void testResume(@TempDir Path directory) throws IOException {
+		Path path = directory.resolve("journal");
+		try (CheckpointJournal journal = new CheckpointJournal(path)) {
+			Assertions.assertThat(journal.getCreated("a@example.com")).isEmpty();
+			journal.markCreated("A@example.com", "uuid-a");
+			journal.markGranted("a@example.com", "group-1");
+		}
+
+		// a crash while appending leaves a partial line behind
+		Files.write(path, "granted\ta@exa".getBytes(StandardCharsets.UTF_8),
+				StandardOpenOption.APPEND);
+
+		try (CheckpointJournal journal = new CheckpointJournal(path)) {
+			Assertions.assertThat(journal.getCreated("a@example.com")).contains("uuid-a");
+			Assertions.assertThat(journal.isGranted("a@example.com", "group-1")).isTrue();
+			Assertions.assertThat(journal.isGranted("a@example.com", "group-2")).isFalse();
+			journal.markGranted("a@example.com", "group-2");
+		}
+
+		Assertions.assertThat(Files.readAllLines(path)).containsExactly(
+				"created\ta@example.com\tuuid-a", "granted\ta@example.com\tgroup-1",
+				"granted\ta@example.com\tgroup-2");
+	}
+
+	@Test
+	void testCorruptJournal(@TempDir Path directory) throws IOException {
+		Path path = directory.resolve("journal");
+		Files.write(path, "unknown\n".getBytes(StandardCharsets.UTF_8));
+		Assertions.assertThatThrownBy(() -> new CheckpointJournal(path))
+				.isInstanceOf(IOException.class);
+	}
+}
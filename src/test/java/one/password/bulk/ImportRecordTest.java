@@ -0,0 +1,57 @@
+package one.password.bulk;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ImportRecordTest {
+	@Test
+	void testCsv() throws IOException {
+		List<ImportRecord> records = ImportRecord
+				.csv(new StringReader("name,email,groups\n" //
+						+ "\"Doe, Jane\",jane@example.com,Team; Admins\n" //
+						+ "\n" //
+						+ "\"John \"\"J\"\"\",john@example.com,\n"))
+				.collect(Collectors.toList());
+
+		Assertions.assertThat(records).hasSize(2);
+		Assertions.assertThat(records.get(0).getName()).isEqualTo("Doe, Jane");
+		Assertions.assertThat(records.get(0).getEmail()).isEqualTo("jane@example.com");
+		Assertions.assertThat(records.get(0).getLanguage()).isNull();
+		Assertions.assertThat(records.get(0).getGroups()).containsExactly("Team", "Admins");
+		Assertions.assertThat(records.get(1).getName()).isEqualTo("John \"J\"");
+		Assertions.assertThat(records.get(1).getGroups()).isEmpty();
+
+		Assertions.assertThatThrownBy(() -> ImportRecord.csv(new StringReader("name,groups\n")))
+				.isInstanceOf(IOException.class);
+	}
+
+	@Test
+	void testJsonLines() {
+		List<ImportRecord> records = ImportRecord.jsonLines(new StringReader(
+				"{\"email\":\"jane@example.com\",\"name\":\"Jane\",\"language\":\"de\"}\n"
+						+ "{\"email\":\"john@example.com\",\"name\":\"John\",\"groups\":[\"Team\"]}"))
+				.collect(Collectors.toList());
+
+		Assertions.assertThat(records).extracting(ImportRecord::getEmail)
+				.containsExactly("jane@example.com", "john@example.com");
+		Assertions.assertThat(records.get(0).getLanguage()).isEqualTo("de");
+		Assertions.assertThat(records.get(1).getGroups()).containsExactly("Team");
+	}
+
+	@Test
+	void testWithoutEmail() {
+		Assertions.assertThatThrownBy(() -> ImportRecord
+				.csv(new StringReader("email,name\n,Bob\n")).collect(Collectors.toList()))
+				.isInstanceOf(UncheckedIOException.class).hasMessageContaining(",Bob");
+		Assertions.assertThatThrownBy(() -> ImportRecord
+				.jsonLines(new StringReader("{\"name\":\"Bob\"}")).collect(Collectors.toList()))
+				.isInstanceOf(UncheckedIOException.class);
+		Assertions.assertThatThrownBy(() -> new ImportRecord("", "Bob", null, null))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,39 @@
+package one.password.bulk;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import one.password.OnePasswordMock;
+import one.password.Session;
+import one.password.cli.OpMock;
+
+public class UserImportTest {
+	@Test
+	void testRecordWithoutEmail(@TempDir Path directory) throws Exception {
+		OnePasswordMock api = new OnePasswordMock(new OpMock() {
+			@Override
+			public String execute(Session session, String... arguments) throws IOException {
+				super.execute(session, arguments);
+				return arguments[0].equals("list") ? "[]" : "";
+			}
+		});
+		try (CheckpointJournal journal = new CheckpointJournal(directory.resolve("journal"))) {
+			CompletableFuture<UserImport.Result> run = CompletableFuture.supplyAsync(() -> {
+				try {
+					return new UserImport(api).run(
+							ImportRecord.csv(new StringReader("email,name\n,Bob\n")), journal);
+				} catch (IOException e) {
+					throw new IllegalStateException(e);
+				}
+			});
+			Assertions.assertThatThrownBy(() -> run.get(5, TimeUnit.SECONDS))
+					.isInstanceOf(ExecutionException.class).hasMessageContaining(",Bob");
+		}
+	}
+}
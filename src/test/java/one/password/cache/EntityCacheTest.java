@@ -0,0 +1,98 @@
+package one.password.cache;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import one.password.Group;
+import one.password.User;
+import one.password.util.Json;
+
+public class EntityCacheTest {
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private User load(String json) throws IOException {
+		loads.incrementAndGet();
+		return Json.deserialize(json, User.class);
+	}
+
+	@Test
+	void testExpiry() throws IOException {
+		Clock clock = Clock.fixed(Instant.parse("2021-03-01T10:00:00Z"), ZoneOffset.UTC);
+		EntityCache cache = new EntityCache(Duration.ofMinutes(1)).setClock(clock);
+		String alice = "{\"uuid\":\"u1\",\"email\":\"alice@example.com\"}";
+		cache.get(User.class, "u1", () -> load(alice));
+		Assertions.assertThat(cache.get(User.class, "u1", () -> load(alice)).getEmail())
+				.isEqualTo("alice@example.com");
+		Assertions.assertThat(loads).hasValue(1);
+
+		cache.setClock(Clock.offset(clock, Duration.ofMinutes(1)));
+		cache.get(User.class, "u1", () -> load(alice));
+		Assertions.assertThat(loads).hasValue(2);
+		Assertions.assertThat(cache.getHits()).isEqualTo(1);
+		Assertions.assertThat(cache.getMisses()).isEqualTo(2);
+	}
+
+	@Test
+	void testInvalidate() throws IOException {
+		EntityCache cache = new EntityCache(Duration.ofMinutes(1));
+		cache.get(User.class, "alice@example.com",
+				() -> load("{\"uuid\":\"u1\",\"email\":\"alice@example.com\"}"));
+		cache.get(User.class, "u2", () -> load("{\"uuid\":\"u2\"}"));
+		cache.list(User.class, null, () -> new User[0]);
+		cache.list(Group.class, "u1", () -> new Group[0]);
+		cache.list(Group.class, null, () -> new Group[0]);
+		Assertions.assertThat(cache.size()).isEqualTo(5);
+
+		cache.invalidate(User.class, "u1");
+		Assertions.assertThat(cache.size()).isEqualTo(2);
+		cache.get(User.class, "u2", () -> load("{\"uuid\":\"u2\"}"));
+		Assertions.assertThat(cache.getHits()).isEqualTo(1);
+		cache.invalidateAll();
+		Assertions.assertThat(cache.size()).isZero();
+	}
+
+	@Test
+	void testCoalesceAndFailures() throws Exception {
+		EntityCache cache = new EntityCache(Duration.ofMinutes(1));
+		CountDownLatch loading = new CountDownLatch(1);
+		CompletableFuture<Void> release = new CompletableFuture<>();
+		CompletableFuture<User> first = CompletableFuture.supplyAsync(() -> {
+			try {
+				return cache.get(User.class, "u1", () -> {
+					loading.countDown();
+					release.join();
+					return load("{\"uuid\":\"u1\"}");
+				});
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		loading.await();
+		CompletableFuture<User> second = CompletableFuture.supplyAsync(() -> {
+			try {
+				return cache.get(User.class, "u1", () -> load("{\"uuid\":\"u1\"}"));
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		while (cache.getCoalesced() == 0) {
+			Thread.sleep(1);
+		}
+		release.complete(null);
+		Assertions.assertThat(second.get()).isSameAs(first.get());
+		Assertions.assertThat(loads).hasValue(1);
+
+		Assertions.assertThatIOException().isThrownBy(() -> cache.get(User.class, "u3", () -> {
+			throw new IOException("not found");
+		}));
+		Assertions.assertThat(cache.get(User.class, "u3", () -> load("{\"uuid\":\"u3\"}")))
+				.isNotNull();
+	}
+}
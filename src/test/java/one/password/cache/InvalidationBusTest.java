@@ -0,0 +1,90 @@
+package one.password.cache;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import one.password.Config;
+import one.password.Group;
+import one.password.OnePasswordMock;
+import one.password.User;
+import one.password.cli.OpMock;
+import one.password.util.Json;
+
+public class InvalidationBusTest {
+	@Test
+	void testPublishFromCommands() throws IOException {
+		LocalInvalidationBus bus = new LocalInvalidationBus();
+		List<Invalidation> invalidations = new CopyOnWriteArrayList<>();
+		bus.subscribe(invalidations::add);
+		bus.subscribe(invalidation -> {
+			throw new IllegalStateException();
+		});
+		OnePasswordMock api = new OnePasswordMock(new OpMock(new Config().setInvalidationBus(bus)));
+		User user = Json.deserialize("{\"uuid\":\"u1\",\"name\":\"Alice\"}", User.class);
+		Group group = Json.deserialize("{\"uuid\":\"g1\",\"name\":\"Team\"}", Group.class);
+
+		api.users().suspend(user);
+		api.users().edit(user);
+		user.setName("Bob");
+		api.users().edit(user);
+		api.users().grantAccessTo(user, group);
+		api.groups().delete(group);
+		api.users().confirmAll();
+
+		Assertions.assertThat(invalidations).containsExactly(new Invalidation(User.class, "u1"),
+				new Invalidation(User.class, "u1"), new Invalidation(User.class, "u1"),
+				new Invalidation(Group.class, "g1"), new Invalidation(Group.class, "g1"),
+				new Invalidation(User.class, null));
+	}
+
+	@Test
+	void testEvictCache() throws IOException {
+		EntityCache cache = new EntityCache(Duration.ofHours(1));
+		User user = Json.deserialize("{\"uuid\":\"u1\"}", User.class);
+		cache.get(User.class, "u1", () -> user);
+		cache.list(User.class, null, () -> new User[] {user});
+		cache.list(Group.class, null, () -> new Group[0]);
+
+		LocalInvalidationBus bus = new LocalInvalidationBus();
+		InvalidationBus.Subscription subscription = bus.subscribe(cache::invalidate);
+		bus.publish(new Invalidation(User.class, null));
+		Assertions.assertThat(cache.size()).isEqualTo(1);
+
+		subscription.close();
+		bus.publish(new Invalidation(Group.class, null));
+		Assertions.assertThat(cache.size()).isEqualTo(1);
+	}
+
+	@Test
+	void testUdpLoopback() throws IOException, InterruptedException {
+		InetSocketAddress ephemeral = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+		try (UdpInvalidationBus first = new UdpInvalidationBus(ephemeral, Collections.emptyList());
+				UdpInvalidationBus second =
+						new UdpInvalidationBus(ephemeral, Arrays.asList(first.getAddress()))) {
+			BlockingQueue<Invalidation> received = new LinkedBlockingQueue<>();
+			BlockingQueue<Invalidation> local = new LinkedBlockingQueue<>();
+			first.subscribe(received::add);
+			second.subscribe(local::add);
+
+			second.publish(new Invalidation(User.class, "u1"));
+			second.publish(new Invalidation(Group.class, null));
+
+			Assertions.assertThat(received.poll(5, TimeUnit.SECONDS))
+					.isEqualTo(new Invalidation(User.class, "u1"));
+			Assertions.assertThat(received.poll(5, TimeUnit.SECONDS))
+					.isEqualTo(new Invalidation(Group.class, null));
+			Assertions.assertThat(local).containsExactly(new Invalidation(User.class, "u1"),
+					new Invalidation(Group.class, null));
+		}
+	}
+}
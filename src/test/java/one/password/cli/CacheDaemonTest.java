@@ -0,0 +1,37 @@
+package one.password.cli;
+
+import java.time.Duration;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CacheDaemonTest {
+	@Test
+	void testStats() {
+		CacheDaemon daemon = new OpMock().cacheDaemon();
+		Assertions.assertThat(daemon.getStats().getSpeedup()).isEmpty();
+
+		daemon.record(read(true, 10));
+		daemon.record(read(true, 30));
+		daemon.record(read(false, 100));
+		Invocation failed = read(false, 1000);
+		failed.setError(new OpException(ErrorType.UNKNOWN, "failed"));
+		daemon.record(failed);
+		daemon.record(new Invocation(1, Commands.EDIT.toString(), "user", "uuid"));
+
+		CacheDaemon.Stats stats = daemon.getStats();
+		Assertions.assertThat(stats.getCachedReads()).isEqualTo(2);
+		Assertions.assertThat(stats.getCachedMean()).isEqualTo(Duration.ofMillis(20));
+		Assertions.assertThat(stats.getUncachedReads()).isEqualTo(1);
+		Assertions.assertThat(stats.getUncachedMean()).isEqualTo(Duration.ofMillis(100));
+		Assertions.assertThat(stats.getSpeedup()).hasValue(5);
+		Assertions.assertThat(stats.getRestarts()).isZero();
+	}
+
+	private static Invocation read(boolean cached, long millis) {
+		Invocation invocation = new Invocation(1, Commands.LIST.toString(), "users");
+		invocation.setCached(cached);
+		invocation.setSpawnNanos(0);
+		invocation.setWaitNanos(Duration.ofMillis(millis).toNanos());
+		return invocation;
+	}
+}
@@ -0,0 +1,71 @@
+package one.password.cli;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CallOptionsTest {
+	@Test
+	void testCurrent() {
+		CallOptions options = new CallOptions().setPriority(Priority.BULK);
+		Assertions.assertThat(CallOptions.current().getPriority()).isEqualTo(Priority.DEFAULT);
+		Assertions.assertThat(options.call(() -> CallOptions.current())).isSameAs(options);
+		Assertions.assertThat(CallOptions.current().getPriority()).isEqualTo(Priority.DEFAULT);
+	}
+
+	@Test
+	void testCancellation() throws OpException {
+		CancellationToken token = new CancellationToken();
+		CallOptions options = new CallOptions().setCancellation(token);
+		AtomicInteger destroyed = new AtomicInteger();
+		options.checkActive();
+
+		try (CallOptions.Watch watch = options.watch(destroyed::incrementAndGet)) {
+			token.cancel();
+			token.cancel();
+			Assertions.assertThat(destroyed).hasValue(1);
+			Assertions.assertThatThrownBy(() -> watch.checkNotFired(null))
+					.isInstanceOf(OpException.class).extracting(e -> ((OpException) e).getType())
+					.isEqualTo(ErrorType.CANCELLED);
+		}
+		Assertions.assertThatThrownBy(options::checkActive).isInstanceOf(OpException.class);
+	}
+
+	@Test
+	void testDeadline() throws Exception {
+		CountDownLatch destroyed = new CountDownLatch(1);
+		CallOptions options = new CallOptions().setTimeout(Duration.ofMillis(50));
+		Assertions.assertThat(options.getRemaining()).isPresent();
+
+		try (CallOptions.Watch watch = options.watch(destroyed::countDown)) {
+			Assertions.assertThat(destroyed.await(5, TimeUnit.SECONDS)).isTrue();
+			Assertions.assertThatThrownBy(() -> watch.checkNotFired(null))
+					.isInstanceOf(OpException.class).extracting(e -> ((OpException) e).getType())
+					.isEqualTo(ErrorType.TIMEOUT);
+		}
+	}
+
+	@Test
+	void testCancelWhileQueued() throws Exception {
+		LaneScheduler scheduler = new LaneScheduler(1, 0, Duration.ofHours(1));
+		LaneScheduler.Slot slot = scheduler.acquire(Priority.DEFAULT);
+		CancellationToken token = new CancellationToken();
+		Thread canceller = new Thread(() -> {
+			while (scheduler.getWaiting() == 0) {
+				Thread.yield();
+			}
+			token.cancel();
+		});
+		canceller.start();
+
+		Assertions.assertThatThrownBy(
+				() -> scheduler.acquire(new CallOptions().setCancellation(token)))
+				.isInstanceOf(OpException.class);
+		Assertions.assertThat(scheduler.getWaiting()).isEqualTo(0);
+		slot.close();
+		Assertions.assertThat(scheduler.getRunning()).isEqualTo(0);
+	}
+}
@@ -0,0 +1,22 @@
+package one.password.cli;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CapabilitiesTest {
+	@Test
+	void testParseVersion() {
+		Capabilities capabilities = new Capabilities("1.12.5\n");
+		Assertions.assertThat(capabilities.getVersion()).isEqualTo("1.12.5");
+		Assertions.assertThat(capabilities.getMajor()).isEqualTo(1);
+		Assertions.assertThat(capabilities.getMinor()).isEqualTo(12);
+		Assertions.assertThat(capabilities.getPatch()).isEqualTo(5);
+		Assertions.assertThat(capabilities.isAtLeast(1, 12)).isTrue();
+		Assertions.assertThat(capabilities.isAtLeast(2, 0)).isFalse();
+		Assertions.assertThat(new Capabilities("2.0.0-beta.3").isAtLeast(2, 0)).isTrue();
+		Assertions.assertThat(capabilities.isPipedGetSupported()).isFalse();
+		Assertions.assertThat(new Capabilities("2.4.1").isPipedGetSupported()).isTrue();
+		Assertions.assertThatThrownBy(() -> new Capabilities("unknown"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,99 @@
+package one.password.cli;
+
+import java.io.IOException;
+import java.time.Duration;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import one.password.Config;
+import one.password.Session;
+
+public class CircuitBreakerTest {
+	@Test
+	void testOpensAfterConsecutiveTransientErrors() throws OpException {
+		CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofHours(1));
+		breaker.acquire();
+		breaker.onFailure(ErrorType.NETWORK);
+		breaker.onFailure(ErrorType.UNKNOWN);
+		breaker.onFailure(ErrorType.SERVER);
+		Assertions.assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+		breaker.onFailure(ErrorType.SERVER);
+		Assertions.assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+		Assertions.assertThatThrownBy(breaker::acquire).isInstanceOf(OpException.class)
+				.extracting(e -> ((OpException) e).getType()).isEqualTo(ErrorType.CIRCUIT_OPEN);
+	}
+
+	@Test
+	void testHalfOpenAfterOpenDuration() throws OpException {
+		CircuitBreaker breaker = new CircuitBreaker(1, Duration.ZERO);
+		breaker.onFailure(ErrorType.TIMEOUT);
+		breaker.acquire();
+		Assertions.assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+		breaker.onFailure(ErrorType.TIMEOUT);
+		Assertions.assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+		breaker.acquire();
+		breaker.onSuccess();
+		Assertions.assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void testResetWhenClosedByTrial() throws OpException, InterruptedException {
+		CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofMillis(50));
+		breaker.onFailure(ErrorType.NETWORK);
+		breaker.onFailure(ErrorType.NETWORK);
+		Thread.sleep(100);
+		breaker.acquire();
+		breaker.onFailure(ErrorType.UNKNOWN);
+		Assertions.assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+		breaker.onFailure(ErrorType.NETWORK);
+		Assertions.assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+		breaker.onFailure(ErrorType.NETWORK);
+		Assertions.assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+	}
+
+	@Test
+	void testAbandonedTrial() throws OpException {
+		CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofHours(1));
+		breaker.acquire();
+		breaker.onAbandoned();
+		Assertions.assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+		breaker.onFailure(ErrorType.NETWORK);
+		Assertions.assertThatThrownBy(breaker::acquire).isInstanceOf(OpException.class);
+		breaker.onAbandoned();
+		Assertions.assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+	}
+
+	@Test
+	void testAbandonedHalfOpenTrial() throws OpException, InterruptedException {
+		CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofMillis(50));
+		breaker.onFailure(ErrorType.NETWORK);
+		Thread.sleep(100);
+		breaker.acquire();
+		Assertions.assertThatThrownBy(breaker::acquire).isInstanceOf(OpException.class);
+
+		breaker.onAbandoned();
+		Assertions.assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+		breaker.acquire();
+		Assertions.assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+	}
+
+	@Test
+	void testTrialReleasedIfNotScheduled() throws OpException {
+		CircuitBreaker breaker = new CircuitBreaker(1, Duration.ZERO);
+		breaker.onFailure(ErrorType.NETWORK);
+		LaneScheduler scheduler = new LaneScheduler() {
+			@Override
+			public Slot acquire(CallOptions options) throws IOException {
+				throw new OpException(ErrorType.CANCELLED, "Cancelled while waiting");
+			}
+		};
+		Op op = new Op(new Config().setCircuitBreaker(breaker).setScheduler(scheduler));
+
+		Assertions.assertThatThrownBy(() -> op.execute(new Session("s", "shorthand"), "list"))
+				.isInstanceOf(OpException.class).hasMessage("Cancelled while waiting");
+		Assertions.assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+		breaker.acquire();
+		Assertions.assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+	}
+}
@@ -0,0 +1,54 @@
+package one.password.cli;
+
+import java.io.IOException;
+import java.time.Duration;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ErrorTypeTest {
+	@Test
+	void testClassifyMessage() {
+		Assertions.assertThat(ErrorType.classify("You are not currently signed in."))
+				.isEqualTo(ErrorType.SIGNIN);
+		Assertions.assertThat(
+				ErrorType.classify("Your session expired, sign in to create a new session"))
+				.isEqualTo(ErrorType.SIGNIN);
+		Assertions.assertThat(ErrorType.classify("[ERROR] (429) Too Many Requests"))
+				.isEqualTo(ErrorType.RATE_LIMIT);
+		Assertions.assertThat(ErrorType.classify("dial tcp: lookup foo: no such host"))
+				.isEqualTo(ErrorType.NETWORK);
+		Assertions.assertThat(ErrorType.classify("[ERROR] (503) Service Unavailable"))
+				.isEqualTo(ErrorType.SERVER);
+		Assertions.assertThat(ErrorType.classify("Process timed out"))
+				.isEqualTo(ErrorType.TIMEOUT);
+		Assertions.assertThat(ErrorType.classify("Invalid user \"foo\"."))
+				.isEqualTo(ErrorType.UNKNOWN);
+		Assertions.assertThat(ErrorType.classify((String) null)).isEqualTo(ErrorType.UNKNOWN);
+	}
+
+	@Test
+	void testClassifyException() {
+		Assertions.assertThat(ErrorType.classify(new OpException(ErrorType.SERVER, "foo")))
+				.isEqualTo(ErrorType.SERVER);
+		Assertions.assertThat(ErrorType.classify(new IOException("session expired")))
+				.isEqualTo(ErrorType.SIGNIN);
+	}
+
+	@Test
+	void testRetryPolicy() {
+		RetryPolicy policy = new RetryPolicy().setMaxAttempts(3).setJitter(0)
+				.setInitialBackoff(Duration.ofMillis(100)).setMaxBackoff(Duration.ofMillis(300));
+		Assertions.assertThat(policy.shouldRetry(ErrorType.NETWORK, 1)).isTrue();
+		Assertions.assertThat(policy.shouldRetry(ErrorType.NETWORK, 3)).isFalse();
+		Assertions.assertThat(policy.shouldRetry(ErrorType.SIGNIN, 1)).isFalse();
+		Assertions.assertThat(policy.shouldRetry(ErrorType.TIMEOUT, 1)).isFalse();
+		Assertions.assertThat(policy.setRetryOn(ErrorType.TIMEOUT).shouldRetry(ErrorType.TIMEOUT, 1))
+				.isTrue();
+		Assertions.assertThat(policy.backoff(1)).isEqualTo(Duration.ofMillis(100));
+		Assertions.assertThat(policy.backoff(2)).isEqualTo(Duration.ofMillis(200));
+		Assertions.assertThat(policy.backoff(3)).isEqualTo(Duration.ofMillis(300));
+		Assertions.assertThat(policy.setJitter(1).backoff(2)).isBetween(Duration.ZERO,
+				Duration.ofMillis(200));
+		Assertions.assertThat(RetryPolicy.none().shouldRetry(ErrorType.NETWORK, 1)).isFalse();
+	}
+}
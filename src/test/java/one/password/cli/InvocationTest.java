@@ -0,0 +1,44 @@
+package one.password.cli;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class InvocationTest {
+	@Test
+	void testRedactSignin() {
+		Assertions
+				.assertThat(Invocation.redact("signin", "https://foo.1password.com",
+						"me@foo.com", "A3-SECRET", "--shorthand=foo", "--session=TOKEN", null,
+						"--raw"))
+				.containsExactly("signin", "https://foo.1password.com", "me@foo.com",
+						Invocation.REDACTED, "--shorthand=foo", "--session=" + Invocation.REDACTED,
+						"--raw");
+	}
+
+	@Test
+	void testRedactSigninWithoutAddress() {
+		Assertions.assertThat(Invocation.redact("signin", null, null, "A3-SECRET", "--raw"))
+				.containsExactly("signin", Invocation.REDACTED, "--raw");
+	}
+
+	@Test
+	void testRedactFlags() {
+		Assertions.assertThat(Invocation.redact("get", "user", "foo", "--password=bar"))
+				.containsExactly("get", "user", "foo", "--password=" + Invocation.REDACTED);
+		Assertions.assertThat(Invocation.redact("list", "users", "--group=xyz"))
+				.containsExactly("list", "users", "--group=xyz");
+	}
+
+	@Test
+	void testInvocation() {
+		Invocation invocation = new Invocation(2, "list", "users", "--session=TOKEN");
+		Assertions.assertThat(invocation.getCommand()).isEqualTo("list");
+		Assertions.assertThat(invocation.getAttempt()).isEqualTo(2);
+		Assertions.assertThat(invocation.getArguments()).doesNotContain("--session=TOKEN");
+		Assertions.assertThat(invocation.getExitCode()).isEmpty();
+		invocation.setWaitNanos(1);
+		Assertions.assertThat(invocation.getExitCode()).hasValue(0);
+		invocation.setError(new OpException(ErrorType.UNKNOWN, 1, "failed", null));
+		Assertions.assertThat(invocation.getExitCode()).hasValue(1);
+	}
+}
@@ -0,0 +1,77 @@
+package one.password.cli;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import one.password.util.Threads;
+
+public class LaneSchedulerTest {
+	@Test
+	void testReservedInteractiveCapacity() throws Exception {
+		LaneScheduler scheduler = new LaneScheduler(2, 1, Duration.ofHours(1));
+		LaneScheduler.Slot slot = scheduler.acquire(Priority.BULK);
+		CompletableFuture<LaneScheduler.Slot> bulk =
+				Threads.async(() -> scheduler.acquire(Priority.BULK));
+		awaitWaiting(scheduler, 1);
+
+		scheduler.acquire(Priority.INTERACTIVE).close();
+		Assertions.assertThat(bulk).isNotDone();
+		slot.close();
+		bulk.get(5, TimeUnit.SECONDS).close();
+		Assertions.assertThat(scheduler.getRunning()).isEqualTo(0);
+	}
+
+	@Test
+	void testPrecedence() throws Exception {
+		LaneScheduler scheduler = new LaneScheduler(1, 0, Duration.ofHours(1));
+		Assertions.assertThat(acquisitionOrder(scheduler, 0, Priority.BULK, Priority.DEFAULT,
+				Priority.INTERACTIVE)).containsExactly(Priority.INTERACTIVE, Priority.DEFAULT,
+						Priority.BULK);
+	}
+
+	@Test
+	void testAging() throws Exception {
+		LaneScheduler scheduler = new LaneScheduler(1, 0, Duration.ofMillis(50));
+		Assertions.assertThat(acquisitionOrder(scheduler, 150, Priority.BULK, Priority.DEFAULT))
+				.containsExactly(Priority.BULK, Priority.DEFAULT);
+	}
+
+	/** Queues the priorities while the only slot is taken and returns the order of acquisition. */
+	private static List<Priority> acquisitionOrder(LaneScheduler scheduler, long delayMillis,
+			Priority... priorities) throws Exception {
+		List<Priority> order = new CopyOnWriteArrayList<>();
+		LaneScheduler.Slot slot = scheduler.acquire(Priority.INTERACTIVE);
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[priorities.length];
+		for (int i = 0; i < priorities.length; i++) {
+			Priority priority = priorities[i];
+			futures[i] = Threads.async(() -> {
+				LaneScheduler.Slot acquired = scheduler.acquire(priority);
+				order.add(priority);
+				acquired.close();
+				return null;
+			});
+			awaitWaiting(scheduler, i + 1);
+			Thread.sleep(delayMillis);
+		}
+
+		slot.close();
+		CompletableFuture.allOf(futures).get(5, TimeUnit.SECONDS);
+		return order;
+	}
+
+	private static void awaitWaiting(LaneScheduler scheduler, int waiting)
+			throws InterruptedException, IOException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (scheduler.getWaiting() < waiting) {
+			if (System.nanoTime() > deadline) {
+				throw new IOException("Timeout waiting for queued commands");
+			}
+			Thread.sleep(1);
+		}
+	}
+}
@@ -1,12 +1,15 @@
 package one.password.cli;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import one.password.Config;
 import one.password.Session;
 
 public class OpMock extends Op {
@@ -14,6 +17,14 @@ public class OpMock extends Op {
 	private final List<List<String>> commands = new ArrayList<>();
 	private final List<List<String>> signins = new ArrayList<>();
 
+	public OpMock() {
+		this(new Config());
+	}
+
+	public OpMock(Config config) {
+		super(config);
+	}
+
 	public Session signin(String signInAddress, String emailAddress, String secretKey,
 			Supplier<String> password, Session session) throws IOException {
 		signins.add(Arrays.asList(signInAddress, emailAddress, secretKey));
@@ -26,6 +37,19 @@ public class OpMock extends Op {
 		return "";
 	}
 
+	public String executeWithInput(Session session, String input, String... arguments)
+			throws IOException {
+		return execute(session, arguments);
+	}
+
+	public Reader stream(Session session, String... arguments) throws IOException {
+		return new StringReader(execute(session, arguments));
+	}
+
+	public Reader read(Session session, String... arguments) throws IOException {
+		return new StringReader(execute(session, arguments));
+	}
+
 	public List<List<String>> getSignins() {
 		List<List<String>> returnValue = new ArrayList<>(signins);
 		signins.clear();
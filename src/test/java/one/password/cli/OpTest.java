@@ -1,27 +1,39 @@
 package one.password.cli;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
 import org.assertj.core.api.Assertions;
 import org.assertj.core.api.Assumptions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
+import one.password.BatchResult;
 import one.password.Config;
 import one.password.Entity;
 import one.password.Group;
+import one.password.OnePassword;
+import one.password.OnePasswordBase;
 import one.password.Session;
 import one.password.User;
 import one.password.Vault;
 import one.password.test.TestConfig;
 import one.password.test.TestCredentials;
 import one.password.test.TestUtils;
+import one.password.util.Flow;
 import one.password.util.Utils;
 
 public class OpTest {
@@ -144,4 +156,140 @@ public class OpTest {
 		String groups = op.list(session, Vault.class);
 		Assertions.assertThat(groups).contains("Shared");
 	}
+
+	@Test
+	void testStreamWithSlowSubscriber(@TempDir Path directory)
+			throws IOException, InterruptedException {
+		Assumptions.assumeThat(Utils.isWindowsOs()).isFalse();
+		// the process keeps running beyond the timeout, as if blocked by the slow subscriber
+		Config config = new Config().setTimeout(Duration.ofMillis(500)).setExecutable(fakeOp(
+				directory, "printf '[{\"uuid\":\"1\"},\\n'; sleep 1; printf '{\"uuid\":\"2\"}]\\n'"));
+		OnePasswordBase api =
+				new OnePassword.PreAuthenticated(new Op(config), new Session("s", "shorthand"));
+
+		BlockingQueue<Object> signals = new LinkedBlockingQueue<>();
+		AtomicReference<Flow.Subscription> subscription = new AtomicReference<>();
+		api.users().publish().subscribe(new Flow.Subscriber<User>() {
+			@Override
+			public void onSubscribe(Flow.Subscription s) {
+				subscription.set(s);
+			}
+
+			@Override
+			public void onNext(User user) {
+				signals.add(user.getId());
+			}
+
+			@Override
+			public void onError(Throwable throwable) {
+				signals.add(throwable);
+			}
+
+			@Override
+			public void onComplete() {
+				signals.add("complete");
+			}
+		});
+
+		subscription.get().request(1);
+		Assertions.assertThat(signals.poll(5, TimeUnit.SECONDS)).isEqualTo("1");
+		Thread.sleep(1000);
+		subscription.get().request(5);
+		Assertions.assertThat(signals.poll(5, TimeUnit.SECONDS)).isEqualTo("2");
+		Assertions.assertThat(signals.poll(5, TimeUnit.SECONDS)).isEqualTo("complete");
+	}
+
+	@Test
+	void testStreamTimeoutUntilFirstLine(@TempDir Path directory) throws IOException {
+		Assumptions.assumeThat(Utils.isWindowsOs()).isFalse();
+		Op op = new Op(new Config().setTimeout(Duration.ofMillis(200))
+				.setExecutable(fakeOp(directory, "sleep 10")));
+		Assertions.assertThatThrownBy(() -> op.stream(null, "list", "users"))
+				.isInstanceOfSatisfying(OpException.class,
+						e -> Assertions.assertThat(e.getType()).isEqualTo(ErrorType.TIMEOUT));
+	}
+
+	@Test
+	void testReadPartialOutputWithError(@TempDir Path directory) throws IOException {
+		Assumptions.assumeThat(Utils.isWindowsOs()).isFalse();
+		Op op = new Op(new Config().setExecutable(fakeOp(directory,
+				"printf '[{\"uuid\":\"1\"},\\n'; echo 'internal server error' >&2; exit 1")));
+		Assertions.assertThatThrownBy(() -> op.read(null, "list", "users"))
+				.isInstanceOfSatisfying(OpException.class,
+						e -> Assertions.assertThat(e.getType()).isEqualTo(ErrorType.SERVER));
+
+		Op succeeding = new Op(new Config().setExecutable(fakeOp(directory, "printf '[]\\n'")));
+		try (BufferedReader reader = new BufferedReader(succeeding.read(null, "list", "users"))) {
+			Assertions.assertThat(reader.readLine()).isEqualTo("[]");
+			Assertions.assertThat(reader.readLine()).isNull();
+		}
+	}
+
+	@Test
+	void testDeadlineReleasesHalfOpenTrial(@TempDir Path directory) throws IOException {
+		Assumptions.assumeThat(Utils.isWindowsOs()).isFalse();
+		CircuitBreaker breaker = new CircuitBreaker(1, Duration.ZERO);
+		breaker.onFailure(ErrorType.NETWORK);
+		Op op = new Op(new Config().setCircuitBreaker(breaker)
+				.setExecutable(fakeOp(directory, "sleep 10")));
+
+		CallOptions options = new CallOptions().setTimeout(Duration.ofMillis(200));
+		Assertions.assertThatThrownBy(
+				() -> options.call(() -> op.execute(new Session("s", "shorthand"), "list")))
+				.isInstanceOf(OpException.class);
+		Assertions.assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+		breaker.acquire();
+		Assertions.assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+	}
+
+	@Test
+	void testPipedGet(@TempDir Path directory) throws IOException {
+		Assumptions.assumeThat(Utils.isWindowsOs()).isFalse();
+		Op op = new Op(new Config().setExecutable(fakeOp(directory, pipedGetCli(directory,
+				"cat > stdin; printf '{\"id\":\"1\"}\\n{\"id\":\"2\"}\\n'"))));
+
+		BatchResult<User> result = new OnePassword.PreAuthenticated(op,
+				new Session("s", "shorthand")).users().getAll(Arrays.asList("1", "2", "unknown"));
+		Assertions.assertThat(result.getEntities().keySet()).containsExactly("1", "2");
+		Assertions.assertThat(result.getErrors().keySet()).containsExactly("unknown");
+		Assertions.assertThat(directory.resolve("stdin")).hasContent(
+				"[{\"id\":\"1\"},{\"id\":\"2\"},{\"id\":\"unknown\"}]");
+		Assertions.assertThat(Files.readAllLines(directory.resolve("arguments")))
+				.containsExactly("user get - --format=json", "get user unknown");
+	}
+
+	@Test
+	void testPipedGetTimeout(@TempDir Path directory) throws IOException {
+		Assumptions.assumeThat(Utils.isWindowsOs()).isFalse();
+		Op op = new Op(new Config().setTimeout(Duration.ofMillis(500))
+				.setExecutable(fakeOp(directory, pipedGetCli(directory, "sleep 10"))));
+
+		BatchResult<User> result = new OnePassword.PreAuthenticated(op,
+				new Session("s", "shorthand")).users().getAll(Arrays.asList("1", "2"));
+		Assertions.assertThat(result.getEntities()).isEmpty();
+		Assertions.assertThat(result.getErrors().values()).hasSize(2).allSatisfy(
+				e -> Assertions.assertThat(ErrorType.classify(e)).isEqualTo(ErrorType.TIMEOUT));
+		Assertions.assertThat(Files.readAllLines(directory.resolve("arguments")))
+				.containsExactly("user get - --format=json");
+	}
+
+	/**
+	 * Returns a script of a CLI of version 2 running the given script for piped gets and failing
+	 * for all other commands. Arguments are logged to the file "arguments".
+	 */
+	private static String pipedGetCli(Path directory, String pipedGet) {
+		return "cd '" + directory + "'\n" //
+				+ "if [ \"$1\" = --version ]; then echo 2.4.1; exit 0; fi\n" //
+				+ "echo \"$@\" >> arguments\n" //
+				+ "if [ \"$2\" = get ]; then " + pipedGet + "; exit 0; fi\n" //
+				+ "echo '[ERROR] 2021/03/01 10:00:00 No user found' >&2; exit 1";
+	}
+
+	/** Writes a shell script standing in for the CLI. */
+	private static Path fakeOp(Path directory, String script) throws IOException {
+		Path executable = directory.resolve("op");
+		Files.write(executable, ("#!/bin/sh\n" + script + "\n").getBytes(StandardCharsets.UTF_8));
+		executable.toFile().setExecutable(true);
+		return executable;
+	}
 }
@@ -0,0 +1,53 @@
+package one.password.cli;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class OutputBufferTest {
+	private static final List<String> LINES =
+			Arrays.asList("[{\"name\":\"Jürgen 🔑\"},", "{\"name\":\"Zoë\"}]");
+
+	@Test
+	void testBelowThreshold() throws IOException {
+		try (OutputBuffer buffer = OutputBuffer.of(LINES.iterator(), 1000)) {
+			Assertions.assertThat(buffer.isSpilled()).isFalse();
+			Assertions.assertThat(buffer.length()).isEqualTo(expected().length());
+			Assertions.assertThat(readFully(buffer, 7)).isEqualTo(expected());
+		}
+	}
+
+	@Test
+	void testSpilled() throws IOException {
+		try (OutputBuffer buffer = OutputBuffer.of(LINES.iterator(), 10)) {
+			Assertions.assertThat(buffer.isSpilled()).isTrue();
+			Assertions.assertThat(buffer.length()).isEqualTo(expected().length());
+			Assertions.assertThat(readFully(buffer, 1)).isEqualTo(expected());
+			Assertions.assertThat(buffer.read(new char[1], 0, 1)).isEqualTo(-1);
+		}
+	}
+
+	@Test
+	void testEmpty() throws IOException {
+		try (OutputBuffer buffer = OutputBuffer.of(LINES.subList(0, 0).iterator(), 0)) {
+			Assertions.assertThat(buffer.isSpilled()).isFalse();
+			Assertions.assertThat(buffer.read(new char[1], 0, 1)).isEqualTo(-1);
+		}
+	}
+
+	private static String expected() {
+		return String.join("\n", LINES) + "\n";
+	}
+
+	private static String readFully(Reader reader, int chunk) throws IOException {
+		StringBuilder builder = new StringBuilder();
+		char[] buffer = new char[chunk];
+		for (int read; (read = reader.read(buffer)) >= 0;) {
+			builder.append(buffer, 0, read);
+		}
+		return builder.toString();
+	}
+}
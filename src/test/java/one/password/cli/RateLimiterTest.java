@@ -0,0 +1,91 @@
+package one.password.cli;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RateLimiterTest {
+	private final RateLimit settings = new RateLimit().setInitialRate(10).setMinRate(1)
+			.setMaxRate(11).setAdditiveIncrease(0.5).setMultiplicativeDecrease(0.5).setBurst(2)
+			.setDecreaseInterval(Duration.ofHours(1));
+
+	@Test
+	void testAdditiveIncreaseMultiplicativeDecrease() {
+		RateLimiter limiter = new RateLimiter(settings);
+		limiter.onSuccess();
+		Assertions.assertThat(limiter.getRate()).isEqualTo(10.5);
+		limiter.onSuccess();
+		limiter.onSuccess();
+		Assertions.assertThat(limiter.getRate()).isEqualTo(11);
+
+		limiter.onRateLimited();
+		Assertions.assertThat(limiter.getRate()).isEqualTo(5.5);
+		limiter.onRateLimited();
+		Assertions.assertThat(limiter.getRate()).as("decrease only once per interval")
+				.isEqualTo(5.5);
+	}
+
+	@Test
+	void testMinimumRate() {
+		RateLimiter limiter = new RateLimiter(settings.setDecreaseInterval(Duration.ZERO));
+		for (int i = 0; i < 10; i++) {
+			limiter.onRateLimited();
+		}
+		Assertions.assertThat(limiter.getRate()).isEqualTo(1);
+	}
+
+	@Test
+	void testBurstThenWait() {
+		RateLimiter limiter = new RateLimiter(settings);
+		Assertions.assertThat(limiter.reserve()).isZero();
+		Assertions.assertThat(limiter.reserve()).isZero();
+		Assertions.assertThat(limiter.reserve()).isPositive()
+				.isLessThanOrEqualTo(Duration.ofMillis(100).toNanos());
+	}
+
+	@Test
+	void testWaitBoundedByDeadline() throws IOException {
+		RateLimiter limiter = new RateLimiter(settings.setInitialRate(0.01).setMinRate(0.01));
+		limiter.acquire(new CallOptions());
+		limiter.acquire(new CallOptions());
+
+		long start = System.nanoTime();
+		Assertions
+				.assertThatThrownBy(
+						() -> limiter.acquire(new CallOptions().setTimeout(Duration.ofMillis(50))))
+				.isInstanceOfSatisfying(OpException.class,
+						e -> Assertions.assertThat(e.getType()).isEqualTo(ErrorType.TIMEOUT));
+		Assertions.assertThat(Duration.ofNanos(System.nanoTime() - start))
+				.isLessThan(Duration.ofSeconds(5));
+		Assertions.assertThat(limiter.reserve()).as("token returned")
+				.isLessThanOrEqualTo(Duration.ofSeconds(101).toNanos());
+	}
+
+	@Test
+	void testWaitEndsOnCancellation() throws IOException {
+		RateLimiter limiter = new RateLimiter(settings.setInitialRate(0.01).setMinRate(0.01));
+		limiter.acquire(new CallOptions());
+		limiter.acquire(new CallOptions());
+
+		CancellationToken token = new CancellationToken();
+		CompletableFuture.runAsync(() -> {
+			try {
+				TimeUnit.MILLISECONDS.sleep(50);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			token.cancel();
+		});
+		long start = System.nanoTime();
+		Assertions
+				.assertThatThrownBy(
+						() -> limiter.acquire(new CallOptions().setCancellation(token)))
+				.isInstanceOfSatisfying(OpException.class,
+						e -> Assertions.assertThat(e.getType()).isEqualTo(ErrorType.CANCELLED));
+		Assertions.assertThat(Duration.ofNanos(System.nanoTime() - start))
+				.isLessThan(Duration.ofSeconds(5));
+	}
+}
@@ -0,0 +1,123 @@
+package one.password.cli;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import one.password.Config;
+import one.password.OnePasswordMock;
+import one.password.Session;
+import one.password.User;
+import one.password.util.Json;
+
+public class SlowCommandLogTest {
+	private final List<SlowCommandLog.Record> records = new ArrayList<>();
+
+	/** Returns a mock reporting invocations to the listeners as the CLI would. */
+	private OnePasswordMock mock(SlowCommandLog log) {
+		return mock(log, "{\"uuid\":\"u1\"}");
+	}
+
+	/** Returns a mock printing the given output for get commands. */
+	private OnePasswordMock mock(SlowCommandLog log, String getOutput) {
+		return new OnePasswordMock(new OpMock(new Config().addListener(log)) {
+			@Override
+			public String execute(Session session, String... arguments) throws IOException {
+				super.execute(session, arguments);
+				String output = arguments[0].equals("get") ? getOutput : "";
+				String[] withSession = Arrays.copyOf(arguments, arguments.length + 1);
+				withSession[arguments.length] = Flags.SESSION.is(session.getSession());
+				Invocation invocation = new Invocation(1, withSession);
+				getListeners().forEach(listener -> listener.onStart(invocation));
+				invocation.setSpawnNanos(1_000_000);
+				invocation.setWaitNanos(2_000_000);
+				invocation.setOutputSize(output.length());
+				getListeners().forEach(listener -> listener.onCommand(invocation));
+				return output;
+			}
+		});
+	}
+
+	@Test
+	void testRecords() throws IOException {
+		OnePasswordMock api = mock(new SlowCommandLog(Duration.ofMillis(3), records::add));
+		User user = api.users().get("u1");
+		api.users().suspend(user);
+
+		Assertions.assertThat(records).hasSize(2);
+		SlowCommandLog.Record get = records.get(0);
+		Assertions.assertThat(get.getCommand()).isEqualTo("get");
+		Assertions.assertThat(get.getArguments()).containsExactly("get", "user", "u1",
+				"--session=" + Invocation.REDACTED);
+		Assertions.assertThat(get.getCaller()).isEqualTo("EntityCommand.get");
+		Assertions.assertThat(get.getSignin()).isEqualTo(Signin.Cause.INITIAL);
+		Assertions.assertThat(get.getParseNanos()).isNotNegative();
+		Assertions.assertThat(get.getOutputSize()).isEqualTo(13);
+		Assertions.assertThat(get.isSampled()).isFalse();
+
+		SlowCommandLog.Record suspend = records.get(1);
+		Assertions.assertThat(suspend.getCaller()).isEqualTo("UserCommand.suspend");
+		Assertions.assertThat(suspend.getSignin()).isNull();
+		Assertions.assertThat(suspend.getParseNanos()).isEqualTo(-1);
+		Assertions.assertThat(suspend.getTotalNanos()).isEqualTo(3_000_000);
+		Assertions.assertThat(Json.toTree(suspend).getAsJsonObject().get("caller").getAsString())
+				.isEqualTo("UserCommand.suspend");
+	}
+
+	@Test
+	void testParseFailure() {
+		OnePasswordMock api =
+				mock(new SlowCommandLog(Duration.ofMillis(3), records::add), "{\"uuid\":");
+		Assertions.assertThatIOException().isThrownBy(() -> api.users().get("u1"));
+
+		Assertions.assertThat(records).hasSize(1);
+		Assertions.assertThat(records.get(0).getCaller()).isEqualTo("EntityCommand.get");
+		Assertions.assertThat(records.get(0).getParseNanos()).isNotNegative();
+	}
+
+	@Test
+	void testSlowParsing() throws IOException {
+		OnePasswordMock api =
+				mock(new SlowCommandLog(Duration.ofNanos(3_000_001), records::add));
+		api.users().get("u1");
+		api.users().list();
+
+		Assertions.assertThat(records).hasSize(1);
+		Assertions.assertThat(records.get(0).getCommand()).isEqualTo("get");
+		Assertions.assertThat(records.get(0).getCaller()).isEqualTo("EntityCommand.get");
+		Assertions.assertThat(records.get(0).isSampled()).isFalse();
+	}
+
+	@Test
+	void testSampling() throws IOException {
+		SlowCommandLog log = new SlowCommandLog(Duration.ofHours(1), records::add);
+		OnePasswordMock api = mock(log);
+		api.users().list();
+		Assertions.assertThat(records).isEmpty();
+
+		log.setSampleRate(1);
+		api.users().list();
+		Assertions.assertThat(records).hasSize(1);
+		Assertions.assertThat(records.get(0).isSampled()).isTrue();
+		Assertions.assertThatThrownBy(() -> log.setSampleRate(2))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void testCaller() {
+		StackTraceElement[] stack = {
+				new StackTraceElement("one.password.cli.Op", "execute", null, 1),
+				new StackTraceElement("one.password.OnePasswordBase$EntityCommand$1", "execute",
+						null, 1),
+				new StackTraceElement("one.password.OnePasswordBase$UserCommand",
+						"lambda$suspend$0", null, 1),
+				new StackTraceElement("one.password.OnePasswordBase$UserCommand", "suspend", null,
+						1),
+				new StackTraceElement("com.example.Main", "main", null, 1)};
+		Assertions.assertThat(SlowCommandLog.caller(stack)).isEqualTo("UserCommand.suspend");
+		Assertions.assertThat(SlowCommandLog.caller(new StackTraceElement[0])).isNull();
+	}
+}
@@ -0,0 +1,80 @@
+package one.password.cli;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import one.password.Session;
+import one.password.User;
+
+public class TranscriptTest {
+	private static final Session SESSION = new Session("token", "shorthand");
+
+	private final OpMock op = new OpMock() {
+		@Override
+		public String execute(Session session, String... arguments) throws IOException {
+			super.execute(session, arguments);
+			if (arguments[2].equals("missing")) {
+				throw new OpException(ErrorType.UNKNOWN, "Invalid user \"missing\"");
+			}
+			return "output of " + String.join(" ", arguments);
+		}
+	};
+
+	@Test
+	void testRecordAndReplay(@TempDir Path directory) throws IOException {
+		Path transcript = directory.resolve("transcript.jsonl.gz");
+		try (RecordingOp recording = new RecordingOp(op, transcript)) {
+			Assertions.assertThat(recording.signin("https://foo.1password.com", "me@foo.com",
+					"A3-SECRET", () -> "password")).isNotNull();
+			Assertions.assertThat(recording.execute(SESSION, "get", "user", "foo"))
+					.isEqualTo("output of get user foo");
+			Assertions.assertThatIOException()
+					.isThrownBy(() -> recording.execute(SESSION, "get", "user", "missing"));
+		}
+
+		Assertions.assertThat(Transcript.read(transcript)).hasSize(3)
+				.allSatisfy(entry -> Assertions.assertThat(entry.getArguments())
+						.doesNotContain("A3-SECRET"))
+				.extracting(Transcript.Entry::getOutput).doesNotContain("session");
+
+		ReplayOp replay = new ReplayOp(transcript, 0);
+		Assertions.assertThat(replay.signin("https://foo.1password.com", "me@foo.com",
+				"other secret", () -> "password")).isNotNull();
+		for (int i = 0; i < 3; i++) {
+			Assertions.assertThat(replay.execute(SESSION, "get", "user", "foo"))
+					.isEqualTo("output of get user foo");
+		}
+		Assertions.assertThatThrownBy(() -> replay.execute(SESSION, "get", "user", "missing"))
+				.isInstanceOf(OpException.class).hasMessageContaining("Invalid user");
+		Assertions.assertThatThrownBy(() -> replay.execute(SESSION, "list", "users"))
+				.isInstanceOf(OpException.class).hasMessageContaining("No recorded invocation");
+		Assertions.assertThat(op.getCommands()).containsExactly(
+				Arrays.asList("get", "user", "foo"), Arrays.asList("get", "user", "missing"));
+	}
+
+	@Test
+	void testRecordAndReplayPipedGet(@TempDir Path directory) throws IOException {
+		Path transcript = directory.resolve("transcript.jsonl");
+		try (RecordingOp recording = new RecordingOp(op, transcript)) {
+			Assertions.assertThat(recording.getAll(SESSION, User.class, Arrays.asList("a", "b")))
+					.isEqualTo("output of user get - --format=json");
+		}
+
+		Assertions.assertThat(Transcript.read(transcript))
+				.extracting(Transcript.Entry::getInput)
+				.containsExactly("[{\"id\":\"a\"},{\"id\":\"b\"}]");
+
+		ReplayOp replay = new ReplayOp(transcript, 0);
+		Assertions.assertThat(replay.getAll(SESSION, User.class, Arrays.asList("a", "b")))
+				.isEqualTo("output of user get - --format=json");
+		Assertions
+				.assertThatThrownBy(
+						() -> replay.getAll(SESSION, User.class, Arrays.asList("a", "c")))
+				.isInstanceOf(OpException.class).hasMessageContaining("No recorded invocation");
+		Assertions.assertThat(op.getCommands())
+				.containsExactly(Arrays.asList("user", "get", "-", "--format=json"));
+	}
+}
@@ -0,0 +1,88 @@
+package one.password.index;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.stream.Collectors;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import one.password.Entity;
+import one.password.Group;
+import one.password.User;
+import one.password.util.Json;
+
+public class UserIndexTest {
+	private static final User[] USERS = users( //
+			user("1", "alice@example.com", "Alice", "en", "2021-01-01T10:00:00Z", "A", "R"),
+			user("2", "bob@Example.com", "Bob", "de", "2021-02-01T10:00:00Z", "S", "R"),
+			user("3", "carol@other.org", "Carol", "en", null, "3", "G"),
+			user("4", "dave@example.com", "Dave", "en", "2021-03-01T10:00:00Z", "A", "G"),
+			user("5", "eve@example.com", "Alice", "en", "2021-02-15T10:00:00Z", "S", "R"));
+
+	@Test
+	void testLookups() {
+		UserIndex index = new UserIndex(USERS);
+		Assertions.assertThat(index.size()).isEqualTo(5);
+		Assertions.assertThat(index.get("2")).map(User::getName).contains("Bob");
+		Assertions.assertThat(index.get("6")).isEmpty();
+		Assertions.assertThat(index.getByEmail("BOB@example.com")).map(User::getId).contains("2");
+		Assertions.assertThat(index.getByName("alice")).extracting(User::getId)
+				.containsExactly("1", "5");
+	}
+
+	@Test
+	void testQuery() {
+		UserIndex index = new UserIndex(USERS);
+		Assertions.assertThat(ids(index.query().is(UserIndex.State.SUSPENDED))).isEqualTo("2,5");
+		Assertions.assertThat(ids(index.query().is(UserIndex.State.ACTIVE)
+				.isNot(UserIndex.State.GUEST))).isEqualTo("1");
+		Assertions.assertThat(ids(index.query().is(UserIndex.State.INVITED))).isEqualTo("3");
+		Assertions.assertThat(ids(index.query().domain("EXAMPLE.com").language("en")))
+				.isEqualTo("1,4,5");
+		Assertions.assertThat(index.query().domain("unknown.com").count()).isEqualTo(0);
+	}
+
+	@Test
+	void testLastAuthRange() {
+		UserIndex index = new UserIndex(USERS);
+		ZonedDateTime february = ZonedDateTime.parse("2021-02-01T10:00:00Z");
+		ZonedDateTime march = ZonedDateTime.parse("2021-03-01T10:00:00Z");
+		Assertions.assertThat(ids(index.query().lastAuthBetween(february, march)))
+				.isEqualTo("2,5");
+		Assertions.assertThat(ids(index.query().lastAuthBetween(null, february))).isEqualTo("1");
+		Assertions.assertThat(ids(index.query().lastAuthBetween(march, null))).isEqualTo("4");
+		Assertions.assertThat(ids(index.query().lastAuthBefore(february))).isEqualTo("1,3");
+		Assertions.assertThat(
+				ids(index.query().domain("example.com").lastAuthBetween(february, null)))
+						.isEqualTo("2,4,5");
+	}
+
+	@Test
+	void testEntityIndex() throws IOException {
+		EntityIndex<Group> index = new EntityIndex<>(Json.deserialize(
+				"[{\"uuid\":\"g1\",\"name\":\"Admins\"},{\"uuid\":\"g2\",\"name\":\"Team\"}]",
+				Group[].class));
+		Assertions.assertThat(index.get("g2")).map(Group::getName).contains("Team");
+		Assertions.assertThat(index.getBySecondaryId("admins")).extracting(Entity::getId)
+				.containsExactly("g1");
+	}
+
+	private static String ids(UserIndex.Query query) {
+		return query.list().stream().map(User::getId).collect(Collectors.joining(","));
+	}
+
+	private static String user(String id, String email, String name, String language,
+			String lastAuthAt, String state, String type) {
+		return "{\"uuid\":\"" + id + "\",\"email\":\"" + email + "\",\"name\":\"" + name
+				+ "\",\"language\":\"" + language + "\","
+				+ (lastAuthAt == null ? "" : "\"lastAuthAt\":\"" + lastAuthAt + "\",")
+				+ "\"state\":\"" + state + "\",\"type\":\"" + type + "\"}";
+	}
+
+	private static User[] users(String... json) {
+		try {
+			return Json.deserialize("[" + String.join(",", json) + "]", User[].class);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
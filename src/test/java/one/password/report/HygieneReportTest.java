@@ -0,0 +1,89 @@
+package one.password.report;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import one.password.Group;
+import one.password.OnePasswordMock;
+import one.password.User;
+import one.password.Vault;
+import one.password.util.Json;
+
+public class HygieneReportTest {
+	private static final Clock CLOCK =
+			Clock.fixed(Instant.parse("2021-06-01T00:00:00Z"), ZoneOffset.UTC);
+
+	@Test
+	void testEvaluate() throws IOException {
+		StringWriter csv = new StringWriter();
+		Map<Finding.Kind, Long> counts = report().evaluate(snapshot(), ReportWriter.csv(csv));
+
+		Assertions.assertThat(csv.toString()).isEqualTo("kind,entity,id,name,detail\n"
+				+ "INACTIVE_USER,user,u2,old@example.com,2021-01-01T00:00Z\n"
+				+ "PENDING_INVITATION,user,u3,invited@example.com,2021-01-01T00:00Z\n"
+				+ "INACTIVE_USER,user,u4,\"never,seen@example.com\",never\n"
+				+ "GUEST,user,u4,\"never,seen@example.com\",\n"
+				+ "EMPTY_GROUP,group,g2,Empty,\n" + "VAULT_WITHOUT_MANAGER,vault,v1,Orphan,\n");
+		Assertions.assertThat(counts).containsEntry(Finding.Kind.INACTIVE_USER, 2L)
+				.containsEntry(Finding.Kind.GUEST, 1L).hasSize(5);
+	}
+
+	@Test
+	void testJsonOutput() throws IOException {
+		StringWriter json = new StringWriter();
+		try (ReportWriter writer = ReportWriter.json(json)) {
+			report().evaluate(snapshot(), writer);
+		}
+		Finding[] findings = Json.deserialize(json.toString(), Finding[].class);
+		Assertions.assertThat(findings).hasSize(6);
+		Assertions.assertThat(findings[5].getKind())
+				.isEqualTo(Finding.Kind.VAULT_WITHOUT_MANAGER);
+
+		StringWriter empty = new StringWriter();
+		ReportWriter.json(empty).close();
+		Assertions.assertThat(Json.deserialize(empty.toString(), Finding[].class)).isEmpty();
+	}
+
+	private static HygieneReport report() {
+		return new HygieneReport(new OnePasswordMock()).setClock(CLOCK)
+				.setInactiveAfter(Duration.ofDays(90))
+				.setInvitationPendingAfter(Duration.ofDays(14));
+	}
+
+	private static HygieneReport.Snapshot snapshot() throws IOException {
+		User[] users = Json.deserialize("[" //
+				+ user("u1", "recent@example.com", "2021-05-01T00:00:00Z", "A", "R") + ","
+				+ user("u2", "old@example.com", "2021-01-01T00:00:00Z", "A", "R") + ","
+				+ user("u3", "invited@example.com", null, "3", "R") + ","
+				+ user("u4", "never,seen@example.com", null, "A", "G") + "]", User[].class);
+		Group[] groups = Json.deserialize(
+				"[{\"uuid\":\"g1\",\"name\":\"Team\"},{\"uuid\":\"g2\",\"name\":\"Empty\"}]",
+				Group[].class);
+		Vault[] vaults = Json.deserialize(
+				"[{\"uuid\":\"v1\",\"name\":\"Orphan\"},{\"uuid\":\"v2\",\"name\":\"Managed\"}]",
+				Vault[].class);
+
+		Map<Group, Integer> members = new LinkedHashMap<>();
+		members.put(groups[0], 3);
+		members.put(groups[1], 0);
+		Map<Vault, Boolean> managed = new LinkedHashMap<>();
+		managed.put(vaults[0], false);
+		managed.put(vaults[1], true);
+		return new HygieneReport.Snapshot(users, members, managed);
+	}
+
+	private static String user(String id, String email, String lastAuthAt, String state,
+			String type) {
+		return "{\"uuid\":\"" + id + "\",\"email\":\"" + email + "\","
+				+ "\"createdAt\":\"2021-01-01T00:00:00Z\","
+				+ (lastAuthAt == null ? "" : "\"lastAuthAt\":\"" + lastAuthAt + "\",")
+				+ "\"state\":\"" + state + "\",\"type\":\"" + type + "\"}";
+	}
+}
@@ -0,0 +1,131 @@
+package one.password.sidecar;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Scanner;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import one.password.OnePasswordMock;
+import one.password.Session;
+import one.password.cli.OpMock;
+
+public class SidecarTest {
+	private static String request(Sidecar sidecar, String method, String path, String body)
+			throws IOException {
+		return request(sidecar, sidecar.getToken(), method, path, body);
+	}
+
+	private static String request(Sidecar sidecar, String token, String method, String path,
+			String body) throws IOException {
+		InetSocketAddress address = sidecar.getAddress();
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://"
+				+ address.getHostString() + ":" + address.getPort() + path).openConnection();
+		connection.setRequestMethod(method);
+		if (token != null) {
+			connection.setRequestProperty("Authorization", "Bearer " + token);
+		}
+		if (body != null) {
+			connection.setDoOutput(true);
+			try (OutputStream output = connection.getOutputStream()) {
+				output.write(body.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		int status = connection.getResponseCode();
+		InputStream input = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+		if (input == null) {
+			return String.valueOf(status);
+		}
+		try (Scanner scanner = new Scanner(input, "UTF-8").useDelimiter("\\A")) {
+			return status + (scanner.hasNext() ? " " + scanner.next() : "");
+		}
+	}
+
+	@Test
+	void testCommands() throws IOException {
+		OnePasswordMock api = new OnePasswordMock(new OpMock() {
+			@Override
+			public String execute(Session session, String... arguments) throws IOException {
+				super.execute(session, arguments);
+				if (arguments[0].equals("get")) {
+					return "{\"uuid\":\"u1\",\"email\":\"alice@example.com\"}";
+				}
+				return "";
+			}
+		});
+
+		try (Sidecar sidecar = new Sidecar(api).start()) {
+			Assertions.assertThat(request(sidecar, "GET", "/users/alice%40example.com", null))
+					.isEqualTo("200 {\"email\":\"alice@example.com\",\"uuid\":\"u1\"}");
+			request(sidecar, "GET", "/users/alice%40example.com", null);
+			Assertions.assertThat(request(sidecar, "POST", "/users/u1/suspend", null))
+					.isEqualTo("204");
+			request(sidecar, "GET", "/users/alice%40example.com", null);
+			Assertions.assertThat(request(sidecar, "PUT", "/groups/g1", "{\"name\":\"Team\"}"))
+					.isEqualTo("204");
+			Assertions.assertThat(request(sidecar, "PUT", "/users/u1/vaults/v1?role=manager", null))
+					.isEqualTo("204");
+			Assertions.assertThat(request(sidecar, "GET", "/items", null)).startsWith("404");
+			Assertions.assertThat(request(sidecar, "DELETE", "/users", null)).startsWith("405");
+			Assertions.assertThat(request(sidecar, "POST", "/groups", "{")).startsWith("400");
+			Assertions.assertThat(sidecar.getCache().getHits()).isEqualTo(1);
+		}
+
+		Assertions.assertThat(api.getCommands()).containsExactly(
+				Arrays.asList("get", "user", "alice@example.com"), Arrays.asList("suspend", "u1"),
+				Arrays.asList("get", "user", "alice@example.com"),
+				Arrays.asList("edit", "group", "g1", "--name=Team"),
+				Arrays.asList("add", "user", "u1", "v1", "--role=manager"));
+	}
+
+	@Test
+	void testAuthentication(@TempDir Path directory) throws IOException {
+		OnePasswordMock api = new OnePasswordMock();
+		Path tokenFile = directory.resolve("token");
+		try (Sidecar sidecar = new Sidecar(api).setTokenFile(tokenFile).start()) {
+			Assertions.assertThat(tokenFile).hasContent(sidecar.getToken());
+			if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+				Assertions.assertThat(PosixFilePermissions.toString(
+						Files.getPosixFilePermissions(tokenFile))).isEqualTo("rw-------");
+			}
+
+			Assertions.assertThat(request(sidecar, null, "GET", "/users", null)).startsWith("401");
+			Assertions.assertThat(request(sidecar, "invalid", "GET", "/users", null))
+					.startsWith("401");
+			Assertions.assertThat(rawRequest(sidecar, "localhost", sidecar.getToken()))
+					.startsWith("HTTP/1.1 2");
+			Assertions.assertThat(rawRequest(sidecar, "attacker.example.com", sidecar.getToken()))
+					.startsWith("HTTP/1.1 403");
+			Assertions.assertThat(rawRequest(sidecar, "10.0.0.1:8080", sidecar.getToken()))
+					.startsWith("HTTP/1.1 403");
+		}
+		Assertions.assertThat(tokenFile).doesNotExist();
+		Assertions.assertThat(api.getCommands()).containsExactly(Arrays.asList("list", "users"));
+	}
+
+	/** Sends a request listing users with the given Host header, which URL connections set. */
+	private static String rawRequest(Sidecar sidecar, String host, String token)
+			throws IOException {
+		try (Socket socket = new Socket(sidecar.getAddress().getAddress(),
+				sidecar.getAddress().getPort())) {
+			socket.getOutputStream()
+					.write(("GET /users HTTP/1.1\r\nHost: " + host + "\r\nAuthorization: Bearer "
+							+ token + "\r\nConnection: close\r\n\r\n")
+									.getBytes(StandardCharsets.US_ASCII));
+			try (Scanner scanner = new Scanner(socket.getInputStream(), "US-ASCII")) {
+				return scanner.nextLine();
+			}
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package one.password.snapshot;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import one.password.Entity;
+import one.password.Role;
+import one.password.User;
+import one.password.util.Json;
+
+public class HistoryStoreTest {
+	private static final LocalDate DAY = LocalDate.of(2021, 3, 1);
+
+	/** Returns the account with bob active again and carol granted access to the shared vault. */
+	private static AccountSnapshot changed() throws IOException {
+		AccountSnapshot account = SnapshotFileTest.account();
+		User[] users = Json.deserialize("[{\"uuid\":\"u1\",\"email\":\"alice@example.com\","
+				+ "\"name\":\"Alice Ärger\",\"language\":\"en\",\"state\":\"A\",\"type\":\"R\","
+				+ "\"createdAt\":\"2021-01-01T10:00:00.123Z\","
+				+ "\"lastAuthAt\":\"2021-03-01T10:00:00Z\"},"
+				+ "{\"uuid\":\"u2\",\"email\":\"bob@example.com\",\"name\":\"Bob\","
+				+ "\"language\":\"en\",\"state\":\"A\",\"type\":\"G\","
+				+ "\"createdAt\":\"2020-12-01T10:00:00Z\"},"
+				+ "{\"uuid\":\"u3\",\"email\":\"carol@example.com\",\"name\":\"Carol\"}]",
+				User[].class);
+		List<Edge> edges = new ArrayList<>(account.getEdges());
+		edges.set(0, new Edge(Edge.Kind.USER_GROUP, "u1", "g1", Role.MEMBER));
+		edges.add(new Edge(Edge.Kind.USER_VAULT, "u3", "v1", Role.MEMBER));
+		return new AccountSnapshot(users, account.getGroups(), account.getVaults(), edges);
+	}
+
+	@Test
+	void testRecord(@TempDir Path directory) throws IOException {
+		HistoryStore store = new HistoryStore(directory);
+		Assertions.assertThat(store.record(DAY, SnapshotFileTest.account())).isEmpty();
+		List<Change> changes = store.record(DAY.plusDays(1), changed());
+
+		Assertions.assertThat(changes).extracting(Change::getTarget, Change::getId,
+				Change::getType)
+				.containsExactly(Assertions.tuple(Change.Target.USER, "u2", Change.Type.MODIFIED),
+						Assertions.tuple(Change.Target.USER, "u3", Change.Type.ADDED),
+						Assertions.tuple(Change.Target.EDGE, "USER_GROUP u1 g1",
+								Change.Type.MODIFIED),
+						Assertions.tuple(Change.Target.EDGE, "USER_VAULT u3 v1",
+								Change.Type.ADDED));
+		Assertions.assertThat(changes.get(0).getBefore()).containsEntry("state", "S");
+		Assertions.assertThat(changes.get(0).getAfter()).containsEntry("state", "A");
+		Assertions.assertThat(store.getDates()).containsExactly(DAY, DAY.plusDays(1));
+		Assertions.assertThatThrownBy(() -> store.record(DAY, changed()))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void testAt(@TempDir Path directory) throws IOException {
+		HistoryStore store = new HistoryStore(directory).setBaseInterval(2);
+		store.record(DAY, SnapshotFileTest.account());
+		store.record(DAY.plusDays(1), changed());
+		store.record(DAY.plusDays(3), SnapshotFileTest.account());
+
+		Assertions.assertThat(store.at(DAY.minusDays(1))).isEmpty();
+		AccountSnapshot first = store.at(DAY).get();
+		Assertions.assertThat(first.getUsers()).extracting(Entity::getId).containsExactly("u1",
+				"u2");
+		Assertions.assertThat(first.getUsers()[1].isSuspended()).isTrue();
+		Assertions.assertThat(first.getUsers()[0].getCreatedAt().toInstant())
+				.isEqualTo(SnapshotFileTest.account().getUsers()[0].getCreatedAt().toInstant());
+		Assertions.assertThat(first.getEdges())
+				.containsExactlyInAnyOrderElementsOf(SnapshotFileTest.account().getEdges());
+
+		AccountSnapshot between = store.at(DAY.plusDays(2)).get();
+		Assertions.assertThat(between.getUsers()).extracting(Entity::getId).containsExactly("u1",
+				"u2", "u3");
+		Assertions.assertThat(between.getUsers()[1].isSuspended()).isFalse();
+		Assertions.assertThat(store.at(DAY.plusDays(3)).get().getUsers()).hasSize(2);
+	}
+
+	@Test
+	void testAccessTo(@TempDir Path directory) throws IOException {
+		HistoryStore store = new HistoryStore(directory);
+		store.record(DAY, SnapshotFileTest.account());
+		store.record(DAY.plusDays(1), changed());
+
+		Assertions.assertThat(store.accessTo("v1", DAY))
+				.containsExactly(new Edge(Edge.Kind.GROUP_VAULT, "g1", "v1", null));
+		Assertions.assertThat(store.accessTo("v1", DAY.plusDays(1))).containsExactlyInAnyOrder(
+				new Edge(Edge.Kind.GROUP_VAULT, "g1", "v1", null),
+				new Edge(Edge.Kind.USER_VAULT, "u3", "v1", Role.MEMBER));
+		Assertions.assertThat(store.accessTo("g1", DAY.plusDays(1)))
+				.containsExactly(new Edge(Edge.Kind.USER_GROUP, "u1", "g1", Role.MEMBER));
+	}
+
+	@Test
+	void testDiff(@TempDir Path directory) throws IOException {
+		HistoryStore store = new HistoryStore(directory).setBaseInterval(2);
+		store.record(DAY, SnapshotFileTest.account());
+		store.record(DAY.plusDays(1), changed());
+		store.record(DAY.plusDays(2), SnapshotFileTest.account());
+
+		Assertions.assertThat(store.diff(DAY, DAY.plusDays(2))).isEmpty();
+		Assertions.assertThat(store.diff(DAY.plusDays(1), DAY.plusDays(2)))
+				.extracting(Change::getType).containsExactly(Change.Type.MODIFIED,
+						Change.Type.REMOVED, Change.Type.MODIFIED, Change.Type.REMOVED);
+		Assertions.assertThat(store.diff(DAY, DAY.plusDays(1)))
+				.isEqualTo(store.record(DAY.plusDays(3), changed()));
+	}
+}
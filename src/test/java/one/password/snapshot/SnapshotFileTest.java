@@ -0,0 +1,90 @@
+package one.password.snapshot;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import one.password.Entity;
+import one.password.Group;
+import one.password.Role;
+import one.password.User;
+import one.password.Vault;
+import one.password.util.Json;
+
+public class SnapshotFileTest {
+	static AccountSnapshot account() throws IOException {
+		User[] users = Json.deserialize("[{\"uuid\":\"u1\",\"email\":\"alice@example.com\","
+				+ "\"name\":\"Alice Ärger\",\"language\":\"en\",\"state\":\"A\",\"type\":\"R\","
+				+ "\"createdAt\":\"2021-01-01T10:00:00.123Z\","
+				+ "\"lastAuthAt\":\"2021-03-01T10:00:00Z\"},"
+				+ "{\"uuid\":\"u2\",\"email\":\"bob@example.com\",\"name\":\"Bob\","
+				+ "\"language\":\"en\",\"state\":\"S\",\"type\":\"G\","
+				+ "\"createdAt\":\"2020-12-01T10:00:00Z\"}]", User[].class);
+		Group[] groups = Json.deserialize("[{\"uuid\":\"g1\",\"name\":\"Admins\",\"desc\":\"\","
+				+ "\"createdAt\":\"2020-01-01T00:00:00Z\"}]", Group[].class);
+		Vault[] vaults = Json.deserialize(
+				"[{\"uuid\":\"v1\",\"name\":\"Shared\"},{\"uuid\":\"v2\",\"name\":\"Private\"}]",
+				Vault[].class);
+		return new AccountSnapshot(users, groups, vaults,
+				Arrays.asList(new Edge(Edge.Kind.USER_GROUP, "u1", "g1", Role.MANAGER),
+						new Edge(Edge.Kind.USER_VAULT, "u2", "v2", Role.MEMBER),
+						new Edge(Edge.Kind.GROUP_VAULT, "g1", "v1", null)));
+	}
+
+	@Test
+	void testColumns(@TempDir Path directory) throws IOException {
+		Path file = directory.resolve("account.snapshot");
+		SnapshotFile.write(account(), file);
+		MappedSnapshot snapshot = MappedSnapshot.open(file);
+
+		MappedSnapshot.Table users = snapshot.getUsers();
+		Assertions.assertThat(users.size()).isEqualTo(2);
+		Assertions.assertThat(users.getId(1)).isEqualTo("u2");
+		Assertions.assertThat(users.getString("name", 0)).isEqualTo("Alice Ärger");
+		Assertions.assertThat(users.getString("firstName", 0)).isNull();
+		Assertions.assertThat(users.getTimestamp("createdAt", 0))
+				.isEqualTo(Instant.parse("2021-01-01T10:00:00.123Z"));
+		Assertions.assertThat(users.getTimestamp("lastAuthAt", 1)).isNull();
+		Assertions.assertThatThrownBy(() -> users.getString("unknown", 0))
+				.isInstanceOf(IllegalArgumentException.class);
+
+		MappedSnapshot.Edges members = snapshot.getEdges(Edge.Kind.USER_GROUP);
+		Assertions.assertThat(members.size()).isEqualTo(1);
+		Assertions.assertThat(snapshot.getGroups().getId(members.getTo(0))).isEqualTo("g1");
+		Assertions.assertThat(members.getRole(0)).isEqualTo(Role.MANAGER);
+		Assertions.assertThat(snapshot.getEdges(Edge.Kind.GROUP_VAULT).getRole(0)).isNull();
+	}
+
+	@Test
+	void testMaterialize(@TempDir Path directory) throws IOException {
+		Path file = directory.resolve("account.snapshot");
+		AccountSnapshot account = account();
+		SnapshotFile.write(account, file);
+		AccountSnapshot read = MappedSnapshot.open(file).materialize();
+
+		Assertions.assertThat(read.getUsers()).extracting(User::getEmail)
+				.containsExactly("alice@example.com", "bob@example.com");
+		Assertions.assertThat(read.getUsers()[1].isSuspended()).isTrue();
+		Assertions.assertThat(read.getUsers()[1].isGuest()).isTrue();
+		Assertions.assertThat(read.getUsers()[0].getLastAuthAt().toInstant())
+				.isEqualTo(account.getUsers()[0].getLastAuthAt().toInstant());
+		Assertions.assertThat(read.getGroups()[0].getDescription()).isEmpty();
+		Assertions.assertThat(read.getGroups()[0].getUpdatedAt()).isEmpty();
+		Assertions.assertThat(read.getVaults()).extracting(Entity::getId).containsExactly("v1",
+				"v2");
+		Assertions.assertThat(read.getEdges()).containsExactlyElementsOf(account.getEdges());
+	}
+
+	@Test
+	void testInvalidFile(@TempDir Path directory) throws IOException {
+		Path file = directory.resolve("account.json");
+		Files.write(file, "[]".getBytes(StandardCharsets.UTF_8));
+		Assertions.assertThatThrownBy(() -> MappedSnapshot.open(file))
+				.isInstanceOf(IOException.class);
+	}
+}
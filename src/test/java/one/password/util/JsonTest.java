@@ -1,9 +1,13 @@
 package one.password.util;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.time.ZonedDateTime;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
+import one.password.Group;
+import one.password.Projection;
+import one.password.User;
 
 public class JsonTest {
 	@Test
@@ -19,4 +23,53 @@ public class JsonTest {
 		Assertions.assertThatIOException().isThrownBy(() -> Json.deserialize("{", String.class));
 	}
 
+	@Test
+	void testParseArrayIncrementally() throws IOException {
+		try (Json.ArrayParser<String> parser =
+				Json.parseArray(new StringReader("[\"a\", \"b\"] garbage"), String.class)) {
+			Assertions.assertThat(parser.hasNext()).isTrue();
+			Assertions.assertThat(parser.next()).isEqualTo("a");
+			Assertions.assertThat(parser.next()).isEqualTo("b");
+			Assertions.assertThat(parser.hasNext()).isFalse();
+		}
+
+		Assertions.assertThat(Json.parseArray(new StringReader(""), String.class).hasNext())
+				.isFalse();
+		Assertions.assertThat(Json.parseArray(new StringReader("null"), String.class).hasNext())
+				.isFalse();
+		Assertions.assertThatIOException()
+				.isThrownBy(() -> Json.parseArray(new StringReader("{}"), String.class).hasNext());
+	}
+
+	@Test
+	void testLazyDateTime() throws IOException {
+		User user = Json.deserialize("{\"uuid\":\"u1\",\"createdAt\":\"2021-01-01T10:00:00Z\","
+				+ "\"lastAuthAt\":1614592800000}", User.class);
+		Assertions.assertThat(user.getCreatedAt())
+				.isEqualTo(ZonedDateTime.parse("2021-01-01T10:00:00Z"));
+		Assertions.assertThat(user.getLastAuthAt().toInstant())
+				.isEqualTo(ZonedDateTime.parse("2021-03-01T10:00:00Z").toInstant());
+		Assertions.assertThat(user.getUpdatedAt()).isNull();
+		Assertions.assertThat(Json.serialize(user))
+				.contains("\"createdAt\":\"2021-01-01T10:00:00Z\"");
+	}
+
+	@Test
+	void testProjection() throws IOException {
+		String json = "[{\"uuid\":\"u1\",\"email\":\"alice@example.com\",\"name\":\"Alice\","
+				+ "\"state\":\"S\",\"createdAt\":\"invalid\",\"unknown\":{\"a\":[1]}}]";
+		User[] users = Json.deserialize(new StringReader(json), User[].class,
+				Projection.of("email").getFields());
+		Assertions.assertThat(users).hasSize(1);
+		Assertions.assertThat(users[0].getId()).isEqualTo("u1");
+		Assertions.assertThat(users[0].getEmail()).isEqualTo("alice@example.com");
+		Assertions.assertThat(users[0].getName()).isNull();
+		Assertions.assertThat(users[0].isSuspended()).isFalse();
+		Assertions.assertThat(users[0].getCreatedAt()).isNull();
+
+		Group group = Json.deserialize("{\"uuid\":\"g1\",\"name\":\"Admins\",\"desc\":\"All\"}",
+				Group.class, Projection.of("desc").getFields());
+		Assertions.assertThat(group.getName()).isNull();
+		Assertions.assertThat(group.getDescription()).isEqualTo("All");
+	}
 }
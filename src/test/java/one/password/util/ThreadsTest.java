@@ -0,0 +1,23 @@
+package one.password.util;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ThreadsTest {
+	@Test
+	void testAsync() throws InterruptedException, ExecutionException {
+		Assertions.assertThat(Threads.async(() -> "result").get()).isEqualTo("result");
+	}
+
+	@Test
+	void testAsyncPropagatesOriginalException() {
+		IOException exception = new IOException("failure");
+		Assertions.assertThat(Threads.<String, IOException>async(() -> {
+			throw exception;
+		})).failsWithin(Duration.ofSeconds(5)).withThrowableOfType(ExecutionException.class)
+				.withCause(exception);
+	}
+}